@@ -0,0 +1,43 @@
+package com.bigtwo.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the benchmarks of the shaded jar with the usual JMH command
+ * line, and always adds the GC profiler, so every result comes with the bytes
+ * allocated per operation (gc.alloc.rate.norm) next to its time. The
+ * benchmarks to be run are selected by a regular expression, as in
+ * <code>java -jar benchmarks/target/benchmarks.jar Hand</code>.
+ *
+ * @author Anmol Gupta
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {
+	}
+
+	/**
+	 * Runs the benchmarks selected by the specified command line.
+	 *
+	 * @param args
+	 *            the JMH command line
+	 * @throws Exception
+	 *             if the command line is invalid or a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList()
+				|| commandLine.shouldListProfilers()
+				|| commandLine.shouldListResultFormats()) {
+			// nothing is run, so the profiler is not needed
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		Options options = new OptionsBuilder().parent(commandLine)
+				.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,162 @@
+package com.bigtwo.benchmarks;
+
+import com.bigtwo.BigTwoDeck;
+import com.bigtwo.Card;
+import com.bigtwo.CardGamePlayer;
+import com.bigtwo.CardList;
+import com.bigtwo.Deck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the card model: shuffling a deck (with a fresh or a
+ * reused generator) and initializing it, sorting a hand of 13 cards and
+ * removing the cards of a played hand from a player.
+ *
+ * @author Anmol Gupta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardModelBenchmark {
+	// the number of different deals cycled through, so that sorting does not
+	// always see the same order
+	private static final int NUM_OF_DEALS = 256;
+	// the number of cards in a hand
+	private static final int NUM_OF_CARDS = 13;
+
+	private Deck deck; // the deck which is shuffled and initialized
+	private SplittableRandom random; // the generator of a table, as used by the server
+	private Card[][] deals; // the cards of shuffled hands, in the order dealt
+	private CardList hand; // the hand which is filled from a deal and sorted
+	private int next; // the index of the next deal
+	private CardGamePlayer player; // the player who plays a hand
+	private CardList played; // the cards of the hand played
+
+	/**
+	 * Prepares the decks, the deals and the player.
+	 */
+	@Setup
+	public void setUp() {
+		deck = new BigTwoDeck();
+		random = new SplittableRandom(42L);
+		deals = new Card[NUM_OF_DEALS][NUM_OF_CARDS];
+		for (int i = 0; i < NUM_OF_DEALS; i++) {
+			BigTwoDeck shuffled = new BigTwoDeck();
+			shuffled.shuffle();
+			for (int j = 0; j < NUM_OF_CARDS; j++) {
+				deals[i][j] = shuffled.getCard(j);
+			}
+		}
+		hand = new CardList();
+		for (int j = 0; j < NUM_OF_CARDS; j++) {
+			hand.addCard(deals[0][j]);
+		}
+
+		player = new CardGamePlayer();
+		played = new CardList();
+		for (int j = 0; j < NUM_OF_CARDS; j++) {
+			player.addCard(deals[0][j]);
+			if (j % 3 == 0) {
+				played.addCard(deals[0][j]);
+			}
+		}
+	}
+
+	/**
+	 * Shuffles a deck of 52 cards.
+	 *
+	 * @return the deck shuffled
+	 */
+	@Benchmark
+	public Deck shuffle() {
+		deck.shuffle();
+		return deck;
+	}
+
+	/**
+	 * Shuffles a deck of 52 cards with the generator of a table.
+	 *
+	 * @return the deck shuffled
+	 */
+	@Benchmark
+	public Deck shuffleWithGenerator() {
+		deck.shuffle(random);
+		return deck;
+	}
+
+	/**
+	 * Fills a deck with the 52 Big Two cards.
+	 *
+	 * @return the deck initialized
+	 */
+	@Benchmark
+	public Deck initialize() {
+		deck.initialize();
+		return deck;
+	}
+
+	/**
+	 * Fills a hand with the next deal, without sorting it. This is the
+	 * baseline of sort().
+	 *
+	 * @return the hand filled
+	 */
+	@Benchmark
+	public CardList fill() {
+		return fillHand();
+	}
+
+	/**
+	 * Fills a hand with the next deal, and sorts it.
+	 *
+	 * @return the hand sorted
+	 */
+	@Benchmark
+	public CardList sort() {
+		CardList cards = fillHand();
+		cards.sort();
+		return cards;
+	}
+
+	/**
+	 * Removes the cards of a hand of 5 cards from a player holding 13 cards,
+	 * and gives them back.
+	 *
+	 * @return the player
+	 */
+	@Benchmark
+	public CardGamePlayer removeCards() {
+		player.removeCards(played);
+		for (int i = 0; i < played.size(); i++) {
+			player.addCard(played.getCard(i));
+		}
+		return player;
+	}
+
+	/**
+	 * Fills the hand with the cards of the next deal.
+	 */
+	private CardList fillHand() {
+		Card[] deal = deals[next];
+		next = (next + 1) % NUM_OF_DEALS;
+		for (int j = 0; j < NUM_OF_CARDS; j++) {
+			hand.setCard(j, deal[j]);
+		}
+		return hand;
+	}
+}
@@ -0,0 +1,174 @@
+package com.bigtwo.benchmarks;
+
+import com.bigtwo.BigTwoCard;
+import com.bigtwo.BigTwoClient;
+import com.bigtwo.CardGamePlayer;
+import com.bigtwo.CardList;
+import com.bigtwo.Hands.Flush;
+import com.bigtwo.Hands.FullHouse;
+import com.bigtwo.Hands.Hand;
+import com.bigtwo.Hands.Pair;
+import com.bigtwo.Hands.Quad;
+import com.bigtwo.Hands.Single;
+import com.bigtwo.Hands.Straight;
+import com.bigtwo.Hands.StraightFlush;
+import com.bigtwo.Hands.Triple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the evaluation of hands, for each type of hand:
+ * checking that the cards form a hand of the type, composing the hand from the
+ * cards selected by a player, and comparing it with a hand of the same type
+ * played by another player.
+ *
+ * @author Anmol Gupta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+	/**
+	 * The type of the hands benchmarked.
+	 */
+	@Param({ "Single", "Pair", "Triple", "Straight", "Flush", "FullHouse",
+			"Quad", "StraightFlush" })
+	public String type;
+
+	private CardGamePlayer player; // the player who plays the hand
+	private CardList cards; // the cards selected by the player
+	private Hand hand; // the hand of the type
+	private Hand otherHand; // a weaker hand of the type, played by another player
+
+	/**
+	 * Prepares the cards and the hands of the type.
+	 */
+	@Setup
+	public void setUp() {
+		player = new CardGamePlayer();
+		CardGamePlayer otherPlayer = new CardGamePlayer();
+		// the cards are given by their index in Big Two order, 0 being the
+		// 3 of Diamonds and 51 the 2 of Spades
+		int[] indices;
+		int[] otherIndices;
+		switch (type) {
+		case "Single":
+			indices = new int[] { 9 };
+			otherIndices = new int[] { 5 };
+			break;
+		case "Pair":
+			indices = new int[] { 16, 18 };
+			otherIndices = new int[] { 8, 9 };
+			break;
+		case "Triple":
+			indices = new int[] { 16, 17, 18 };
+			otherIndices = new int[] { 8, 9, 10 };
+			break;
+		case "Straight":
+			indices = new int[] { 4, 9, 14, 19, 20 };
+			otherIndices = new int[] { 0, 5, 10, 15, 16 };
+			break;
+		case "Flush":
+			indices = new int[] { 2, 10, 18, 26, 38 };
+			otherIndices = new int[] { 1, 9, 17, 25, 37 };
+			break;
+		case "FullHouse":
+			indices = new int[] { 4, 5, 28, 29, 30 };
+			otherIndices = new int[] { 12, 13, 14, 20, 21 };
+			break;
+		case "Quad":
+			indices = new int[] { 1, 32, 33, 34, 35 };
+			otherIndices = new int[] { 0, 12, 13, 14, 15 };
+			break;
+		case "StraightFlush":
+			indices = new int[] { 7, 11, 15, 19, 23 };
+			otherIndices = new int[] { 3, 7, 11, 15, 19 };
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown type of hand: " + type);
+		}
+		cards = toCardList(indices);
+		hand = newHand(type, player, cards);
+		otherHand = newHand(type, otherPlayer, toCardList(otherIndices));
+	}
+
+	/**
+	 * Checks that the cards form a hand of the type.
+	 *
+	 * @return true if the hand is valid
+	 */
+	@Benchmark
+	public boolean isValid() {
+		return hand.isValid();
+	}
+
+	/**
+	 * Composes the hand from the cards selected by the player.
+	 *
+	 * @return the hand composed
+	 */
+	@Benchmark
+	public Hand composeHand() {
+		return BigTwoClient.composeHand(player, cards);
+	}
+
+	/**
+	 * Compares the hand with a weaker hand of the same type.
+	 *
+	 * @return true if the hand beats the other hand
+	 */
+	@Benchmark
+	public boolean beats() {
+		return hand.beats(otherHand);
+	}
+
+	/**
+	 * Returns a list of the cards with the specified indices.
+	 */
+	private static CardList toCardList(int[] indices) {
+		CardList list = new CardList();
+		for (int index : indices) {
+			list.addCard(BigTwoCard.valueOf(index));
+		}
+		return list;
+	}
+
+	/**
+	 * Creates a hand of the specified type.
+	 */
+	private static Hand newHand(String type, CardGamePlayer player,
+			CardList cards) {
+		switch (type) {
+		case "Single":
+			return new Single(player, cards);
+		case "Pair":
+			return new Pair(player, cards);
+		case "Triple":
+			return new Triple(player, cards);
+		case "Straight":
+			return new Straight(player, cards);
+		case "Flush":
+			return new Flush(player, cards);
+		case "FullHouse":
+			return new FullHouse(player, cards);
+		case "Quad":
+			return new Quad(player, cards);
+		default:
+			return new StraightFlush(player, cards);
+		}
+	}
+}
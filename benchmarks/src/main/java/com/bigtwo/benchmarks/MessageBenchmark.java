@@ -0,0 +1,123 @@
+package com.bigtwo.benchmarks;
+
+import com.bigtwo.BigTwoDeck;
+import com.bigtwo.CardGameMessage;
+import com.bigtwo.CardList;
+import com.bigtwo.WireProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the round trip of a com.bigtwo.CardGameMessage through
+ * a frame of the wire protocol, with each codec, for the messages sent most
+ * often during a game. The encoding for clients speaking the legacy object
+ * stream protocol, which the server does once per broadcast, is benchmarked
+ * separately.
+ *
+ * @author Anmol Gupta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+	/**
+	 * The codec of the frames, WireProtocol.CODEC_SERIALIZED or
+	 * WireProtocol.CODEC_BINARY.
+	 */
+	@Param({ "0", "1" })
+	public int codec;
+
+	/**
+	 * The type of the message.
+	 */
+	@Param({ "MOVE", "START", "DEAL", "MSG" })
+	public String type;
+
+	private CardGameMessage message; // the message sent
+
+	/**
+	 * Prepares the message of the type.
+	 */
+	@Setup
+	public void setUp() {
+		BigTwoDeck deck = new BigTwoDeck();
+		deck.shuffle();
+		switch (type) {
+		case "MOVE":
+			message = new CardGameMessage(CardGameMessage.MOVE, 2,
+					new int[] { 0, 4, 7, 9, 12 });
+			break;
+		case "START":
+			message = new CardGameMessage(CardGameMessage.START, -1, deck);
+			break;
+		case "DEAL":
+			CardList cards = new CardList();
+			for (int i = 0; i < 13; i++) {
+				cards.addCard(deck.getCard(i));
+			}
+			message = new CardGameMessage(CardGameMessage.DEAL, 1, cards);
+			break;
+		case "MSG":
+			message = new CardGameMessage(CardGameMessage.MSG, 3,
+					"Player 3: good game, one more?");
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown type of message: "
+					+ type);
+		}
+	}
+
+	/**
+	 * Encodes the message into a frame, and decodes it back.
+	 *
+	 * @return the message decoded
+	 * @throws IOException
+	 *             if the message cannot be encoded or decoded
+	 */
+	@Benchmark
+	public CardGameMessage roundTrip() throws IOException {
+		byte[] frame = WireProtocol.encodeFrame(message, codec);
+		return WireProtocol.decodePayload(frame, WireProtocol.FRAME_HEADER_LENGTH,
+				frame.length - WireProtocol.FRAME_HEADER_LENGTH, codec);
+	}
+
+	/**
+	 * Encodes the message into a frame.
+	 *
+	 * @return the bytes of the frame
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return WireProtocol.encodeFrame(message, codec);
+	}
+
+	/**
+	 * Encodes the message for a client speaking the legacy object stream
+	 * protocol. The codec does not apply.
+	 *
+	 * @return the bytes written to the object stream
+	 * @throws IOException
+	 *             if the message cannot be serialized
+	 */
+	@Benchmark
+	public byte[] encodeLegacy() throws IOException {
+		return WireProtocol.encodeLegacy(message);
+	}
+}
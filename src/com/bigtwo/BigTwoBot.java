@@ -0,0 +1,421 @@
+package com.bigtwo;
+
+import com.bigtwo.Bots.RandomStrategy;
+import com.bigtwo.Bots.Strategy;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to model a Big Two player without any user interface. A
+ * bot connects to the server as com.bigtwo.BigTwoClient does, with the same
+ * JOIN, READY and MOVE messages, follows the game in a com.bigtwo.BigTwoEngine,
+ * and plays the move chosen by a com.bigtwo.Bots.Strategy, by default a random
+ * legal move (or a pass), whenever it is its turn. It gets
+ * ready for the next game as soon as a game ends, so a table of bots plays
+ * without pause.
+ * <p>
+ * A bot measures the time it took to connect and the round trip of each of
+ * its moves, from sending the MOVE message to receiving the move back from
+ * the server, for com.bigtwo.LoadGenerator.
+ *
+ * @author Anmol Gupta
+ */
+public class BigTwoBot implements NetworkGame, Runnable {
+	private final BigTwoEngine engine = new BigTwoEngine(4); // the game followed by this bot
+	private final long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES]; // the legal moves of this bot
+	private final Strategy strategy; // the strategy choosing the moves
+	private final SplittableRandom random; // the generator choosing the moves
+	private final long thinkTime; // the time to wait before each move, in milliseconds
+	private int playerID = -1; // the playerID of this bot
+	private String playerName; // the name of this bot
+	private String serverIP; // the IP address of the game server
+	private int serverPort; // the TCP port of the game server
+	private Socket sock; // the socket connection to the game server
+	private DataOutputStream dos; // the stream to which message frames are written
+	private DataInputStream dis; // the stream from which message frames are read
+	private int codec; // the codec accepted by the server for the message frames
+	private boolean inGame = false; // whether a game is being played at the table
+	private long moveSentAt = 0L; // the time the pending move was sent, or 0
+	private long connectTime = -1L; // the time taken to connect, in nanoseconds
+	private long[] latencies = new long[256]; // the round trips of the moves, in nanoseconds
+	private int numOfMoves = 0; // the number of moves accepted by the server
+	private int numOfGames = 0; // the number of games finished
+	private int numOfIllegalMoves = 0; // the number of moves rejected by the server
+	private String resumeToken = null; // the token with which this bot takes its seat back, or null
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoBot class, which
+	 * plays random legal moves.
+	 *
+	 * @param playerName
+	 *            the name of the bot
+	 * @param serverIP
+	 *            the IP address of the game server
+	 * @param serverPort
+	 *            the TCP port of the game server
+	 * @param thinkTime
+	 *            the time to wait before each move, in milliseconds
+	 * @param seed
+	 *            the seed of the generator choosing the moves
+	 */
+	public BigTwoBot(String playerName, String serverIP, int serverPort,
+			long thinkTime, long seed) {
+		this(playerName, serverIP, serverPort, thinkTime, seed,
+				new RandomStrategy());
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoBot class.
+	 *
+	 * @param playerName
+	 *            the name of the bot
+	 * @param serverIP
+	 *            the IP address of the game server
+	 * @param serverPort
+	 *            the TCP port of the game server
+	 * @param thinkTime
+	 *            the time to wait before each move, in milliseconds
+	 * @param seed
+	 *            the seed of the generator choosing the moves
+	 * @param strategy
+	 *            the strategy choosing the moves
+	 */
+	public BigTwoBot(String playerName, String serverIP, int serverPort,
+			long thinkTime, long seed, Strategy strategy) {
+		this.strategy = strategy;
+		this.playerName = playerName;
+		this.serverIP = serverIP;
+		this.serverPort = serverPort;
+		this.thinkTime = thinkTime;
+		this.random = new SplittableRandom(seed);
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public synchronized int getPlayerID() {
+		return playerID;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public synchronized void setPlayerID(int playerID) {
+		this.playerID = playerID;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public String getPlayerName() {
+		return playerName;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public void setPlayerName(String playerName) {
+		this.playerName = playerName;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public String getServerIP() {
+		return serverIP;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public void setServerIP(String serverIP) {
+		this.serverIP = serverIP;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public void setServerPort(int serverPort) {
+		this.serverPort = serverPort;
+	}
+
+	/**
+	 * Connects to the server, waits for the player list, and joins the game.
+	 * The time taken, from opening the socket to receiving the player list, is
+	 * kept as the connect time. The messages of the server are then read by a
+	 * thread of this bot. Errors are printed, and leave the bot unconnected.
+	 */
+	public void makeConnection() {
+		try {
+			long start = System.nanoTime();
+			sock = new Socket(serverIP, serverPort);
+			sock.setTcpNoDelay(true);
+			dos = new DataOutputStream(new BufferedOutputStream(
+					sock.getOutputStream()));
+			dos.write(WireProtocol.handshake(WireProtocol.CODEC_BINARY));
+			dos.flush();
+
+			dis = new DataInputStream(new BufferedInputStream(
+					sock.getInputStream()));
+			byte[] reply = new byte[WireProtocol.HANDSHAKE_LENGTH];
+			dis.readFully(reply);
+			codec = WireProtocol.parseHandshake(reply);
+			parseMessage(WireProtocol.readFrame(dis, codec));
+			synchronized (this) {
+				connectTime = System.nanoTime() - start;
+			}
+
+			Thread thread = new Thread(this, playerName);
+			thread.setDaemon(true);
+			thread.start();
+
+			String token = getResumeToken();
+			if (token != null) {
+				sendMessage(new CardGameMessage(CardGameMessage.RESUME, -1,
+						new String[] { playerName, token }));
+			} else {
+				sendMessage(new CardGameMessage(CardGameMessage.JOIN, -1,
+						playerName));
+			}
+			sendMessage(new CardGameMessage(CardGameMessage.READY, -1, null));
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			close();
+		}
+	}
+
+	/**
+	 * Reads the messages of the server until the connection is closed.
+	 */
+	public void run() {
+		try {
+			while (isConnected()) {
+				parseMessage(WireProtocol.readFrame(dis, codec));
+			}
+		} catch (IOException ex) {
+			// the connection has been closed
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Returns true if the bot is connected to the server.
+	 *
+	 * @return true if the socket is open
+	 */
+	public boolean isConnected() {
+		return sock != null && !sock.isClosed();
+	}
+
+	/**
+	 * Closes the connection to the server.
+	 */
+	public void close() {
+		try {
+			if (sock != null) {
+				sock.close();
+			}
+		} catch (IOException ex) {
+			// the socket is closed anyway
+		}
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public synchronized void parseMessage(GameMessage message) {
+		int id = message.getPlayerID();
+		switch (message.getType()) {
+		case CardGameMessage.PLAYER_LIST:
+			playerID = id;
+			break;
+		case CardGameMessage.FULL:
+			close();
+			break;
+		case CardGameMessage.RESUME:
+			resumeToken = ((String[]) message.getData())[1];
+			break;
+		case CardGameMessage.QUIT:
+			if (inGame) {
+				// the game has been abandoned, so a new one must be started
+				inGame = false;
+				moveSentAt = 0L;
+				sendMessage(new CardGameMessage(CardGameMessage.READY, -1,
+						null));
+			}
+			break;
+		case CardGameMessage.START:
+			engine.start((Deck) message.getData());
+			inGame = true;
+			break;
+		case CardGameMessage.DEAL:
+			engine.start(playerID, (CardList) message.getData(), id);
+			inGame = true;
+			break;
+		case CardGameMessage.MOVE:
+			if (!inGame) {
+				break;
+			}
+			// a server which does not validate the moves sends them back as made
+			int[] cardIdx = (int[]) message.getData();
+			if (engine.isLegalMove(id, cardIdx)) {
+				engine.playMove(id, cardIdx);
+				moveAccepted(id);
+			} else if (id == playerID) {
+				moveRejected();
+			}
+			break;
+		case CardGameMessage.PLAYED:
+			if (!inGame) {
+				break;
+			}
+			engine.playCards((CardList) message.getData());
+			moveAccepted(id);
+			break;
+		case CardGameMessage.ILLEGAL:
+			moveRejected();
+			break;
+		default:
+			break;
+		}
+		play();
+	}
+
+	// implementation of method from the com.bigtwo.NetworkGame interface
+	public synchronized void sendMessage(GameMessage message) {
+		try {
+			WireProtocol.writeFrame(dos, (CardGameMessage) message, codec);
+		} catch (IOException ex) {
+			close();
+		}
+	}
+
+	/**
+	 * Records a move accepted by the server, and gets ready for the next game
+	 * if the move ended the game.
+	 */
+	private void moveAccepted(int id) {
+		if (id == playerID && moveSentAt != 0L) {
+			if (numOfMoves == latencies.length) {
+				latencies = Arrays.copyOf(latencies, latencies.length * 2);
+			}
+			latencies[numOfMoves++] = System.nanoTime() - moveSentAt;
+			moveSentAt = 0L;
+		}
+		if (engine.endOfGame()) {
+			inGame = false;
+			numOfGames++;
+			sendMessage(new CardGameMessage(CardGameMessage.READY, -1, null));
+		}
+	}
+
+	/**
+	 * Records a move rejected by the server, so that another one is chosen.
+	 */
+	private void moveRejected() {
+		numOfIllegalMoves++;
+		moveSentAt = 0L;
+	}
+
+	/**
+	 * Makes a move if it is the turn of this bot and no move is pending. The
+	 * move is chosen by the strategy of this bot.
+	 */
+	private void play() {
+		if (!inGame || engine.getCurrentIdx() != playerID || moveSentAt != 0L) {
+			return;
+		}
+		if (engine.getLegalMoves(moves) == 0 && !engine.canPass()) {
+			return;
+		}
+		long move = strategy.chooseMove(engine.getState(), moves, random);
+		int[] cardIdx = null;
+		if (move != 0) {
+			long hand = engine.getState().getHand(playerID);
+			cardIdx = new int[Long.bitCount(move)];
+			int j = 0;
+			for (long cards = move; cards != 0; cards &= cards - 1) {
+				cardIdx[j++] = CardSet.positionOf(hand,
+						Long.numberOfTrailingZeros(cards));
+			}
+		}
+		if (thinkTime > 0) {
+			try {
+				Thread.sleep(thinkTime);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		moveSentAt = System.nanoTime();
+		sendMessage(new CardGameMessage(CardGameMessage.MOVE, -1, cardIdx));
+	}
+
+	/**
+	 * Returns the time taken to connect to the server.
+	 *
+	 * @return the connect time in nanoseconds, or -1 if the bot is not
+	 *         connected
+	 */
+	public synchronized long getConnectTime() {
+		return connectTime;
+	}
+
+	/**
+	 * Returns the number of moves of this bot accepted by the server.
+	 *
+	 * @return the number of moves
+	 */
+	public synchronized int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns the number of games finished at the table of this bot.
+	 *
+	 * @return the number of games
+	 */
+	public synchronized int getNumOfGames() {
+		return numOfGames;
+	}
+
+	/**
+	 * Returns the number of moves of this bot rejected by the server.
+	 *
+	 * @return the number of illegal moves
+	 */
+	public synchronized int getNumOfIllegalMoves() {
+		return numOfIllegalMoves;
+	}
+
+	/**
+	 * Returns the token with which this bot takes its seat back when it
+	 * connects again after the server has restarted.
+	 *
+	 * @return the resume token sent by the server, or null if none
+	 */
+	public synchronized String getResumeToken() {
+		return resumeToken;
+	}
+
+	/**
+	 * Sets the token with which this bot takes its seat back when it connects
+	 * again, as kept by an earlier run of the bot.
+	 *
+	 * @param resumeToken
+	 *            the resume token, or null to join as a new player
+	 */
+	public synchronized void setResumeToken(String resumeToken) {
+		this.resumeToken = resumeToken;
+	}
+
+	/**
+	 * Returns the round trips of the moves of this bot accepted by the server.
+	 *
+	 * @param from
+	 *            the number of moves to be skipped
+	 * @return the round trips of the moves after the skipped ones, in
+	 *         nanoseconds
+	 */
+	public synchronized long[] getLatencies(int from) {
+		return Arrays.copyOfRange(latencies, Math.min(from, numOfMoves),
+				numOfMoves);
+	}
+}
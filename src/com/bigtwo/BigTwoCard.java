@@ -3,11 +3,25 @@ package com.bigtwo;
 /**
  * This class is a subclass of the com.bigtwo.Card class and specifies the compareTo function to give the correct order of
  * priority of cards based on the rules of the BigTwo game.
+ * <p>
+ * The 52 Big Two cards are kept in a table of canonical instances, indexed in the order of their strength: index 0
+ * is the 3 of Diamonds and index 51 is the 2 of Spades. The valueOf methods return these instances instead of
+ * creating new ones, and a deserialized card is replaced by its canonical instance, so canonical cards can be
+ * compared by identity or by index.
  *
  * @author Anmol Gupta
  */
 public class BigTwoCard extends Card {
 
+    private static final long serialVersionUID = 6240620474632362929L;
+    private static final BigTwoCard[] CARDS = new BigTwoCard[52]; // the canonical cards, indexed in Big Two order.
+
+    static {
+        for (int i = 0; i < CARDS.length; i++) {
+            CARDS[i] = new BigTwoCard(i % 4, i / 4);
+        }
+    }
+
     /**
      *
      * A public constructor method that initializes a com.bigtwo.BigTwoCard based on the suit and the rank provided as parameters.
@@ -19,6 +33,40 @@ public class BigTwoCard extends Card {
         super(suit, (rank + 2) % 13);
     }
 
+    /**
+     *
+     * This method returns the canonical instance of the card with the specified index in Big Two order.
+     *
+     * @param index The index of the card, between 0 (3 of Diamonds) and 51 (2 of Spades).
+     * @return The canonical instance of the card.
+     */
+    public static BigTwoCard valueOf(int index) {
+        return CARDS[index];
+    }
+
+    /**
+     *
+     * This method returns the canonical instance of the card with the specified suit and rank, as they would be
+     * passed to the constructor.
+     *
+     * @param suit The suit of the card.
+     * @param rank The rank of the card, between 0 (3) and 12 (2).
+     * @return The canonical instance of the card.
+     */
+    public static BigTwoCard valueOf(int suit, int rank) {
+        return CARDS[rank * 4 + suit];
+    }
+
+    /**
+     *
+     * This method returns the index of this card in Big Two order.
+     *
+     * @return An integer value between 0 (3 of Diamonds) and 51 (2 of Spades).
+     */
+    public int getIndex() {
+        return ((this.rank + 11) % 13) * 4 + this.suit;
+    }
+
     /**
      *
      * This method overrides the compareTo function of the com.bigtwo.Card class to give the correct order of
@@ -30,20 +78,19 @@ public class BigTwoCard extends Card {
      */
     @Override
     public int compareTo(Card card) {
+        return Integer.compare(getIndex(), CardSet.indexOf(card));
+    }
 
-        int thisRank = (this.rank + 11) % 13;
-        int cardRank = (card.rank + 11) % 13;
-
-        if (thisRank > cardRank) {
-            return 1;
-        } else if (thisRank < cardRank) {
-            return -1;
-        } else if (this.suit > card.suit) {
-            return 1;
-        } else if (this.suit < card.suit) {
-            return -1;
-        } else {
-            return 0;
+    /**
+     *
+     * This method replaces a deserialized card by its canonical instance.
+     *
+     * @return The canonical instance of this card.
+     */
+    private Object readResolve() {
+        if (this.suit < 0 || this.suit > 3 || this.rank < 0 || this.rank > 12) {
+            return this;
         }
+        return CARDS[getIndex()];
     }
 }
@@ -1,52 +1,52 @@
 package com.bigtwo;
 
+import com.bigtwo.Bots.HeuristicStrategy;
+import com.bigtwo.Bots.Strategy;
 import com.bigtwo.Hands.*;
 
 import javax.swing.*;
 import java.io.*;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 /**
  *
  * This class models the logic of the BigTwo game by connecting the client to the server,
- * distributing the cards among players, check whether the game is complete
- * and making the game progress by taking and processing the input from the user.
+ * following the game in a com.bigtwo.BigTwoEngine, which deals the cards, checks the moves and
+ * whether the game is complete, and making the game progress by taking and processing the input
+ * from the user.
  *
  * @author Anmol Gupta
  *
  */
 public class BigTwoClient implements CardGame, NetworkGame {
 
-    private int numOfPlayers; // an integer specifying the number of players.
-    private Deck deck; // a deck of cards.
-    private ArrayList<CardGamePlayer> playerList; // a list of players.
-    private ArrayList<Hand> handsOnTable; // a list of hands played on the table.
+    private final BigTwoEngine engine; // the rules of the game, with the players and the hands played on the table.
     private int playerID; // an integer specifying the playerID (i.e., index) of the local player.
     private String playerName; // a string specifying the name of the local player.
     private String serverIP; // a string specifying the IP address of the game server.
     private int serverPort; // an integer specifying the TCP port of the game server.
     private Socket sock; // a socket connection to the game server.
-    private ObjectOutputStream oos; // an ObjectOutputStream for sending messages to the server.
-    private int currentIdx; // an integer specifying the index of the player for the current turn.
+    private DataOutputStream dos; // a DataOutputStream for sending message frames to the server.
+    private DataInputStream dis; // a DataInputStream for receiving message frames from the server.
+    private int codec; // an integer specifying the codec accepted by the server for the message frames.
     private BigTwoTable table; // a Big Two table which builds the GUI for the game and handles all user actions.
+    private final Strategy autoPlayer = new HeuristicStrategy(); // the bot which plays for the local player on auto play.
+    private final SplittableRandom random = new SplittableRandom(); // the generator of the random numbers of the bot.
+    private final long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES]; // the legal moves considered by the bot.
+    private boolean autoPlay = false; // a boolean specifying whether the bot plays for the local player.
+    private String resumeToken = null; // a string specifying the token with which the local player takes the seat back.
 
     /**
      *
-     * This method is the constructor to the com.bigtwo.BigTwoClient class. It creates and adds 4 players to the
-     * playerList associated with this game. It takes the name as an input from the user, sets the server IP
+     * This method is the constructor to the com.bigtwo.BigTwoClient class. It creates the engine of a game
+     * between 4 players. It takes the name as an input from the user, sets the server IP
      * address and port and initiates the connection.
      *
      */
     public BigTwoClient() {
-        this.numOfPlayers = 4;
-        ArrayList<CardGamePlayer> players = new ArrayList<>();
-        for (int i = 0; i < getNumOfPlayers(); i++) {
-            CardGamePlayer cardGamePlayer = new CardGamePlayer();
-            players.add(cardGamePlayer);
-        }
-        this.handsOnTable = new ArrayList<>();
-        this.playerList = players;
+        this.engine = new BigTwoEngine(4);
         this.table = new BigTwoTable(this);
 
         String name = null;
@@ -68,7 +68,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public int getNumOfPlayers() {
-        return numOfPlayers;
+        return engine.getNumOfPlayers();
     }
 
     /**
@@ -78,7 +78,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public Deck getDeck() {
-        return deck;
+        return engine.getDeck();
     }
 
     /**
@@ -88,7 +88,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public ArrayList<CardGamePlayer> getPlayerList() {
-        return playerList;
+        return engine.getPlayerList();
     }
 
     /**
@@ -98,7 +98,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public ArrayList<Hand> getHandsOnTable() {
-        return handsOnTable;
+        return engine.getHandsOnTable();
     }
 
     /**
@@ -108,7 +108,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public int getCurrentIdx() {
-        return currentIdx;
+        return engine.getCurrentIdx();
     }
 
     /**
@@ -118,11 +118,22 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public void start(Deck deck) {
-        clearCards();
-        this.deck = deck;
-        distributeCards();
-        this.currentIdx = getPlayerWithThreeOfDiamonds();
+        this.engine.start(deck);
+        this.table.setActivePlayer(this.getCurrentIdx());
+        playAutomatically();
+    }
+
+    /**
+     * This method is used for starting the game with the hand of the local player dealt by the server.
+     * The cards of the other players are not known, and are only counted.
+     *
+     * @param cards The cards dealt to the local player
+     * @param firstIdx The index of the player who makes the first move
+     */
+    public void start(CardList cards, int firstIdx) {
+        this.engine.start(getPlayerID(), cards, firstIdx);
         this.table.setActivePlayer(this.getCurrentIdx());
+        playAutomatically();
     }
 
     /**
@@ -142,8 +153,8 @@ public class BigTwoClient implements CardGame, NetworkGame {
     /**
      *
      * This method receives the playerId and the card indices from the parseMessage function that listens
-     * to the messages broadcasted by the server. It implements the logic to play a hand based on the cards
-     * played in this move.
+     * to the messages broadcasted by the server. It checks the move with the engine, and plays the hand formed
+     * by the cards if the move is legal. It is only used with a server which does not validate the moves itself.
      *
      * @param playerID the playerID of the player who makes the move
      * @param cardIdx the indices of the card used to make the move
@@ -151,58 +162,80 @@ public class BigTwoClient implements CardGame, NetworkGame {
     @Override
     public void checkMove(int playerID, int[] cardIdx) {
         this.table.disable();
-        Hand lastHand = null;
-
-        if (this.getHandsOnTable().size() != 0) {
-            lastHand = this.getHandsOnTable().get(this.getHandsOnTable().size() - 1);
+        if (!this.engine.isLegalMove(playerID, cardIdx)) {
+            rejectMove(playerID, cardIdx);
+            return;
         }
+        printMove(this.engine.playMove(playerID, cardIdx));
+    }
 
-        CardGamePlayer currentPlayer = playerList.get(playerID);
-        CardList cardsToPlay = currentPlayer.play(cardIdx);
+    /**
+     *
+     * This method plays a move which has already been accepted by the server, without checking it again.
+     * It removes the cards played from the hand of the player, adds the hand to the table and passes the
+     * turn to the next player.
+     *
+     * @param playerID the playerID of the player who made the move
+     * @param cards the cards played in this move, or null if the player passed
+     */
+    public void playMove(int playerID, CardList cards) {
+        this.table.disable();
+        this.engine.playCards(cards);
+        printMove(cards);
+    }
 
-        if (cardsToPlay == null) {
-            if (lastHand == null || lastHand.getPlayer().equals(currentPlayer)) {
-                this.table.printMsg("{Pass} <== Not a legal move!!!\n");
-            } else {
-                this.table.printMsg("{Pass}\n");
-                this.currentIdx = (this.currentIdx + 1) % this.playerList.size();
-                this.table.printMsg(this.getPlayerList().get(this.getCurrentIdx()).getName() + "'s turn:\n");
-            }
-            continueGame();
-            return;
-        }
-        cardsToPlay.sort();
-        BigTwoCard threeOfDiamonds = new BigTwoCard(0, 0);
-        if (this.handsOnTable.size() == 0 && !cardsToPlay.getCard(0).equals(threeOfDiamonds)) {
-            this.table.printMsg(cardsToPlay.toString() + " <== Not a legal move!!!\n");
+    /**
+     *
+     * This method prints a move which has been played, and ends the turn.
+     *
+     * @param cards the cards played in the move, or null if the player passed
+     */
+    private void printMove(CardList cards) {
+        if (cards == null) {
+            this.table.printMsg("{Pass}\n");
+            this.table.printMsg(this.getPlayerList().get(this.getCurrentIdx()).getName() + "'s turn:\n");
             continueGame();
             return;
         }
-        Hand newHand = composeHand(currentPlayer, cardsToPlay);
+        Hand newHand = this.getHandsOnTable().get(this.getHandsOnTable().size() - 1);
+        this.table.printMsg("{" + newHand.getType() + "} " + newHand.toString() + "\n");
+        endTurn();
+    }
 
-        if (newHand == null) {
+    /**
+     *
+     * This method reports a move which has been found illegal, by the server or by the engine, and lets the
+     * player select the cards again.
+     *
+     * @param playerID the playerID of the player who made the move
+     * @param cardIdx the indices of the cards used to make the rejected move
+     */
+    private void rejectMove(int playerID, int[] cardIdx) {
+        CardList cardsToPlay = this.getPlayerList().get(playerID).play(cardIdx);
+        if (cardsToPlay == null || cardsToPlay.size() == 0) {
+            this.table.printMsg("{Pass} <== Not a legal move!!!\n");
+        } else {
+            cardsToPlay.sort();
             this.table.printMsg(cardsToPlay.toString() + " <== Not a legal move!!!\n");
-            continueGame();
-            return;
-        } else if (lastHand != null && !newHand.beats(lastHand)) {
-            this.table.printMsg("{" + newHand.getType() + "} " + newHand.toString() + " <== Not a legal move!!!\n");
-            continueGame();
-            return;
         }
+        continueGame();
+    }
 
-        lastHand = newHand;
-        this.handsOnTable.add(lastHand);
-        currentPlayer.removeCards(cardsToPlay);
-        this.currentIdx = (this.currentIdx + 1) % this.playerList.size();
-        this.table.printMsg("{" + newHand.getType() + "} " + newHand.toString() + "\n");
+    /**
+     *
+     * This method ends the turn after a hand has been played. It announces the result if the game has
+     * ended, and gives the turn to the next player otherwise.
+     *
+     */
+    private void endTurn() {
         if (endOfGame()) {
             this.table.disable();
             this.table.resetSelected();
             this.table.repaint();
             String message = "Game Ends\n";
-            for (int j = 0; j < this.playerList.size(); j++) {
+            for (int j = 0; j < this.getNumOfPlayers(); j++) {
                 if (this.getPlayerList().get(j).getNumOfCards() != 0) {
-                    message = message.concat(this.getPlayerList().get(j).getName() + " has " + this.playerList.get(j).getNumOfCards() + " cards in hand.\n");
+                    message = message.concat(this.getPlayerList().get(j).getName() + " has " + this.getPlayerList().get(j).getNumOfCards() + " cards in hand.\n");
                 } else {
                     message = message.concat(this.getPlayerList().get(j).getName() + " wins the game.\n");
                 }
@@ -223,12 +256,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public boolean endOfGame() {
-        for (int i = 0; i < this.playerList.size(); i++) {
-            if (this.playerList.get(i).getNumOfCards() == 0) {
-                return true;
-            }
-        }
-        return false;
+        return engine.endOfGame();
     }
 
     /**
@@ -322,20 +350,32 @@ public class BigTwoClient implements CardGame, NetworkGame {
     /**
      *
      * This method connects the socket to the server and sends com.bigtwo.CardGameMessage objects of type JOIN and Ready
-     * to indicate that the client is wanting to join the game and is ready to play.
+     * to indicate that the client is wanting to join the game and is ready to play. A client which has been sent a
+     * resume token sends it in a RESUME message in place of the JOIN message.
      *
      */
     @Override
     public void makeConnection() {
         try {
             this.sock = new Socket(getServerIP(), getServerPort());
-            this.oos = new ObjectOutputStream(this.sock.getOutputStream());
+            this.sock.setTcpNoDelay(true);
+            this.dos = new DataOutputStream(new BufferedOutputStream(this.sock.getOutputStream()));
+            this.dos.write(WireProtocol.handshake(WireProtocol.CODEC_BINARY));
+            this.dos.flush();
+
+            this.dis = new DataInputStream(new BufferedInputStream(this.sock.getInputStream()));
+            byte[] reply = new byte[WireProtocol.HANDSHAKE_LENGTH];
+            this.dis.readFully(reply);
+            this.codec = WireProtocol.parseHandshake(reply);
 
             ServerHandler threadJob = new ServerHandler();
             Thread myThread = new Thread(threadJob);
             myThread.start();
 
-            CardGameMessage joinMessage = new CardGameMessage(CardGameMessage.JOIN, -1, getPlayerName());
+            // a player who has been seated before takes the seat back if the server has restarted
+            CardGameMessage joinMessage = resumeToken == null
+                    ? new CardGameMessage(CardGameMessage.JOIN, -1, getPlayerName())
+                    : new CardGameMessage(CardGameMessage.RESUME, -1, new String[] {getPlayerName(), resumeToken});
             sendMessage(joinMessage);
             CardGameMessage readyMessage = new CardGameMessage(CardGameMessage.READY, -1, null);
             sendMessage(readyMessage);
@@ -367,6 +407,13 @@ public class BigTwoClient implements CardGame, NetworkGame {
                 break;
             case CardGameMessage.JOIN:
                 this.getPlayerList().get(message.getPlayerID()).setName((String) message.getData());
+                if (!endOfGame()) {
+                    // a bot takes the seat of a player who left, and the game goes on
+                    this.table.printMsg(message.getData() + " takes over the seat.\n");
+                }
+                break;
+            case CardGameMessage.RESUME:
+                this.resumeToken = ((String[]) message.getData())[1];
                 break;
             case CardGameMessage.FULL:
                 this.table.printMsg("The table is full and no more players can join!");
@@ -390,9 +437,18 @@ public class BigTwoClient implements CardGame, NetworkGame {
             case CardGameMessage.START:
                 start((BigTwoDeck) message.getData());
                 break;
+            case CardGameMessage.DEAL:
+                start((CardList) message.getData(), message.getPlayerID());
+                break;
             case CardGameMessage.MOVE:
                 checkMove(message.getPlayerID(), (int[]) message.getData());
                 break;
+            case CardGameMessage.PLAYED:
+                playMove(message.getPlayerID(), (CardList) message.getData());
+                break;
+            case CardGameMessage.ILLEGAL:
+                rejectMove(getPlayerID(), (int[]) message.getData());
+                break;
             case CardGameMessage.MSG:
                 this.table.printChatMessage((String) message.getData());
                 break;
@@ -405,15 +461,15 @@ public class BigTwoClient implements CardGame, NetworkGame {
 
     /**
      *
-     * This method writes the given com.bigtwo.GameMessage object to the ObjectOutputStream which is connected to
-     * the server.
+     * This method writes the given com.bigtwo.GameMessage object as a frame to the DataOutputStream which is
+     * connected to the server.
      *
      * @param message The com.bigtwo.GameMessage object to be sent to the server.
      */
     @Override
-    public void sendMessage(GameMessage message) {
+    public synchronized void sendMessage(GameMessage message) {
         try {
-            this.oos.writeObject(message);
+            WireProtocol.writeFrame(this.dos, (CardGameMessage) message, this.codec);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -429,16 +485,14 @@ public class BigTwoClient implements CardGame, NetworkGame {
          */
         @Override
         public void run() {
-            ObjectInputStream ois;
             try {
-                ois = new ObjectInputStream(sock.getInputStream());
                 while (isConnected()) {
-                    CardGameMessage messageFromServer = (CardGameMessage) ois.readObject();
+                    CardGameMessage messageFromServer = WireProtocol.readFrame(dis, codec);
                     if (messageFromServer != null) {
                         parseMessage(messageFromServer);
                     }
                 }
-                ois.close();
+                dis.close();
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -473,57 +527,44 @@ public class BigTwoClient implements CardGame, NetworkGame {
      * @return A valid hand based on the selected cards
      */
     public static Hand composeHand(CardGamePlayer player, CardList cards) {
-        if (cards.size() == 1) {
-            return new Single(player, cards);
-        } else if (cards.size() == 2 && (new Pair(player, cards)).isValid()) {
-            return new Pair(player, cards);
-        } else if (cards.size() == 3 && (new Triple(player, cards)).isValid()) {
-            return new Triple(player, cards);
-        } else if (cards.size() == 5) {
-            if ((new StraightFlush(player, cards).isValid())) {
-                return new StraightFlush(player, cards);
-            } else if ((new Quad(player, cards)).isValid()) {
-                return new Quad(player, cards);
-            } else if ((new FullHouse(player, cards)).isValid()) {
-                return new FullHouse(player, cards);
-            } else if ((new Flush(player, cards)).isValid()) {
-                return new Flush(player, cards);
-            } else if ((new Straight(player, cards)).isValid()) {
-                return new Straight(player, cards);
-            }
-            return null;
-        }
-        return null;
+        return BigTwoEngine.composeHand(player, cards);
     }
 
-    private int getPlayerWithThreeOfDiamonds() {
-        BigTwoCard threeOfDiamonds = new BigTwoCard(0, 0);
-        for (int i = 0; i < playerList.size(); i++) {
-            if (playerList.get(i).getCardsInHand().contains(threeOfDiamonds)) {
-                return i;
-            }
-        }
-        return -1;
+    private void continueGame() {
+        this.table.resetSelected();
+        this.table.setActivePlayer(this.getCurrentIdx());
+        this.table.repaint();
+        playAutomatically();
     }
 
-    private void distributeCards() {
-        for (int i = 0; i < 13; i++) {
-            for (CardGamePlayer player : this.playerList) {
-                player.addCard(deck.removeCard(0));
-            }
-        }
+    /**
+     * This method turns auto play on or off. On auto play, a heuristic bot makes the moves of the local player
+     * as soon as it is its turn, which lets a player step away without stalling the game.
+     *
+     * @param autoPlay a boolean specifying whether the bot plays for the local player
+     */
+    public synchronized void setAutoPlay(boolean autoPlay) {
+        this.autoPlay = autoPlay;
+        playAutomatically();
     }
 
-    private void clearCards() {
-        for (CardGamePlayer player : this.playerList) {
-            player.removeAllCards();
+    /**
+     * This method makes the move chosen by the bot if auto play is on and it is the turn of the local player.
+     */
+    private void playAutomatically() {
+        if (!this.autoPlay || endOfGame() || this.getCurrentIdx() != this.getPlayerID()) {
+            return;
         }
-        this.handsOnTable.clear();
-    }
-
-    private void continueGame() {
-        this.table.resetSelected();
-        this.table.setActivePlayer(this.getCurrentIdx());
-        this.table.repaint();
+        long move = this.autoPlayer.chooseMove(this.engine.getState(), this.moves, this.random);
+        int[] cardIdx = null;
+        if (move != 0) {
+            long hand = this.engine.getState().getHand(this.getPlayerID());
+            cardIdx = new int[Long.bitCount(move)];
+            int j = 0;
+            for (long cards = move; cards != 0; cards &= cards - 1) {
+                cardIdx[j++] = CardSet.positionOf(hand, Long.numberOfTrailingZeros(cards));
+            }
+        }
+        makeMove(this.getPlayerID(), cardIdx);
     }
 }
@@ -1,5 +1,7 @@
 package com.bigtwo;
 
+import java.util.SplittableRandom;
+
 /**
  * This class is a subclass of the com.bigtwo.Deck class and specifies the com.bigtwo.Deck based on the game Big Two.
  * It is a subclass of abstract class com.bigtwo.Hands.Hand.
@@ -8,6 +10,9 @@ package com.bigtwo;
  */
 public class BigTwoDeck extends Deck {
 
+    private static final long serialVersionUID = 8099147323466353009L; // the UID of the class before the deal helpers, for legacy clients.
+    private static final int NUM_OF_CARDS_PER_PLAYER = 13; // the number of cards dealt to each player.
+
     /**
      *
      * This method creates 52 cards and adds them to the cards collection of the game.
@@ -18,9 +23,49 @@ public class BigTwoDeck extends Deck {
         removeAllCards();
         for (int i = 0; i < 4; i++) {
             for (int j = 0; j < 13; j++) {
-                BigTwoCard bigTwoCard = new BigTwoCard(i, j);
-                addCard(bigTwoCard);
+                addCard(BigTwoCard.valueOf(i, j));
             }
         }
     }
+
+    /**
+     * This method deals the cards of the specified deck in turn, one to each player: the k-th card goes to
+     * player k % n. The server and the engine deal every game this way, so this is the only place where the
+     * order of a deck becomes hands.
+     *
+     * @param deck  The deck of (shuffled) cards to be dealt
+     * @param hands The array into which the bits of the cards of each player are written, one per player
+     */
+    public static void deal(Deck deck, long[] hands) {
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = 0L;
+        }
+        for (int k = 0; k < NUM_OF_CARDS_PER_PLAYER * hands.length; k++) {
+            hands[k % hands.length] |= CardSet.bit(deck.getCard(k));
+        }
+    }
+
+    /**
+     * This method deals the cards of a new com.bigtwo.BigTwoDeck shuffled with the specified generator, as the
+     * server deals a game shuffled with a generator of the same seed.
+     *
+     * @param random The generator with which the deck is shuffled
+     * @param hands  The array into which the bits of the cards of each player are written, one per player
+     */
+    public static void deal(SplittableRandom random, long[] hands) {
+        BigTwoDeck deck = new BigTwoDeck();
+        deck.shuffle(random);
+        deal(deck, hands);
+    }
+
+    /**
+     * This method deals the cards of a new com.bigtwo.BigTwoDeck shuffled with a generator of the specified seed,
+     * which gives the hands the server dealt from that seed.
+     *
+     * @param seed  The seed of the deal
+     * @param hands The array into which the bits of the cards of each player are written, one per player
+     */
+    public static void deal(long seed, long[] hands) {
+        deal(new SplittableRandom(seed), hands);
+    }
 }
@@ -0,0 +1,432 @@
+package com.bigtwo;
+
+import com.bigtwo.Hands.*;
+
+import java.util.ArrayList;
+
+/**
+ * This class models the rules of a Big Two card game without any user
+ * interface or network connection. The game itself is kept in a compact
+ * com.bigtwo.BigTwoState, which decides which moves are legal and applies and
+ * undoes them with bit operations; this class keeps the players and the hands
+ * on the table of the com.bigtwo.CardGame interface in step with it. The
+ * server uses it to validate every move before broadcasting it, and the client
+ * uses it to follow the game, so the rules live in one place. Bots and
+ * simulators which only need the rules can drive the state directly.
+ *
+ * @author Anmol Gupta
+ */
+public class BigTwoEngine implements CardGame {
+	private final int numOfPlayers; // the number of players
+	private final BigTwoState state; // the state of the current game
+	private Deck deck; // the deck of the current game, or null if unknown
+	private final ArrayList<CardGamePlayer> playerList; // the list of players
+	private final ArrayList<Hand> handsOnTable; // the hands played on the table
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoEngine class.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players
+	 */
+	public BigTwoEngine(int numOfPlayers) {
+		this.numOfPlayers = numOfPlayers;
+		state = new BigTwoState(numOfPlayers);
+		playerList = new ArrayList<CardGamePlayer>();
+		for (int i = 0; i < numOfPlayers; i++) {
+			playerList.add(new CardGamePlayer("Player " + i));
+		}
+		handsOnTable = new ArrayList<Hand>();
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public Deck getDeck() {
+		return deck;
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public ArrayList<CardGamePlayer> getPlayerList() {
+		return playerList;
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public ArrayList<Hand> getHandsOnTable() {
+		return handsOnTable;
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public int getCurrentIdx() {
+		return state.getCurrentIdx();
+	}
+
+	/**
+	 * Returns the compact state of the current game. It must only be changed
+	 * through apply() and undo() of this engine, or be copied first.
+	 *
+	 * @return the state of the current game
+	 */
+	public BigTwoState getState() {
+		return state;
+	}
+
+	/**
+	 * Starts a new game with the specified deck. The cards are dealt in turn,
+	 * one to each player, so every player holds the same cards here, in the
+	 * server and in the clients. The deck is left unchanged.
+	 *
+	 * @param deck
+	 *            the deck of (shuffled) cards to be used in this game
+	 */
+	public void start(Deck deck) {
+		this.deck = deck;
+		long[] hands = new long[numOfPlayers];
+		BigTwoDeck.deal(deck, hands);
+		state.start(hands);
+		resetPlayers();
+	}
+
+	/**
+	 * Starts a new game in which only the cards of one player are known, as
+	 * for a client which has been dealt its own hand by the server. The other
+	 * players are dealt as many cards, which are only counted.
+	 *
+	 * @param playerID
+	 *            the playerID of the player whose cards are known
+	 * @param cards
+	 *            the cards dealt to the player
+	 * @param firstIdx
+	 *            the index of the player who makes the first move
+	 */
+	public void start(int playerID, CardList cards, int firstIdx) {
+		this.deck = null;
+		long[] hands = new long[numOfPlayers];
+		int[] numOfCards = new int[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			numOfCards[i] = cards.size();
+		}
+		hands[playerID] = CardSet.maskOf(cards);
+		state.start(hands, numOfCards, firstIdx);
+		resetPlayers();
+	}
+
+	/**
+	 * Gives every player the cards of the state, and clears the table.
+	 */
+	private void resetPlayers() {
+		handsOnTable.clear();
+		for (int i = 0; i < numOfPlayers; i++) {
+			CardGamePlayer player = playerList.get(i);
+			player.removeAllCards();
+			if (state.isKnown(i)) {
+				player.getCardSet().addAll(CardSet.toCardList(state.getHand(i)));
+			} else {
+				player.addHiddenCards(state.getNumOfCards(i));
+			}
+		}
+	}
+
+	/**
+	 * Makes a move by the player. Same as checkMove(), as there is no server
+	 * to which the move could be sent.
+	 *
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 */
+	public void makeMove(int playerID, int[] cardIdx) {
+		checkMove(playerID, cardIdx);
+	}
+
+	/**
+	 * Checks the move made by the player, and plays it if it is legal. An
+	 * illegal move leaves the game unchanged.
+	 *
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 */
+	public void checkMove(int playerID, int[] cardIdx) {
+		if (isLegalMove(playerID, cardIdx)) {
+			playMove(playerID, cardIdx);
+		}
+	}
+
+	/**
+	 * Returns true if the specified move is legal: it is the turn of the
+	 * player, the indices select distinct cards in the hand of the player, and
+	 * the cards form a hand which beats the last hand on the table (or the
+	 * player passes when somebody else played the last hand).
+	 *
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 * @return true if the move is legal; false otherwise
+	 */
+	public boolean isLegalMove(int playerID, int[] cardIdx) {
+		if (playerID != state.getCurrentIdx()) {
+			return false;
+		}
+		long move = toMove(playerID, cardIdx);
+		return move >= 0 && state.isLegal(move);
+	}
+
+	/**
+	 * Returns true if the player for the current turn may pass, which is when
+	 * somebody else played the last hand on the table.
+	 *
+	 * @return true if the current player may pass
+	 */
+	public boolean canPass() {
+		return state.canPass();
+	}
+
+	/**
+	 * Writes the legal moves of the player for the current turn, other than
+	 * passing, into the specified array as the bits of com.bigtwo.CardSet
+	 * objects. The position of a card in the hand of the player is given by
+	 * CardSet.positionOf().
+	 *
+	 * @param moves
+	 *            the array into which the moves are written, with room for
+	 *            MoveGenerator.MAX_NUM_OF_MOVES moves
+	 * @return the number of moves written into the array
+	 */
+	public int getLegalMoves(long[] moves) {
+		return state.getLegalMoves(moves);
+	}
+
+	/**
+	 * Plays the specified legal move, and returns the cards played.
+	 *
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 * @return the cards played in ascending order, or null for a pass
+	 */
+	public CardList playMove(int playerID, int[] cardIdx) {
+		long move = toMove(playerID, cardIdx);
+		apply(move);
+		return move == 0 ? null : CardSet.toCardList(move);
+	}
+
+	/**
+	 * Plays the specified cards for the player for the current turn without
+	 * checking them, as for a move which has already been accepted by the
+	 * server. The cards need not be known to be held by the player.
+	 *
+	 * @param cards
+	 *            the cards played, or null for a pass
+	 */
+	public void playCards(CardList cards) {
+		apply(cards == null ? 0L : CardSet.maskOf(cards));
+	}
+
+	/**
+	 * Plays the specified move for the player for the current turn, and
+	 * passes the turn to the next player. The move is not checked.
+	 *
+	 * @param move
+	 *            the bits of the cards played, or 0 for a pass
+	 */
+	public void apply(long move) {
+		int playerID = state.getCurrentIdx();
+		state.apply(move);
+		if (move != 0) {
+			CardGamePlayer player = playerList.get(playerID);
+			CardList cards = CardSet.toCardList(move);
+			handsOnTable.add(composeHand(player, move));
+			player.removeCards(cards);
+		}
+	}
+
+	/**
+	 * Undoes the last move, and gives the turn back to the player who made it.
+	 *
+	 * @return the bits of the cards of the move undone, or 0 for a pass
+	 */
+	public long undo() {
+		long move = state.undo();
+		if (move != 0) {
+			int playerID = state.getCurrentIdx();
+			CardGamePlayer player = playerList.get(playerID);
+			handsOnTable.remove(handsOnTable.size() - 1);
+			if (state.isKnown(playerID)) {
+				player.getCardSet().addAll(CardSet.toCardList(move));
+			} else {
+				player.addHiddenCards(Long.bitCount(move));
+			}
+		}
+		return move;
+	}
+
+	/**
+	 * Returns the set of cards selected by the specified indices in the hand of
+	 * the player, 0 for a pass, or -1 if the indices do not select distinct
+	 * cards in the hand.
+	 */
+	private long toMove(int playerID, int[] cardIdx) {
+		if (cardIdx == null || cardIdx.length == 0) {
+			return 0L;
+		}
+		long hand = state.getHand(playerID);
+		long move = 0L;
+		for (int idx : cardIdx) {
+			int index = CardSet.indexAt(hand, idx);
+			if (index < 0 || (move & (1L << index)) != 0) {
+				return -1L;
+			}
+			move |= 1L << index;
+		}
+		return move;
+	}
+
+	/**
+	 * Converts the indices of cards in the hand of a player kept in the order
+	 * in which the cards were dealt, as by a client speaking the legacy
+	 * protocol, into indices in the hand of the player, which is kept in Big
+	 * Two order.
+	 *
+	 * @param playerID
+	 *            the playerID of the player
+	 * @param dealIdx
+	 *            the indices of the cards in the order of the deal, or null
+	 * @return the indices of the cards in the hand of the player, -1 for an
+	 *         invalid index, or null
+	 */
+	public int[] fromDealOrder(int playerID, int[] dealIdx) {
+		if (dealIdx == null) {
+			return null;
+		}
+		int[] dealt = getCardsInDealOrder(playerID);
+		long mask = playerList.get(playerID).getCardSet().getMask();
+		int[] cardIdx = new int[dealIdx.length];
+		for (int i = 0; i < dealIdx.length; i++) {
+			cardIdx[i] = dealIdx[i] >= 0 && dealIdx[i] < dealt.length ? CardSet
+					.positionOf(mask, dealt[dealIdx[i]]) : -1;
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * Converts the indices of cards in the hand of a player, which is kept in
+	 * Big Two order, into indices in the hand kept in the order in which the
+	 * cards were dealt, as by a client speaking the legacy protocol.
+	 *
+	 * @param playerID
+	 *            the playerID of the player
+	 * @param cardIdx
+	 *            the indices of the cards in the hand of the player, or null
+	 * @return the indices of the cards in the order of the deal, -1 for an
+	 *         invalid index, or null
+	 */
+	public int[] toDealOrder(int playerID, int[] cardIdx) {
+		if (cardIdx == null) {
+			return null;
+		}
+		int[] dealt = getCardsInDealOrder(playerID);
+		long mask = playerList.get(playerID).getCardSet().getMask();
+		int[] dealIdx = new int[cardIdx.length];
+		for (int i = 0; i < cardIdx.length; i++) {
+			int index = CardSet.indexAt(mask, cardIdx[i]);
+			dealIdx[i] = -1;
+			for (int j = 0; j < dealt.length; j++) {
+				if (dealt[j] == index) {
+					dealIdx[i] = j;
+				}
+			}
+		}
+		return dealIdx;
+	}
+
+	/**
+	 * Returns the indices (in Big Two order) of the cards still held by the
+	 * player, in the order in which they were dealt.
+	 */
+	private int[] getCardsInDealOrder(int playerID) {
+		CardSet cardsInHand = playerList.get(playerID).getCardSet();
+		int[] dealt = new int[cardsInHand.size()];
+		int n = 0;
+		for (int i = playerID; i < deck.size() && n < dealt.length; i += numOfPlayers) {
+			if (cardsInHand.contains(deck.getCard(i))) {
+				dealt[n++] = CardSet.indexOf(deck.getCard(i));
+			}
+		}
+		return dealt;
+	}
+
+	// implementation of method from the com.bigtwo.CardGame interface
+	public boolean endOfGame() {
+		return state.isGameOver();
+	}
+
+	/**
+	 * Returns a valid hand from the specified list of cards of the player.
+	 * Returns null if no valid hand can be composed from the specified cards.
+	 * The type of the hand is found by the com.bigtwo.Hands.HandClassifier, so
+	 * only the returned hand is created.
+	 *
+	 * @param player
+	 *            the player who plays the hand
+	 * @param cards
+	 *            the list of cards selected by the player
+	 * @return a valid hand composed from the cards, or null
+	 */
+	public static Hand composeHand(CardGamePlayer player, CardList cards) {
+		long mask = CardSet.maskOf(cards);
+		if (Long.bitCount(mask) != cards.size()) {
+			// the same card has been selected more than once
+			return null;
+		}
+		return composeHand(player, mask);
+	}
+
+	/**
+	 * Returns a valid hand from the specified set of cards of the player.
+	 * Returns null if no valid hand can be composed from the specified cards.
+	 *
+	 * @param player
+	 *            the player who plays the hand
+	 * @param mask
+	 *            the bits of the set of cards selected by the player
+	 * @return a valid hand composed from the cards, or null
+	 */
+	public static Hand composeHand(CardGamePlayer player, long mask) {
+		int type = HandClassifier.getType(HandClassifier.classify(mask));
+		if (type == HandClassifier.INVALID) {
+			return null;
+		}
+		// the cards of a hand are kept in Big Two order
+		CardList cards = CardSet.toCardList(mask);
+		switch (type) {
+		case HandClassifier.SINGLE:
+			return new Single(player, cards);
+		case HandClassifier.PAIR:
+			return new Pair(player, cards);
+		case HandClassifier.TRIPLE:
+			return new Triple(player, cards);
+		case HandClassifier.STRAIGHT:
+			return new Straight(player, cards);
+		case HandClassifier.FLUSH:
+			return new Flush(player, cards);
+		case HandClassifier.FULL_HOUSE:
+			return new FullHouse(player, cards);
+		case HandClassifier.QUAD:
+			return new Quad(player, cards);
+		default:
+			return new StraightFlush(player, cards);
+		}
+	}
+}
@@ -1,16 +1,97 @@
 package com.bigtwo;
 
+import com.bigtwo.Bots.HeuristicStrategy;
+import com.bigtwo.Bots.Simulator;
+import com.bigtwo.Bots.Strategy;
+import com.bigtwo.Hands.MoveGenerator;
+import com.bigtwo.History.EventLog;
+import com.bigtwo.History.EventLogReader;
+import com.bigtwo.History.GameArchive;
+import com.bigtwo.History.GameEvent;
+import com.bigtwo.History.GameRecord;
+import com.bigtwo.History.SnapshotStore;
+import com.bigtwo.History.TableSnapshot;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * This class is used to model a Big Two card game server.
  * @author Kenneth Wong
  *
  */
 public class BigTwoServer extends CardGameServer {
+	/**
+	 * The default maximum number of tables hosted by a Big Two server.
+	 */
+	public static final int DEFAULT_MAX_NUM_OF_TABLES = 256;
+
+	/**
+	 * The default interval between two rounds of snapshots of the tables, in
+	 * milliseconds.
+	 */
+	public static final long DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+	/**
+	 * The default time for which the seats of a restored game are kept for
+	 * their players, in milliseconds.
+	 */
+	public static final long DEFAULT_RESERVATION_TIMEOUT = 60000;
+
+	// the strategy of the bots filling the seats of players who left in the
+	// middle of a game, or null if such games are abandoned
+	private volatile Strategy seatFiller = new HeuristicStrategy();
+	// the threads choosing the moves of the bots of all the tables
+	private final ExecutorService botExecutor = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Bot");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	// the store to which the snapshots of the tables are written, or null
+	private volatile SnapshotStore snapshotStore = null;
+	// the time for which the seats of a restored game are kept, in milliseconds
+	private volatile long reservationTimeout = DEFAULT_RESERVATION_TIMEOUT;
+
 	/**
 	 * Creates and returns an instance of the com.bigtwo.BigTwoServer class.
 	 */
 	public BigTwoServer() {
-		super("Big Two Server", 4);
+		this(0);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoServer class.
+	 *
+	 * @param numOfEventLoops
+	 *            the number of event loop threads serving the clients through
+	 *            non-blocking channels, or 0 to serve each client by a thread
+	 *            of its own
+	 */
+	public BigTwoServer(int numOfEventLoops) {
+		this(numOfEventLoops, DEFAULT_MAX_NUM_OF_TABLES);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoServer class.
+	 *
+	 * @param numOfEventLoops
+	 *            the number of event loop threads serving the clients through
+	 *            non-blocking channels, or 0 to serve each client by a thread
+	 *            of its own
+	 * @param maxNumOfTables
+	 *            the maximum number of 4-seat tables hosted by the server
+	 */
+	public BigTwoServer(int numOfEventLoops, int maxNumOfTables) {
+		super("Big Two Server", 4, numOfEventLoops, maxNumOfTables);
 	}
 
 	/**
@@ -21,15 +102,758 @@ public class BigTwoServer extends CardGameServer {
 		return new BigTwoDeck();
 	}
 
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoEngine class,
+	 * which validates the moves made at a table.
+	 * @return an instance of the com.bigtwo.BigTwoEngine class
+	 */
+	public CardGame createGame() {
+		return new BigTwoEngine(4);
+	}
+
+	/**
+	 * Sets the strategy of the bots which take the seats of players leaving in
+	 * the middle of a game.
+	 *
+	 * @param seatFiller
+	 *            the strategy of the bots, or null to abandon the game when a
+	 *            player leaves
+	 */
+	public void setSeatFiller(Strategy seatFiller) {
+		this.seatFiller = seatFiller;
+	}
+
+	/**
+	 * Seats a bot playing the strategy of the seat filler in place of a player
+	 * who has left in the middle of a game. The seat is not filled if no
+	 * player is left at the table, or if a client speaking the legacy
+	 * protocol, which abandons the game on any QUIT message, is seated there;
+	 * the game is then abandoned and the bots already seated leave the table.
+	 *
+	 * @param table
+	 *            the table which the player has left
+	 * @param i
+	 *            the seat of the player who has left
+	 * @param name
+	 *            the name of the player who has left
+	 * @return true if a bot has taken the seat
+	 */
+	boolean fillSeat(ServerTable table, int i, String name) {
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		if (engine == null || engine.endOfGame()) {
+			return false;
+		}
+		boolean canFill = seatFiller != null && table.getNumOfPlayers() > 0;
+		for (int j = 0; j < table.getMaxNumOfPlayers(); j++) {
+			ClientConnection connection = table.getConnection(j);
+			if (connection != null && connection.isLegacy()) {
+				canFill = false;
+			}
+		}
+		if (!canFill) {
+			unseatBots(table);
+			endRestoredGame(table);
+			return false;
+		}
+
+		String botName = (name == null ? "Player " + i : name) + " (bot)";
+		table.seatBot(i, botName);
+		logEvent(table, GameEvent.JOIN, i, 0L, botName);
+		println(botName + " takes the seat of " + name + " at " + table + ".");
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.JOIN, i,
+				botName));
+		playBots(table);
+		return true;
+	}
+
+	/**
+	 * Has the move of the bot for the current turn at the specified table
+	 * chosen by one of the threads shared by the bots of all the tables, if a
+	 * bot is to move, or lets the bots leave the
+	 * table if the game is over or the seat filler has been removed. The
+	 * caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table at which a move has been played
+	 */
+	private void playBots(ServerTable table) {
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		Strategy strategy = seatFiller;
+		if (engine.endOfGame() || strategy == null) {
+			unseatBots(table);
+			if (engine.endOfGame()) {
+				endRestoredGame(table);
+			}
+		} else if (table.isBot(engine.getCurrentIdx())) {
+			botExecutor.execute(new BotHandler(table, engine, strategy));
+		}
+	}
+
+	/**
+	 * Lets all the bots leave the specified table, broadcasting a QUIT message
+	 * for each of them. The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table to be left by the bots
+	 */
+	private void unseatBots(ServerTable table) {
+		for (int j = 0; j < table.getMaxNumOfPlayers(); j++) {
+			if (table.isBot(j)) {
+				String botName = table.getClientName(j);
+				table.unseatBot(j);
+				logEvent(table, GameEvent.QUIT, j, 0L, botName);
+				println(botName + " leaves " + table + ".");
+				broadcastMessage(table, new CardGameMessage(
+						CardGameMessage.QUIT, j, botName));
+			}
+		}
+	}
+
+	/**
+	 * Stops keeping the seats of the specified table once its restored game
+	 * has ended or has been abandoned, so that a new game can start there. The
+	 * caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table
+	 */
+	private void endRestoredGame(ServerTable table) {
+		if (table.isRestored()) {
+			table.clearReservations();
+			table.resetReadyStates();
+			println("The restored game ends at " + table + ".");
+		}
+	}
+
+	/**
+	 * Resumes the restored game at the specified table for a player seated
+	 * back there. The player is dealt their hand of the game again and is sent
+	 * every move played so far, as if they had followed the game. Bots then
+	 * take the seats still kept for the players who have not come back, so
+	 * the game goes on. The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the restored table
+	 * @param i
+	 *            the seat of the player
+	 */
+	void resumeGame(ServerTable table, int i) {
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		if (!table.isRestored() || engine == null || engine.endOfGame()) {
+			return;
+		}
+		BigTwoState state = engine.getState();
+		int n = state.getNumOfPlayers();
+		long hand = state.getHand(i);
+		for (int k = (i - state.getFirstIdx() + n) % n; k < state
+				.getNumOfMoves(); k += n) {
+			hand |= state.getMove(k);
+		}
+		CardGameMessage dealMessage = new CardGameMessage(CardGameMessage.DEAL,
+				state.getFirstIdx(), CardSet.toCardList(hand));
+		sendMessage(table, i, dealMessage, dealMessage);
+		for (int k = 0; k < state.getNumOfMoves(); k++) {
+			long move = state.getMove(k);
+			CardGameMessage playedMessage = new CardGameMessage(
+					CardGameMessage.PLAYED, (state.getFirstIdx() + k) % n,
+					move == 0 ? null : CardSet.toCardList(move));
+			sendMessage(table, i, playedMessage, playedMessage);
+		}
+
+		if (seatFiller != null) {
+			for (int j = 0; j < n; j++) {
+				if (table.getConnection(j) == null && !table.isBot(j)) {
+					fillSeat(table, j, table.getReservedName(j));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plays the move made by the specified player if it is legal. An accepted
+	 * move is broadcast to all clients as the cards played; an illegal move is
+	 * sent back to the player only. Clients speaking the legacy protocol
+	 * receive the MOVE message instead, and check it by themselves. As they
+	 * keep their cards in the order of the deal rather than in Big Two order,
+	 * the indices of the cards are converted to and from that order for them.
+	 *
+	 * @param table
+	 *            the table of the player who makes the move
+	 * @param i
+	 *            the seat of the player who makes the move
+	 * @param message
+	 *            the MOVE message received from the player
+	 */
+	void playMove(ServerTable table, int i, CardGameMessage message) {
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		int[] cardIdx = (int[]) message.getData();
+		if (engine != null && table.getConnection(i).isLegacy()) {
+			cardIdx = engine.fromDealOrder(i, cardIdx);
+		}
+		if (engine == null || !engine.isLegalMove(i, cardIdx)) {
+			println("Rejects an illegal move from "
+					+ table.getConnection(i).getRemoteSocketAddress() + " at "
+					+ table);
+			sendMessage(table, i, new CardGameMessage(CardGameMessage.ILLEGAL,
+					i, cardIdx), message);
+			return;
+		}
+
+		CardGameMessage legacyMessage = new CardGameMessage(
+				CardGameMessage.MOVE, i, engine.toDealOrder(i, cardIdx));
+		CardList cards = engine.playMove(i, cardIdx);
+		logEvent(table, GameEvent.MOVE, i,
+				cards == null ? 0L : CardSet.maskOf(cards), null);
+		println("Broadcasts a \"PLAYED\" message from "
+				+ table.getConnection(i).getRemoteSocketAddress() + " at "
+				+ table);
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.PLAYED, i,
+				cards), legacyMessage);
+		playBots(table);
+	}
+
+	/**
+	 * Sets the time for which the seats of the restored games are kept for
+	 * their players, counted from the restore. Must be set before the tables
+	 * are restored.
+	 *
+	 * @param reservationTimeout
+	 *            the time in milliseconds
+	 */
+	public void setReservationTimeout(long reservationTimeout) {
+		this.reservationTimeout = reservationTimeout;
+	}
+
+	/**
+	 * Stops keeping the seats of the restored games for the players who have
+	 * not come back. Bots take those seats at a table where a player has come
+	 * back, and the game goes on; a game to which no player has come back is
+	 * abandoned, and its table is free for new players.
+	 */
+	void expireReservations() {
+		for (ServerTable table : getTables()) {
+			synchronized (table) {
+				if (!table.isRestored()) {
+					continue;
+				}
+				BigTwoEngine engine = (BigTwoEngine) table.getGame();
+				if (engine != null && !engine.endOfGame()
+						&& table.getNumOfPlayers() > 0 && seatFiller != null) {
+					for (int j = 0; j < table.getMaxNumOfPlayers(); j++) {
+						if (table.getConnection(j) == null && !table.isBot(j)) {
+							fillSeat(table, j, table.getReservedName(j));
+						}
+					}
+				}
+				if (table.isRestored() && table.getNumOfPlayers() == 0) {
+					println("Nobody has come back to the restored game at "
+							+ table + ".");
+					table.setGame(null);
+					table.markChanged(0L);
+					endRestoredGame(table);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the store to which the snapshots of the tables are written, and
+	 * starts a thread writing a round of snapshots at the specified interval.
+	 * Only the tables at which something has happened since the last round
+	 * are written again.
+	 *
+	 * @param snapshotStore
+	 *            the store of the snapshots
+	 * @param interval
+	 *            the interval between two rounds, in milliseconds
+	 */
+	public void setSnapshotStore(SnapshotStore snapshotStore, long interval) {
+		this.snapshotStore = snapshotStore;
+		Thread t = new Thread(new SnapshotWriter(snapshotStore, interval));
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Returns the store to which the snapshots of the tables are written.
+	 *
+	 * @return the store of the snapshots, or null if none
+	 */
+	public SnapshotStore getSnapshotStore() {
+		return snapshotStore;
+	}
+
+	/**
+	 * Writes a round of snapshots to the specified store: the snapshot of
+	 * every table changed since the last round, followed by the sequence
+	 * number of the event log when the round started. Each table is only
+	 * locked while its snapshot is taken, not while it is written.
+	 *
+	 * @param store
+	 *            the store of the snapshots
+	 * @throws IOException
+	 *             if a snapshot cannot be written
+	 */
+	public void writeSnapshots(SnapshotStore store) throws IOException {
+		synchronized (store) {
+			EventLog log = getEventLog();
+			long sequence = log == null ? 0L : log.getLastSequence();
+			ArrayList<ServerTable> tables = getTables();
+			ArrayList<TableSnapshot> snapshots = new ArrayList<TableSnapshot>();
+			long lastSequence = sequence;
+			for (ServerTable table : tables) {
+				synchronized (table) {
+					if (table.takeChanged()) {
+						snapshots.add(takeSnapshot(table));
+						lastSequence = Math.max(lastSequence, table
+								.getLastSequence());
+					}
+				}
+			}
+			try {
+				// a round never covers an event lost by the log in a crash
+				if (log != null && lastSequence > 0) {
+					log.awaitDurable(lastSequence);
+				}
+				for (TableSnapshot snapshot : snapshots) {
+					store.write(snapshot);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				markChanged(tables, snapshots);
+				throw new InterruptedIOException("Snapshots interrupted");
+			} catch (IOException ex) {
+				markChanged(tables, snapshots);
+				throw ex;
+			}
+			store.writeRound(sequence);
+		}
+	}
+
+	/**
+	 * Marks the tables of the snapshots which could not be written as changed,
+	 * so that the next round writes them again.
+	 */
+	private static void markChanged(ArrayList<ServerTable> tables,
+			ArrayList<TableSnapshot> snapshots) {
+		for (TableSnapshot snapshot : snapshots) {
+			ServerTable table = tables.get(snapshot.getTableID());
+			synchronized (table) {
+				table.markChanged(0L);
+			}
+		}
+	}
+
+	/**
+	 * Takes the snapshot of the specified table. The game in progress is
+	 * recorded by its seed and its moves. The caller must hold the lock of
+	 * the table.
+	 *
+	 * @param table
+	 *            the table
+	 * @return the snapshot of the table
+	 */
+	private TableSnapshot takeSnapshot(ServerTable table) {
+		int n = table.getMaxNumOfPlayers();
+		String[] names = new String[n];
+		long[] tokens = new long[n];
+		boolean[] ready = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			// a bot only keeps the seat until its player comes back
+			if (table.getConnection(i) != null) {
+				names[i] = table.getClientName(i);
+				tokens[i] = table.getResumeToken(i);
+			} else {
+				names[i] = table.getReservedName(i);
+				tokens[i] = table.getReservedToken(i);
+			}
+			ready[i] = table.isReady(i);
+		}
+		GameRecord game = null;
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		if (engine != null && !engine.endOfGame()) {
+			BigTwoState state = engine.getState();
+			game = new GameRecord(table.getGameID(), table.getTableID(), table
+					.getGameTime(), names, table.getSeed());
+			for (int k = 0; k < state.getNumOfMoves(); k++) {
+				game.addMove((state.getFirstIdx() + k) % n, state.getMove(k));
+			}
+		}
+		return new TableSnapshot(table.getTableID(), table.getLastSequence(),
+				names, tokens, ready, game);
+	}
+
+	/**
+	 * Restores the tables of the server from the specified store of snapshots
+	 * and the events logged after the last round of snapshots, before the
+	 * server is started. The event log, if any, must be set first. Every
+	 * table at which a game was in progress keeps the seats of its players,
+	 * who are seated back when they present their resume tokens again, and
+	 * the game is resumed. The seats are kept for the reservation timeout;
+	 * see expireReservations().
+	 *
+	 * @param store
+	 *            the store of the snapshots
+	 * @return the number of games restored
+	 * @throws IOException
+	 *             if the snapshots or the event log cannot be read
+	 */
+	public int restore(SnapshotStore store) throws IOException {
+		long start = System.nanoTime();
+		long round = store.readRound();
+		for (TableSnapshot snapshot : store.readAll()) {
+			ServerTable table = openTable(snapshot.getTableID());
+			if (table == null) {
+				continue;
+			}
+			synchronized (table) {
+				for (int i = 0; i < snapshot.getNumOfSeats(); i++) {
+					table.reserve(i, snapshot.getName(i), snapshot
+							.getToken(i));
+					if (snapshot.isReady(i)) {
+						table.setReady(i);
+					}
+				}
+				GameRecord game = snapshot.getGame();
+				if (game != null) {
+					restoreDeal(table, game.getGameID(), game.getTime(), game
+							.getSeed());
+					for (int k = 0; k < game.getNumOfMoves(); k++) {
+						restoreMove(table, game.getSeat(k), game.getMove(k));
+					}
+				}
+				table.markChanged(snapshot.getSequence());
+			}
+		}
+
+		// replays the events which the snapshots may have missed
+		int numOfEvents = 0;
+		EventLog log = getEventLog();
+		if (log != null) {
+			EventLogReader reader = new EventLogReader(log.getDirectory(),
+					round + 1);
+			try {
+				GameEvent event;
+				while ((event = reader.next()) != null) {
+					ServerTable table = openTable(event.getTableID());
+					if (table == null) {
+						continue;
+					}
+					synchronized (table) {
+						if (event.getSequence() > table.getLastSequence()) {
+							restoreEvent(table, event);
+							table.markChanged(event.getSequence());
+							numOfEvents++;
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+
+		int numOfGames = 0;
+		boolean archived = getGameArchive() != null;
+		for (ServerTable table : getTables()) {
+			synchronized (table) {
+				BigTwoEngine engine = (BigTwoEngine) table.getGame();
+				if (engine == null || engine.endOfGame()) {
+					table.clearReservations();
+					continue;
+				}
+				if (archived) {
+					archiveRestoredGame(table);
+				}
+				for (int i = 0; i < table.getMaxNumOfPlayers(); i++) {
+					if (table.getReservedName(i) == null) {
+						table.reserve(i, "Player " + i, 0L);
+					}
+				}
+				table.setRestored(true);
+				numOfGames++;
+			}
+		}
+		if (numOfGames > 0) {
+			setTablesRestored();
+			Thread t = new Thread(new ReservationTimer(reservationTimeout));
+			t.setDaemon(true);
+			t.start();
+		}
+		println("Restores " + numOfGames + " games from the snapshots and "
+				+ numOfEvents + " events in "
+				+ (System.nanoTime() - start) / 1000000 + " ms.");
+		return numOfGames;
+	}
+
+	/**
+	 * Applies an event logged after the snapshot of the specified table. The
+	 * caller must hold the lock of the table.
+	 */
+	private void restoreEvent(ServerTable table, GameEvent event) {
+		int i = event.getSeat();
+		switch (event.getType()) {
+		case GameEvent.JOIN:
+			// a bot only keeps the seat until its player comes back
+			if (event.getValue() != 0L) {
+				table.reserve(i, event.getText(), event.getValue());
+			}
+			break;
+		case GameEvent.READY:
+			table.setReady(i);
+			break;
+		case GameEvent.DEAL:
+			table.resetReadyStates();
+			restoreDeal(table, event.getSequence(), event.getTime(), event
+					.getValue());
+			break;
+		case GameEvent.MOVE:
+			restoreMove(table, i, event.getValue());
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Deals the deck of the specified seed again at the specified table. The
+	 * caller must hold the lock of the table.
+	 */
+	private void restoreDeal(ServerTable table, long gameID, long time,
+			long seed) {
+		Deck deck = createDeck(seed);
+		CardGame game = createGame();
+		game.start(deck);
+		table.setSeed(seed);
+		table.setDeck(deck);
+		table.setGame(game);
+		table.setGameStart(gameID, time);
+	}
+
+	/**
+	 * Plays a move of the game at the specified table again, if it is legal.
+	 * The caller must hold the lock of the table.
+	 */
+	private void restoreMove(ServerTable table, int i, long move) {
+		BigTwoEngine engine = (BigTwoEngine) table.getGame();
+		if (engine != null && !engine.endOfGame()
+				&& engine.getCurrentIdx() == i
+				&& engine.getState().isLegal(move)) {
+			engine.apply(move);
+		}
+	}
+
+	/**
+	 * Passes the restored game at the specified table on to the game archive,
+	 * whose games in progress have been lost, so that it is archived when it
+	 * ends. The caller must hold the lock of the table.
+	 */
+	private void archiveRestoredGame(ServerTable table) {
+		int tableID = table.getTableID();
+		long time = table.getGameTime();
+		for (int i = 0; i < table.getMaxNumOfPlayers(); i++) {
+			archiveEvent(new GameEvent(0L, time, GameEvent.JOIN, tableID, i,
+					0L, table.getReservedName(i)));
+		}
+		archiveEvent(new GameEvent(table.getGameID(), time, GameEvent.DEAL,
+				tableID, -1, table.getSeed(), null));
+		BigTwoState state = ((BigTwoEngine) table.getGame()).getState();
+		for (int k = 0; k < state.getNumOfMoves(); k++) {
+			archiveEvent(new GameEvent(0L, time, GameEvent.MOVE, tableID,
+					(state.getFirstIdx() + k) % state.getNumOfPlayers(),
+					state.getMove(k), null));
+		}
+	}
+
+	/**
+	 * This inner class is used to write a round of snapshots of the tables at
+	 * a regular interval, until another store is set.
+	 */
+	private class SnapshotWriter implements Runnable {
+		private final SnapshotStore store; // the store of the snapshots
+		private final long interval; // the interval between two rounds
+
+		/**
+		 * Creates and returns an instance of the SnapshotWriter class.
+		 *
+		 * @param store
+		 *            the store of the snapshots
+		 * @param interval
+		 *            the interval between two rounds, in milliseconds
+		 */
+		public SnapshotWriter(SnapshotStore store, long interval) {
+			this.store = store;
+			this.interval = interval;
+		} // constructor
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			while (snapshotStore == store) {
+				try {
+					Thread.sleep(interval);
+					writeSnapshots(store);
+				} catch (InterruptedException ex) {
+					return;
+				} catch (IOException ex) {
+					println("Cannot write the snapshots: " + ex);
+				}
+			}
+		} // run
+	} // SnapshotWriter
+
+	/**
+	 * This inner class is used to stop keeping the seats of the restored games
+	 * once their players have had the time to come back.
+	 */
+	private class ReservationTimer implements Runnable {
+		private final long timeout; // the time for which the seats are kept
+
+		/**
+		 * Creates and returns an instance of the ReservationTimer class.
+		 *
+		 * @param timeout
+		 *            the time for which the seats are kept, in milliseconds
+		 */
+		public ReservationTimer(long timeout) {
+			this.timeout = timeout;
+		} // constructor
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			try {
+				Thread.sleep(timeout);
+			} catch (InterruptedException ex) {
+				return;
+			}
+			expireReservations();
+		} // run
+	} // ReservationTimer
+
+	/**
+	 * This inner class is used to choose and play the move of a bot, without
+	 * holding the lock of the table while the bot thinks. The move is dropped
+	 * if the game has moved on in the meantime.
+	 */
+	private class BotHandler implements Runnable {
+		private final ServerTable table; // the table of the bot
+		private final BigTwoEngine engine; // the game played by the bot
+		private final Strategy strategy; // the strategy of the bot
+		private final int seat; // the seat of the bot
+		private final int numOfMoves; // the number of moves before the move of the bot
+		private final BigTwoState state; // a copy of the state of the game
+		private final long seed; // the seed of the generator of the bot
+
+		/**
+		 * Creates and returns an instance of the BotHandler class. The caller
+		 * must hold the lock of the table.
+		 *
+		 * @param table
+		 *            the table of the bot
+		 * @param engine
+		 *            the game played by the bot
+		 * @param strategy
+		 *            the strategy of the bot
+		 */
+		public BotHandler(ServerTable table, BigTwoEngine engine,
+				Strategy strategy) {
+			this.table = table;
+			this.engine = engine;
+			this.strategy = strategy;
+			seat = engine.getCurrentIdx();
+			state = new BigTwoState(engine.getState());
+			numOfMoves = state.getNumOfMoves();
+			seed = table.getSeed() + numOfMoves;
+		} // constructor
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			long move = strategy.chooseMove(state,
+					new long[MoveGenerator.MAX_NUM_OF_MOVES],
+					new SplittableRandom(seed));
+
+			synchronized (table) {
+				if (table.getGame() != engine || !table.isBot(seat)
+						|| engine.getState().getNumOfMoves() != numOfMoves
+						|| !engine.getState().isLegal(move)) {
+					return;
+				}
+				engine.apply(move);
+				logEvent(table, GameEvent.MOVE, seat, move, null);
+				println("Broadcasts a \"PLAYED\" message from "
+						+ table.getClientName(seat) + " at " + table);
+				broadcastMessage(table, new CardGameMessage(
+						CardGameMessage.PLAYED, seat, move == 0 ? null
+								: CardSet.toCardList(move)));
+				playBots(table);
+			}
+		} // run
+	} // BotHandler
+
 	/**
 	 * main() method for starting the server.
 	 *
 	 * @param args
-	 *            the port to be used by the server. The default port 5000 will
-	 *            be used if no arguments has been supplied
+	 *            the port to be used by the server, optionally followed by the
+	 *            number of event loops for the non-blocking mode, the maximum
+	 *            number of tables, the strategy of the bots filling the seats
+	 *            of players who leave ("none" for no bots), the directory of
+	 *            the event log, the directory of the game archive, and the
+	 *            directory of the snapshots of the tables, from which the
+	 *            tables are restored. The default port 2396, a thread per
+	 *            client, up to 256 tables, heuristic bots, and no event log,
+	 *            archive nor snapshots will be used if no arguments has been
+	 *            supplied
 	 */
 	public static void main(String[] args) {
-		BigTwoServer server = new BigTwoServer();
+		final BigTwoServer server;
+		if (args.length > 3) {
+			server = new BigTwoServer(Integer.parseInt(args[1]),
+					Integer.parseInt(args[2]));
+			server.setSeatFiller(args[3].equals("none") ? null : Simulator
+					.createStrategy(args[3]));
+		} else if (args.length > 2) {
+			server = new BigTwoServer(Integer.parseInt(args[1]),
+					Integer.parseInt(args[2]));
+		} else if (args.length > 1) {
+			server = new BigTwoServer(Integer.parseInt(args[1]));
+		} else {
+			server = new BigTwoServer();
+		}
+		try {
+			if (args.length > 4) {
+				server.setEventLog(new EventLog(Paths.get(args[4])));
+			}
+			if (args.length > 5) {
+				server.setGameArchive(new GameArchive(Paths.get(args[5])));
+			}
+			if (args.length > 6) {
+				SnapshotStore store = new SnapshotStore(Paths.get(args[6]));
+				server.restore(store);
+				server.setSnapshotStore(store, DEFAULT_SNAPSHOT_INTERVAL);
+			}
+		} catch (IOException ex) {
+			System.out.println("Cannot open the history: " + ex);
+		}
+		// writes the snapshots, the events and the games still in memory when
+		// the server exits
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				try {
+					if (server.getSnapshotStore() != null) {
+						server.writeSnapshots(server.getSnapshotStore());
+					}
+					if (server.getEventLog() != null) {
+						server.getEventLog().close();
+					}
+					GameArchive archive = server.getGameArchive();
+					if (archive != null) {
+						server.setGameArchive(null);
+						archive.close();
+					}
+				} catch (IOException ex) {
+					ex.printStackTrace();
+				}
+			}
+		});
 		if (args.length > 0) {
 			server.start(Integer.parseInt(args[0]));
 		} else {
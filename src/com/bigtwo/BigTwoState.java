@@ -0,0 +1,422 @@
+package com.bigtwo;
+
+import com.bigtwo.Hands.MoveGenerator;
+
+/**
+ * This class is used to model the state of a Big Two game in a compact form:
+ * the cards of each player as the bits of a com.bigtwo.CardSet, the number of
+ * cards of each player, the player for the current turn and the moves played
+ * so far. A move is the set of cards played, or 0 for a pass. Moves are
+ * applied and undone with a few bit operations and without creating any
+ * object, so a state can be searched and simulated at millions of moves per
+ * second.
+ * <p>
+ * The cards of a player may be unknown, as for the opponents of a client which
+ * has only been dealt its own hand. Only the number of cards is then kept, and
+ * the moves of that player are applied without being checked.
+ *
+ * @author Anmol Gupta
+ */
+public final class BigTwoState {
+	// the bit of the 3 of Diamonds, which must be played in the first move
+	private static final long THREE_OF_DIAMONDS = 1L;
+
+	private final int numOfPlayers; // the number of players
+	private final long[] hands; // the cards held by each player
+	private final int[] numOfCards; // the number of cards held by each player
+	private int unknownPlayers = 0; // the bits of the players whose cards are unknown
+	private final long[] moves; // the moves played so far
+	private int numOfMoves = 0; // the number of moves played so far
+	private int firstIdx = -1; // the index of the player who made the first move
+	private int currentIdx = -1; // the index of the player for the current turn
+	private int lastPlayer = -1; // the index of the player of the last hand, or -1
+	private long lastMask = 0L; // the cards of the last hand on the table
+	private long lastKey = MoveGenerator.FREE_LEAD; // the strength key of the last hand
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoState class, in
+	 * which no game has started.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players
+	 */
+	public BigTwoState(int numOfPlayers) {
+		this.numOfPlayers = numOfPlayers;
+		hands = new long[numOfPlayers];
+		numOfCards = new int[numOfPlayers];
+		// every player but one passes after each hand, and the last player
+		// must then play at least one card
+		moves = new long[CardSet.NUM_OF_CARDS * numOfPlayers];
+	}
+
+	/**
+	 * Creates and returns a copy of the specified state, which can be changed
+	 * without changing the original.
+	 *
+	 * @param state
+	 *            the state to be copied
+	 */
+	public BigTwoState(BigTwoState state) {
+		numOfPlayers = state.numOfPlayers;
+		hands = state.hands.clone();
+		numOfCards = state.numOfCards.clone();
+		unknownPlayers = state.unknownPlayers;
+		moves = state.moves.clone();
+		numOfMoves = state.numOfMoves;
+		firstIdx = state.firstIdx;
+		currentIdx = state.currentIdx;
+		lastPlayer = state.lastPlayer;
+		lastMask = state.lastMask;
+		lastKey = state.lastKey;
+	}
+
+	/**
+	 * Makes this state a copy of the specified state, without creating any
+	 * object.
+	 *
+	 * @param state
+	 *            the state to be copied, with the same number of players
+	 */
+	public void copyFrom(BigTwoState state) {
+		System.arraycopy(state.hands, 0, hands, 0, numOfPlayers);
+		System.arraycopy(state.numOfCards, 0, numOfCards, 0, numOfPlayers);
+		unknownPlayers = state.unknownPlayers;
+		System.arraycopy(state.moves, 0, moves, 0, state.numOfMoves);
+		numOfMoves = state.numOfMoves;
+		firstIdx = state.firstIdx;
+		currentIdx = state.currentIdx;
+		lastPlayer = state.lastPlayer;
+		lastMask = state.lastMask;
+		lastKey = state.lastKey;
+	}
+
+	/**
+	 * Starts a new game in which the cards of every player are known. The
+	 * player holding the 3 of Diamonds makes the first move.
+	 *
+	 * @param hands
+	 *            the bits of the cards dealt to each player
+	 */
+	public void start(long[] hands) {
+		int first = -1;
+		for (int i = 0; i < numOfPlayers; i++) {
+			if ((hands[i] & THREE_OF_DIAMONDS) != 0) {
+				first = i;
+			}
+		}
+		start(hands, null, first);
+	}
+
+	/**
+	 * Starts a new game in which the cards of some players may be unknown.
+	 *
+	 * @param hands
+	 *            the bits of the cards dealt to each player, 0 for a player
+	 *            whose cards are unknown
+	 * @param numOfCards
+	 *            the number of cards dealt to each player, or null if it is
+	 *            given by the hands
+	 * @param firstIdx
+	 *            the index of the player who makes the first move
+	 */
+	public void start(long[] hands, int[] numOfCards, int firstIdx) {
+		unknownPlayers = 0;
+		for (int i = 0; i < numOfPlayers; i++) {
+			this.hands[i] = hands[i];
+			this.numOfCards[i] = numOfCards == null ? Long.bitCount(hands[i])
+					: numOfCards[i];
+			if (Long.bitCount(hands[i]) != this.numOfCards[i]) {
+				unknownPlayers |= 1 << i;
+			}
+		}
+		numOfMoves = 0;
+		this.firstIdx = firstIdx;
+		currentIdx = firstIdx;
+		lastPlayer = -1;
+		lastMask = 0L;
+		lastKey = MoveGenerator.FREE_LEAD;
+	}
+
+	/**
+	 * Returns the number of players.
+	 *
+	 * @return the number of players
+	 */
+	public int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	/**
+	 * Returns the cards held by the specified player.
+	 *
+	 * @param playerID
+	 *            the index of the player
+	 * @return the bits of the cards of the player, or 0 if they are unknown
+	 */
+	public long getHand(int playerID) {
+		return hands[playerID];
+	}
+
+	/**
+	 * Returns the number of cards held by the specified player.
+	 *
+	 * @param playerID
+	 *            the index of the player
+	 * @return the number of cards of the player
+	 */
+	public int getNumOfCards(int playerID) {
+		return numOfCards[playerID];
+	}
+
+	/**
+	 * Returns true if the cards of the specified player are known.
+	 *
+	 * @param playerID
+	 *            the index of the player
+	 * @return true if the cards of the player are known
+	 */
+	public boolean isKnown(int playerID) {
+		return (unknownPlayers & (1 << playerID)) == 0;
+	}
+
+	/**
+	 * Returns the index of the player for the current turn.
+	 *
+	 * @return the index of the current player, or -1 if no game has started
+	 */
+	public int getCurrentIdx() {
+		return currentIdx;
+	}
+
+	/**
+	 * Returns the index of the player who made the first move.
+	 *
+	 * @return the index of the first player
+	 */
+	public int getFirstIdx() {
+		return firstIdx;
+	}
+
+	/**
+	 * Returns the index of the player who played the last hand on the table.
+	 *
+	 * @return the index of the player, or -1 if no hand has been played
+	 */
+	public int getLastPlayer() {
+		return lastPlayer;
+	}
+
+	/**
+	 * Returns the cards of the last hand on the table.
+	 *
+	 * @return the bits of the cards of the last hand, or 0
+	 */
+	public long getLastMask() {
+		return lastMask;
+	}
+
+	/**
+	 * Returns the strength key of the last hand on the table.
+	 *
+	 * @return the strength key, or MoveGenerator.FREE_LEAD if no hand has been
+	 *         played
+	 */
+	public long getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * Returns the number of moves played so far, passes included.
+	 *
+	 * @return the number of moves
+	 */
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns the specified move played so far. The move with index i has been
+	 * made by player (getFirstIdx() + i) % getNumOfPlayers().
+	 *
+	 * @param i
+	 *            the index of the move
+	 * @return the bits of the cards played, or 0 for a pass
+	 */
+	public long getMove(int i) {
+		return moves[i];
+	}
+
+	/**
+	 * Returns the cards played so far by all the players.
+	 *
+	 * @return the bits of the cards of all the moves played so far
+	 */
+	public long getPlayedCards() {
+		long played = 0L;
+		for (int i = 0; i < numOfMoves; i++) {
+			played |= moves[i];
+		}
+		return played;
+	}
+
+	/**
+	 * Replaces the cards of every player by the specified ones, keeping the
+	 * moves played so far, as when the unknown cards are dealt at random to
+	 * search the rest of a game. Each player must be given as many cards as
+	 * the player holds, and the cards of every player are known afterwards.
+	 *
+	 * @param hands
+	 *            the bits of the cards of each player
+	 */
+	public void redeal(long[] hands) {
+		for (int i = 0; i < numOfPlayers; i++) {
+			this.hands[i] = hands[i];
+		}
+		unknownPlayers = 0;
+	}
+
+	/**
+	 * Returns true if the current player leads, which is when no card has been
+	 * played yet or when everybody else passed on the hand of the player.
+	 *
+	 * @return true if the current player may play any valid hand
+	 */
+	public boolean isFreeLead() {
+		return lastPlayer < 0 || lastPlayer == currentIdx;
+	}
+
+	/**
+	 * Returns true if the current player may pass.
+	 *
+	 * @return true if passing is a legal move
+	 */
+	public boolean canPass() {
+		return !isGameOver() && !isFreeLead();
+	}
+
+	/**
+	 * Returns true if the game is over, which is when a player has no cards
+	 * left, or when no game has started.
+	 *
+	 * @return true if the game is over
+	 */
+	public boolean isGameOver() {
+		if (currentIdx < 0) {
+			return true;
+		}
+		for (int i = 0; i < numOfPlayers; i++) {
+			if (numOfCards[i] == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the index of the player who has won the game.
+	 *
+	 * @return the index of the winner, or -1 if the game is not over
+	 */
+	public int getWinner() {
+		for (int i = 0; i < numOfPlayers; i++) {
+			if (currentIdx >= 0 && numOfCards[i] == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if the specified move is legal for the current player.
+	 *
+	 * @param move
+	 *            the bits of the cards played, or 0 for a pass
+	 * @return true if the move is legal
+	 */
+	public boolean isLegal(long move) {
+		if (isGameOver()) {
+			return false;
+		}
+		if (move == 0) {
+			return canPass();
+		}
+		if ((move & ~hands[currentIdx]) != 0) {
+			return false;
+		}
+		if (lastPlayer < 0 && (move & THREE_OF_DIAMONDS) == 0) {
+			return false;
+		}
+		long key = MoveGenerator.strengthKey(move);
+		if (key < 0) {
+			return false;
+		}
+		return isFreeLead()
+				|| (key >>> 16 == lastKey >>> 16 && key > lastKey);
+	}
+
+	/**
+	 * Writes the legal moves of the current player, other than passing, into
+	 * the specified array.
+	 *
+	 * @param moves
+	 *            the array into which the moves are written, with room for
+	 *            MoveGenerator.MAX_NUM_OF_MOVES moves
+	 * @return the number of moves written into the array
+	 */
+	public int getLegalMoves(long[] moves) {
+		if (isGameOver()) {
+			return 0;
+		}
+		return MoveGenerator.generate(hands[currentIdx],
+				isFreeLead() ? MoveGenerator.FREE_LEAD : lastKey,
+				lastPlayer < 0 ? THREE_OF_DIAMONDS : 0L, moves);
+	}
+
+	/**
+	 * Plays the specified move for the current player, and passes the turn to
+	 * the next player. The move is not checked.
+	 *
+	 * @param move
+	 *            the bits of the cards played, or 0 for a pass
+	 */
+	public void apply(long move) {
+		moves[numOfMoves++] = move;
+		if (move != 0) {
+			hands[currentIdx] &= ~move;
+			numOfCards[currentIdx] -= Long.bitCount(move);
+			lastPlayer = currentIdx;
+			lastMask = move;
+			lastKey = MoveGenerator.strengthKey(move);
+		}
+		currentIdx = (currentIdx + 1) % numOfPlayers;
+	}
+
+	/**
+	 * Undoes the last move, and gives the turn back to the player who made it.
+	 *
+	 * @return the bits of the cards of the move undone, or 0 for a pass
+	 */
+	public long undo() {
+		long move = moves[--numOfMoves];
+		currentIdx = (currentIdx + numOfPlayers - 1) % numOfPlayers;
+		if (move != 0) {
+			if (isKnown(currentIdx)) {
+				hands[currentIdx] |= move;
+			}
+			numOfCards[currentIdx] += Long.bitCount(move);
+
+			// the last hand is now the one before the move undone
+			lastPlayer = -1;
+			lastMask = 0L;
+			lastKey = MoveGenerator.FREE_LEAD;
+			for (int i = numOfMoves - 1; i >= 0 && lastPlayer < 0; i--) {
+				if (moves[i] != 0) {
+					lastPlayer = (firstIdx + i) % numOfPlayers;
+					lastMask = moves[i];
+					lastKey = MoveGenerator.strengthKey(moves[i]);
+				}
+			}
+		}
+		return move;
+	}
+}
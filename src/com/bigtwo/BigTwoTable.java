@@ -187,9 +187,10 @@ public class BigTwoTable implements CardGameTable {
             for (int j = 0; j < game.getPlayerList().get(this.playerIndex).getNumOfCards(); j++) {
                 int xPos = 90 + j * cardImages[0][0].getWidth(this) / 2;
                 int yPos = !selected[j] || this.playerIndex != game.getCurrentIdx() ? 10 : 0;
-                if (this.playerIndex == game.getPlayerID() || game.endOfGame()) {
-                    int cardSuit = game.getPlayerList().get(this.playerIndex).getCardsInHand().getCard(j).getSuit();
-                    int cardRank = game.getPlayerList().get(this.playerIndex).getCardsInHand().getCard(j).getRank();
+                CardSet cardsInHand = game.getPlayerList().get(this.playerIndex).getCardSet();
+                if (j < cardsInHand.size() && (this.playerIndex == game.getPlayerID() || game.endOfGame())) {
+                    int cardSuit = cardsInHand.getCard(j).getSuit();
+                    int cardRank = cardsInHand.getCard(j).getRank();
                     graphics.drawImage(cardImages[cardSuit][cardRank], xPos, yPos, this);
                 } else {
                     graphics.drawImage(cardBackImage, xPos, yPos, this);
@@ -342,6 +343,19 @@ public class BigTwoTable implements CardGameTable {
         }
     }
 
+    private class AutoPlayMenuItemListener implements ActionListener {
+
+        /**
+         * This function turns auto play on or off when the user checks or unchecks the auto play item in the menu.
+         *
+         * @param e The event object generated when the user clicks the auto play item.
+         */
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            game.setAutoPlay(((JCheckBoxMenuItem) e.getSource()).isSelected());
+        }
+    }
+
     private class QuitMenuItemListener implements ActionListener {
 
         /**
@@ -420,6 +434,10 @@ public class BigTwoTable implements CardGameTable {
         menuItem1.addActionListener(new ConnectMenuItemListener());
         menu.add(menuItem1);
 
+        JCheckBoxMenuItem autoPlayMenuItem = new JCheckBoxMenuItem("Auto Play");
+        autoPlayMenuItem.addActionListener(new AutoPlayMenuItemListener());
+        menu.add(autoPlayMenuItem);
+
         JMenuItem menuItem2 = new JMenuItem("Quit");
         menuItem2.addActionListener(new QuitMenuItemListener());
         menu.add(menuItem2);
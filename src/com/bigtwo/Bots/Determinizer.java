@@ -0,0 +1,81 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.CardSet;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to deal the cards which the player for the current turn
+ * has not seen, neither in its hand nor played on the table, at random to the
+ * other players, as many as each of them holds. Each deal is a possible
+ * state of the game as far as the player knows, in which the cards of every
+ * player are known and which can be searched with full information.
+ *
+ * @author Anmol Gupta
+ */
+final class Determinizer {
+	private final long[] fixedHands; // the cards known to be held by each player
+	private final int[] numOfUnseenCards; // the number of unseen cards held by each player
+	private final int[] unseen; // the indices of the cards not seen by the player
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.Determinizer
+	 * class, for the player for the current turn of the specified state.
+	 *
+	 * @param state
+	 *            the state of the game
+	 */
+	Determinizer(BigTwoState state) {
+		int numOfPlayers = state.getNumOfPlayers();
+		fixedHands = new long[numOfPlayers];
+		numOfUnseenCards = new int[numOfPlayers];
+
+		int me = state.getCurrentIdx();
+		long unseenCards = CardSet.ALL_CARDS & ~state.getHand(me)
+				& ~state.getPlayedCards();
+		for (int i = 0; i < numOfPlayers; i++) {
+			numOfUnseenCards[i] = i == me ? 0 : state.getNumOfCards(i);
+		}
+		fixedHands[me] = state.getHand(me);
+		// the first player is known to hold the 3 of Diamonds until it is
+		// played in the first move
+		int first = state.getFirstIdx();
+		if (state.getNumOfMoves() == 0 && first != me
+				&& (unseenCards & 1L) != 0) {
+			fixedHands[first] = 1L;
+			numOfUnseenCards[first]--;
+			unseenCards &= ~1L;
+		}
+		unseen = new int[Long.bitCount(unseenCards)];
+		int k = 0;
+		for (long cards = unseenCards; cards != 0; cards &= cards - 1) {
+			unseen[k++] = Long.numberOfTrailingZeros(cards);
+		}
+	}
+
+	/**
+	 * Deals the unseen cards at random.
+	 *
+	 * @param random
+	 *            the generator with which the cards are shuffled
+	 * @param hands
+	 *            the array into which the bits of the cards of each player are
+	 *            written
+	 */
+	void deal(SplittableRandom random, long[] hands) {
+		for (int i = unseen.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int card = unseen[i];
+			unseen[i] = unseen[j];
+			unseen[j] = card;
+		}
+		int k = 0;
+		for (int i = 0; i < hands.length; i++) {
+			hands[i] = fixedHands[i];
+			for (int j = 0; j < numOfUnseenCards[i]; j++) {
+				hands[i] |= 1L << unseen[k++];
+			}
+		}
+	}
+}
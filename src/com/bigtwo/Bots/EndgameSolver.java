@@ -0,0 +1,299 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.CardSet;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to solve the end of a Big Two game in which the cards of
+ * every player are known. The solver decides whether a player can force a
+ * win, whatever the other players do, by searching every line of play: the
+ * player needs one move after which it still wins, and every move of the
+ * other players must leave it winning. The search stops at the first move
+ * which settles a position, as alpha-beta does for a game won or lost.
+ * <p>
+ * Positions are keyed by a Zobrist hash of the cards of each player, the
+ * player to move, the last hand to beat and the player who is solved for, and
+ * their values are kept in a transposition table of bounded size, where a new
+ * position replaces the one in its slot. A position reached again, in the
+ * same search or in a later one, is not searched again. A search gives up
+ * after a number of positions, so that a solver asked about a position too
+ * large for it answers in bounded time.
+ * <p>
+ * A solver is not thread-safe; each thread needs its own.
+ *
+ * @author Anmol Gupta
+ */
+public final class EndgameSolver {
+	/**
+	 * The value of a position which the player can force a win from.
+	 */
+	public static final int WIN = 1;
+
+	/**
+	 * The value of a position which the other players can keep the player
+	 * from winning.
+	 */
+	public static final int LOSS = 0;
+
+	/**
+	 * The value of a position which has not been solved within the number of
+	 * positions allowed.
+	 */
+	public static final int UNKNOWN = -1;
+
+	/**
+	 * The default number of bits of the index of the transposition table.
+	 */
+	public static final int DEFAULT_TABLE_BITS = 18;
+
+	/**
+	 * The default number of positions searched before a search gives up.
+	 */
+	public static final long DEFAULT_MAX_NUM_OF_NODES = 200000;
+
+	// the sizes of the hands, in the order in which the moves are tried
+	private static final int[] MOVE_SIZES = { 5, 3, 2, 1 };
+
+	private final int numOfPlayers; // the number of players
+	private final long[] cardKeys; // the key of each card held by each player
+	private final long[] turnKeys; // the key of each player to move
+	private final long[] leaderKeys; // the key of each player of the last hand
+	private final long[] solverKeys; // the key of each player solved for
+	private final long[] hashes; // the hashes of the positions in the table
+	private final byte[] values; // the values of the positions in the table
+	private final int mask; // the mask of the index of the table
+	private final long maxNumOfNodes; // the number of positions searched before giving up
+	private long numOfNodes; // the number of positions searched by the current search
+	private final long[] generated = new long[MoveGenerator.MAX_NUM_OF_MOVES]; // the moves before ordering
+	private long[][] moveBuffers = new long[0][]; // the ordered moves at each depth
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.EndgameSolver
+	 * class, with a table of 2^DEFAULT_TABLE_BITS positions.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players
+	 */
+	public EndgameSolver(int numOfPlayers) {
+		this(numOfPlayers, DEFAULT_TABLE_BITS, DEFAULT_MAX_NUM_OF_NODES);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.EndgameSolver
+	 * class.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players
+	 * @param tableBits
+	 *            the number of bits of the index of the transposition table,
+	 *            which holds 2^tableBits positions
+	 * @param maxNumOfNodes
+	 *            the number of positions searched before a search gives up
+	 */
+	public EndgameSolver(int numOfPlayers, int tableBits, long maxNumOfNodes) {
+		this.numOfPlayers = numOfPlayers;
+		this.maxNumOfNodes = maxNumOfNodes;
+		SplittableRandom random = new SplittableRandom(0x5EED);
+		cardKeys = randomKeys(random, numOfPlayers * CardSet.NUM_OF_CARDS);
+		turnKeys = randomKeys(random, numOfPlayers);
+		leaderKeys = randomKeys(random, numOfPlayers + 1);
+		solverKeys = randomKeys(random, numOfPlayers);
+		hashes = new long[1 << tableBits];
+		values = new byte[1 << tableBits];
+		mask = (1 << tableBits) - 1;
+	}
+
+	/**
+	 * Forgets all the positions in the transposition table.
+	 */
+	public void clear() {
+		Arrays.fill(hashes, 0L);
+	}
+
+	/**
+	 * Decides whether the specified player can force a win from the specified
+	 * state, in which the cards of every player must be known. The state is
+	 * searched by applying and undoing moves, and is left as it was found.
+	 *
+	 * @param state
+	 *            the state of the game
+	 * @param playerID
+	 *            the index of the player
+	 * @return WIN, LOSS, or UNKNOWN if the search gave up
+	 */
+	public int solve(BigTwoState state, int playerID) {
+		for (int i = 0; i < numOfPlayers; i++) {
+			if (!state.isKnown(i)) {
+				throw new IllegalArgumentException("The cards of player " + i
+						+ " are unknown");
+			}
+		}
+		long handsHash = 0L;
+		for (int i = 0; i < numOfPlayers; i++) {
+			handsHash ^= hashCards(i, state.getHand(i));
+		}
+		numOfNodes = 0;
+		return search(state, playerID, handsHash, 0);
+	}
+
+	/**
+	 * Finds a move with which the player for the current turn forces a win.
+	 *
+	 * @param state
+	 *            the state of the game, in which the cards of every player must
+	 *            be known
+	 * @return the bits of the cards of the move, 0 for a pass, or -1 if no
+	 *         winning move has been found
+	 */
+	public long findWinningMove(BigTwoState state) {
+		int playerID = state.getCurrentIdx();
+		if (state.isGameOver()) {
+			return -1L;
+		}
+		int n = getMoves(state, 0);
+		long[] moves = moveBuffers[0].clone();
+		for (int i = 0; i < n; i++) {
+			state.apply(moves[i]);
+			int value = solve(state, playerID);
+			state.undo();
+			if (value == WIN) {
+				return moves[i];
+			}
+		}
+		return -1L;
+	}
+
+	/**
+	 * Returns the number of positions searched by the last search.
+	 *
+	 * @return the number of positions
+	 */
+	public long getNumOfNodes() {
+		return numOfNodes;
+	}
+
+	/**
+	 * Searches the specified state for the specified player.
+	 */
+	private int search(BigTwoState state, int playerID, long handsHash,
+			int depth) {
+		if (state.isGameOver()) {
+			return state.getWinner() == playerID ? WIN : LOSS;
+		}
+		int current = state.getCurrentIdx();
+		boolean mine = current == playerID;
+		// a player who can play all its cards at once wins
+		if (state.isLegal(state.getHand(current))) {
+			return mine ? WIN : LOSS;
+		}
+		if (++numOfNodes > maxNumOfNodes) {
+			return UNKNOWN;
+		}
+
+		long hash = handsHash ^ turnKeys[current] ^ solverKeys[playerID];
+		if (state.isFreeLead()) {
+			hash ^= leaderKeys[numOfPlayers];
+		} else {
+			hash ^= leaderKeys[state.getLastPlayer()]
+					^ mix(state.getLastKey());
+		}
+		int slot = (int) hash & mask;
+		if (hashes[slot] == hash) {
+			return values[slot];
+		}
+
+		int n = getMoves(state, depth);
+		long[] moves = moveBuffers[depth];
+		int value = mine ? LOSS : WIN;
+		boolean unknown = false;
+		for (int i = 0; i < n; i++) {
+			long move = moves[i];
+			state.apply(move);
+			int result = search(state, playerID,
+					handsHash ^ hashCards(current, move), depth + 1);
+			state.undo();
+			if (result == UNKNOWN) {
+				unknown = true;
+			} else if (result != value) {
+				// the first move which wins for the player to move settles
+				// the position
+				value = result;
+				unknown = false;
+				break;
+			}
+		}
+		if (unknown) {
+			return UNKNOWN;
+		}
+		hashes[slot] = hash;
+		values[slot] = (byte) value;
+		return value;
+	}
+
+	/**
+	 * Writes the legal moves of the player for the current turn into the
+	 * buffer of the specified depth, the largest hands first and passing last,
+	 * and returns the number of moves.
+	 */
+	private int getMoves(BigTwoState state, int depth) {
+		if (depth >= moveBuffers.length) {
+			moveBuffers = Arrays.copyOf(moveBuffers, depth + 1);
+		}
+		int n = state.getLegalMoves(generated);
+		long[] moves = moveBuffers[depth];
+		if (moves == null || moves.length < n + 1) {
+			moves = new long[n + 1];
+			moveBuffers[depth] = moves;
+		}
+		int k = 0;
+		for (int size : MOVE_SIZES) {
+			for (int i = 0; i < n; i++) {
+				if (Long.bitCount(generated[i]) == size) {
+					moves[k++] = generated[i];
+				}
+			}
+		}
+		if (state.canPass()) {
+			moves[k++] = 0L;
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the specified cards held by the specified
+	 * player.
+	 */
+	private long hashCards(int playerID, long cards) {
+		long hash = 0L;
+		int base = playerID * CardSet.NUM_OF_CARDS;
+		for (; cards != 0; cards &= cards - 1) {
+			hash ^= cardKeys[base + Long.numberOfTrailingZeros(cards)];
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns random keys for the hash of the positions.
+	 */
+	private static long[] randomKeys(SplittableRandom random, int n) {
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = random.nextLong();
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the hash of the strength key of the last hand, mixed as the
+	 * keys of the cards are.
+	 */
+	private static long mix(long key) {
+		key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+		key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return key ^ (key >>> 33);
+	}
+}
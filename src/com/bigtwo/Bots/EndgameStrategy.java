@@ -0,0 +1,142 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * This class is used to model a strategy which plays the end of a game with a
+ * com.bigtwo.Bots.EndgameSolver, and leaves the rest of the game to another
+ * strategy. Once few enough cards are left, the cards the player has not seen
+ * are dealt at random a number of times, and every legal move is solved in
+ * each deal. The move which forces a win in the most deals is played; if no
+ * move forces a win in any deal, or the game is not near its end, the other
+ * strategy chooses the move. A player whose opponents' cards are all known,
+ * as at the end of a game between two players, thus plays its endgame
+ * perfectly.
+ * <p>
+ * The solvers, whose transposition tables take megabytes, are kept in a
+ * bounded pool and reused from one move to the next, whichever thread makes
+ * the move; a thread takes a solver from the pool, or creates one if the pool
+ * is empty, and gives it back afterwards.
+ *
+ * @author Anmol Gupta
+ */
+public class EndgameStrategy implements Strategy {
+	/**
+	 * The default number of cards left to all the players below which the
+	 * solver plays.
+	 */
+	public static final int DEFAULT_MAX_NUM_OF_CARDS = 20;
+
+	/**
+	 * The default number of deals in which the moves are solved.
+	 */
+	public static final int DEFAULT_NUM_OF_DEALS = 16;
+
+	private final Strategy strategy; // the strategy for the rest of the game
+	private final int maxNumOfCards; // the number of cards left below which the solver plays
+	private final int numOfDeals; // the number of deals in which the moves are solved
+	private final ArrayBlockingQueue<EndgameSolver> solvers = new ArrayBlockingQueue<EndgameSolver>(
+			Runtime.getRuntime().availableProcessors()); // the solvers not in use
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.EndgameStrategy
+	 * class, with the default number of cards and deals.
+	 *
+	 * @param strategy
+	 *            the strategy for the rest of the game
+	 */
+	public EndgameStrategy(Strategy strategy) {
+		this(strategy, DEFAULT_MAX_NUM_OF_CARDS, DEFAULT_NUM_OF_DEALS);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.EndgameStrategy
+	 * class.
+	 *
+	 * @param strategy
+	 *            the strategy for the rest of the game
+	 * @param maxNumOfCards
+	 *            the number of cards left to all the players, at or below which
+	 *            the solver plays
+	 * @param numOfDeals
+	 *            the number of deals in which the moves are solved
+	 */
+	public EndgameStrategy(Strategy strategy, int maxNumOfCards, int numOfDeals) {
+		this.strategy = strategy;
+		this.maxNumOfCards = maxNumOfCards;
+		this.numOfDeals = numOfDeals;
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public String getName() {
+		return "endgame-" + strategy.getName();
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random) {
+		int numOfCards = 0;
+		for (int i = 0; i < state.getNumOfPlayers(); i++) {
+			numOfCards += state.getNumOfCards(i);
+		}
+		// a pass fits in the array, as following never allows the most moves
+		int n = state.getLegalMoves(moves);
+		if (state.canPass()) {
+			moves[n++] = 0L;
+		}
+		if (numOfCards > maxNumOfCards || n <= 1) {
+			return strategy.chooseMove(state, moves, random);
+		}
+
+		EndgameSolver solver = solvers.poll();
+		if (solver == null) {
+			solver = new EndgameSolver(state.getNumOfPlayers());
+		}
+		try {
+			return chooseMove(state, moves, random, solver, n);
+		} finally {
+			// a solver beyond the size of the pool is left to the collector
+			solvers.offer(solver);
+		}
+	}
+
+	/**
+	 * Chooses among the n legal moves at the start of the array by solving
+	 * them with the specified solver.
+	 */
+	private long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random, EndgameSolver solver, int n) {
+		int me = state.getCurrentIdx();
+		long[] candidates = new long[n];
+		System.arraycopy(moves, 0, candidates, 0, n);
+		int[] votes = new int[n];
+		BigTwoState deal = new BigTwoState(state);
+		Determinizer determinizer = new Determinizer(state);
+		long[] hands = new long[state.getNumOfPlayers()];
+		for (int d = 0; d < numOfDeals; d++) {
+			determinizer.deal(random, hands);
+			deal.redeal(hands);
+			for (int i = 0; i < n; i++) {
+				deal.apply(candidates[i]);
+				if (solver.solve(deal, me) == EndgameSolver.WIN) {
+					votes[i]++;
+				}
+				deal.undo();
+			}
+		}
+
+		int best = 0;
+		for (int i = 1; i < n; i++) {
+			if (votes[i] > votes[best]) {
+				best = i;
+			}
+		}
+		if (votes[best] == 0) {
+			return strategy.chooseMove(state, moves, random);
+		}
+		return candidates[best];
+	}
+}
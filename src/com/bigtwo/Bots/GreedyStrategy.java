@@ -0,0 +1,51 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to model a strategy which gets rid of its weakest cards
+ * first. When leading, it plays the largest hand holding its lowest card; when
+ * following, it plays the weakest hand which beats the last hand on the table,
+ * and only passes when it cannot beat it.
+ *
+ * @author Anmol Gupta
+ */
+public class GreedyStrategy implements Strategy {
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public String getName() {
+		return "greedy";
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random) {
+		int n = state.getLegalMoves(moves);
+		if (n == 0) {
+			return 0L;
+		}
+		long best = moves[0];
+		if (state.isFreeLead()) {
+			long lowest = Long.lowestOneBit(state.getHand(state.getCurrentIdx()));
+			for (int i = 1; i < n; i++) {
+				if ((moves[i] & lowest) != 0
+						&& ((best & lowest) == 0 || Long.bitCount(moves[i]) > Long
+								.bitCount(best))) {
+					best = moves[i];
+				}
+			}
+		} else {
+			long bestKey = MoveGenerator.strengthKey(best);
+			for (int i = 1; i < n; i++) {
+				long key = MoveGenerator.strengthKey(moves[i]);
+				if (key < bestKey) {
+					best = moves[i];
+					bestKey = key;
+				}
+			}
+		}
+		return best;
+	}
+}
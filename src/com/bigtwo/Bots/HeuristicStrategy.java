@@ -0,0 +1,133 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.Hands.HandClassifier;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to model a strategy which follows a few rules of thumb,
+ * and decides a move in microseconds without creating any object. It plays
+ * the weakest hand it can, as com.bigtwo.Bots.GreedyStrategy does, but keeps
+ * its 2s and its bombs (quads and straight flushes) for the end, and only
+ * breaks up a pair or a triple when no other hand will do. When the only hands
+ * left to beat the table would spend a kept card, it passes, unless an
+ * opponent is close to going out or its own hand is small.
+ * <p>
+ * The moves are compared by a single score, lower being better: first whether
+ * the move spends a kept card or breaks up a group, then, when leading,
+ * whether it gets rid of the lowest card and how many cards it plays, and
+ * last the strength of the hand.
+ *
+ * @author Anmol Gupta
+ */
+public class HeuristicStrategy implements Strategy {
+	// the number of cards at or below which a player is close to going out
+	private static final int DANGER = 3;
+	// the bits of the four 2s, the cards of the highest rank
+	private static final long TWOS = 0xFL << 48;
+	// the bit of the lowest group of each rank
+	private static final long RANK_BITS = 0x1111111111111L;
+	// the number of ranks from which a straight may start
+	private static final int NUM_OF_STRAIGHTS = 9;
+
+	// the ranks of the score of a move
+	private static final int KEPT = 2; // the move spends a kept card
+	private static final int BREAKS = 1; // the move breaks up a group
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public String getName() {
+		return "heuristic";
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random) {
+		int n = state.getLegalMoves(moves);
+		if (n == 0) {
+			return 0L;
+		}
+		int me = state.getCurrentIdx();
+		long hand = state.getHand(me);
+		long kept = getKeptCards(hand);
+		boolean lead = state.isFreeLead();
+		long lowest = Long.lowestOneBit(hand);
+
+		long best = moves[0];
+		long bestScore = Long.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			long move = moves[i];
+			long tier = (move & kept) != 0 ? KEPT
+					: breaksGroup(hand, move) ? BREAKS : 0;
+			long score = tier << 40;
+			if (lead) {
+				score |= ((move & lowest) == 0 ? 1L : 0L) << 36;
+				score |= (long) (5 - Long.bitCount(move)) << 32;
+			}
+			score |= MoveGenerator.strengthKey(move);
+			if (score < bestScore) {
+				best = move;
+				bestScore = score;
+			}
+		}
+
+		if (bestScore >>> 40 == KEPT && state.canPass()
+				&& state.getNumOfCards(me) > DANGER + 1
+				&& !isOpponentClose(state, me)) {
+			return 0L;
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the cards which are kept for the end: the 2s, the quads and the
+	 * straight flushes.
+	 */
+	private static long getKeptCards(long hand) {
+		long kept = hand & TWOS;
+		// a rank of which all four cards are held
+		long quads = hand & (hand >>> 1) & (hand >>> 2) & (hand >>> 3)
+				& RANK_BITS;
+		kept |= quads * 0xF;
+		for (int suit = 0; suit < 4; suit++) {
+			for (int start = 0; start < NUM_OF_STRAIGHTS; start++) {
+				long run = (RANK_BITS & ((1L << 20) - 1)) << (start * 4 + suit);
+				if ((hand & run) == run
+						&& HandClassifier.getType(HandClassifier.classify(run)) == HandClassifier.STRAIGHT_FLUSH) {
+					kept |= run;
+				}
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Returns true if the move leaves behind some cards of a rank of which
+	 * the hand holds two or more.
+	 */
+	private static boolean breaksGroup(long hand, long move) {
+		for (long cards = move; cards != 0;) {
+			long group = 0xFL << (Long.numberOfTrailingZeros(cards) & ~3);
+			int held = Long.bitCount(hand & group);
+			if (held >= 2 && Long.bitCount(move & group) < held) {
+				return true;
+			}
+			cards &= ~group;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if an opponent of the specified player is close to going
+	 * out.
+	 */
+	private static boolean isOpponentClose(BigTwoState state, int me) {
+		for (int i = 0; i < state.getNumOfPlayers(); i++) {
+			if (i != me && state.getNumOfCards(i) <= DANGER) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,267 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.CardSet;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class is used to model a strategy which searches the game by
+ * information set Monte Carlo tree search (ISMCTS). The player does not know
+ * the cards of the other players, so each iteration of the search deals the
+ * cards it has not seen, neither in its hand nor played on the table, at
+ * random to the other players, as many as each of them holds. The iteration
+ * then walks down a tree of moves, choosing among the moves which are legal in
+ * that deal by their upper confidence bound, adds a move not tried yet, plays
+ * the game out with a com.bigtwo.Bots.GreedyStrategy, and records the winner
+ * in every move on its way.
+ * <p>
+ * The search is spread over several trees, each searched by a task of its own
+ * on the common ForkJoinPool, and the visits of the first moves of all the
+ * trees are added up. The move visited most, which is the move with the best
+ * win rate the search is confident in, is played. The search stops after a
+ * number of iterations or when its time is up, whichever comes first; with a
+ * single tree and no time limit, the same random numbers always give the same
+ * move.
+ *
+ * @author Anmol Gupta
+ */
+public class IsmctsStrategy implements Strategy {
+	/**
+	 * The default number of iterations of a search.
+	 */
+	public static final int DEFAULT_NUM_OF_ITERATIONS = 1000;
+
+	// the weight of exploration in the upper confidence bound of a move
+	private static final double EXPLORATION = 0.7;
+
+	private final int maxNumOfIterations; // the number of iterations of a search, or 0 for no limit
+	private final long timeBudget; // the time of a search in milliseconds, or 0 for no limit
+	private final int numOfTrees; // the number of trees searched in parallel
+	private final Strategy playout = new GreedyStrategy(); // the strategy playing the games out
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.IsmctsStrategy
+	 * class, which searches a single tree for DEFAULT_NUM_OF_ITERATIONS
+	 * iterations.
+	 */
+	public IsmctsStrategy() {
+		this(DEFAULT_NUM_OF_ITERATIONS, 0L, 1);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.IsmctsStrategy
+	 * class.
+	 *
+	 * @param maxNumOfIterations
+	 *            the number of iterations of a search, shared by the trees, or
+	 *            0 for no limit
+	 * @param timeBudget
+	 *            the time of a search in milliseconds, or 0 for no limit
+	 * @param numOfTrees
+	 *            the number of trees searched in parallel, usually the number
+	 *            of cores
+	 */
+	public IsmctsStrategy(int maxNumOfIterations, long timeBudget,
+			int numOfTrees) {
+		if (maxNumOfIterations <= 0 && timeBudget <= 0) {
+			throw new IllegalArgumentException(
+					"A search needs a number of iterations or a time budget");
+		}
+		this.maxNumOfIterations = maxNumOfIterations;
+		this.timeBudget = timeBudget;
+		this.numOfTrees = Math.max(numOfTrees, 1);
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public String getName() {
+		return "ismcts";
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random) {
+		int n = state.getLegalMoves(moves);
+		if (n == 0) {
+			return 0L;
+		}
+		if (n == 1 && !state.canPass()) {
+			return moves[0];
+		}
+
+		long deadline = timeBudget > 0 ? System.nanoTime() + timeBudget
+				* 1000000L : Long.MAX_VALUE;
+		int iterations = maxNumOfIterations > 0 ? Math.max(maxNumOfIterations
+				/ numOfTrees, 1) : Integer.MAX_VALUE;
+		Search[] searches = new Search[numOfTrees];
+		for (int i = 0; i < numOfTrees; i++) {
+			searches[i] = new Search(state, random.split(), iterations,
+					deadline);
+		}
+		if (numOfTrees == 1) {
+			searches[0].invoke();
+		} else {
+			ForkJoinTask.invokeAll(searches);
+		}
+
+		// adds up the visits and wins of the first moves of all the trees
+		HashMap<Long, long[]> results = new HashMap<Long, long[]>();
+		for (Search search : searches) {
+			for (Node child : search.root.children.values()) {
+				long[] result = results.get(child.move);
+				if (result == null) {
+					result = new long[2];
+					results.put(child.move, result);
+				}
+				result[0] += child.visits;
+				result[1] += child.wins;
+			}
+		}
+		long best = moves[0];
+		long bestVisits = -1;
+		long bestWins = -1;
+		for (Map.Entry<Long, long[]> entry : results.entrySet()) {
+			long[] result = entry.getValue();
+			if (result[0] > bestVisits
+					|| (result[0] == bestVisits && result[1] > bestWins)) {
+				best = entry.getKey();
+				bestVisits = result[0];
+				bestWins = result[1];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * This inner class is used to model a move in a search tree, with the
+	 * number of times it has been visited, won by the player who made it, and
+	 * legal when its parent was visited.
+	 */
+	private static final class Node {
+		private final long move; // the bits of the cards played, or 0 for a pass
+		private final int playerID; // the player who made the move
+		private int visits = 0; // the number of iterations through this move
+		private int wins = 0; // the number of those iterations won by the player
+		private int availability = 1; // the number of times this move was legal
+		private final HashMap<Long, Node> children = new HashMap<Long, Node>(); // the moves after this move
+
+		Node(long move, int playerID) {
+			this.move = move;
+			this.playerID = playerID;
+		}
+
+		/**
+		 * Returns the upper confidence bound of the win rate of this move.
+		 */
+		double getBound() {
+			return (double) wins / visits + EXPLORATION
+					* Math.sqrt(Math.log(availability) / visits);
+		}
+	}
+
+	/**
+	 * This inner class is used to search one tree, from the state of the game
+	 * as seen by the player for the current turn.
+	 */
+	private final class Search extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Node root = new Node(0L, -1); // the root of the tree
+		private final BigTwoState state; // the state searched, dealt anew for each iteration
+		private final SplittableRandom random; // the generator of this search
+		private final int maxIterations; // the number of iterations of this search
+		private final long deadline; // the time at which this search stops
+		private final int base; // the number of moves played before the search
+		private final Determinizer determinizer; // the dealer of the unseen cards
+		private final long[] hands; // the cards of each player in the current deal
+		private final long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES + 1]; // the legal moves of a turn
+		private final Node[] path; // the nodes visited by the current iteration
+
+		Search(BigTwoState state, SplittableRandom random, int maxIterations,
+				long deadline) {
+			this.state = new BigTwoState(state);
+			this.random = random;
+			this.maxIterations = maxIterations;
+			this.deadline = deadline;
+			base = state.getNumOfMoves();
+			determinizer = new Determinizer(state);
+			hands = new long[state.getNumOfPlayers()];
+			path = new Node[CardSet.NUM_OF_CARDS * state.getNumOfPlayers() + 1];
+		}
+
+		protected void compute() {
+			for (int i = 0; i < maxIterations && System.nanoTime() < deadline; i++) {
+				iterate();
+			}
+		}
+
+		/**
+		 * Deals the unseen cards at random, and runs one iteration of the
+		 * search in that deal.
+		 */
+		private void iterate() {
+			determinizer.deal(random, hands);
+			state.redeal(hands);
+
+			// selects moves down the tree until a move is added to it
+			Node node = root;
+			int depth = 0;
+			path[depth++] = root;
+			while (!state.isGameOver()) {
+				int n = state.getLegalMoves(moves);
+				if (state.canPass()) {
+					moves[n++] = 0L;
+				}
+				int untried = 0;
+				for (int i = 0; i < n; i++) {
+					if (!node.children.containsKey(moves[i])) {
+						untried++;
+					}
+				}
+				if (untried > 0) {
+					int choice = random.nextInt(untried);
+					for (int i = 0; i < n; i++) {
+						if (!node.children.containsKey(moves[i]) && choice-- == 0) {
+							Node child = new Node(moves[i], state.getCurrentIdx());
+							node.children.put(moves[i], child);
+							path[depth++] = child;
+							state.apply(moves[i]);
+							break;
+						}
+					}
+					break;
+				}
+				Node best = null;
+				for (int i = 0; i < n; i++) {
+					Node child = node.children.get(moves[i]);
+					child.availability++;
+					if (best == null || child.getBound() > best.getBound()) {
+						best = child;
+					}
+				}
+				path[depth++] = best;
+				state.apply(best.move);
+				node = best;
+			}
+
+			// plays the game out and records the winner
+			while (!state.isGameOver()) {
+				state.apply(playout.chooseMove(state, moves, random));
+			}
+			int winner = state.getWinner();
+			for (int i = 0; i < depth; i++) {
+				path[i].visits++;
+				if (path[i].playerID == winner) {
+					path[i].wins++;
+				}
+			}
+			while (state.getNumOfMoves() > base) {
+				state.undo();
+			}
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to model a strategy which plays a legal move chosen at
+ * random, passing being as likely as any other move.
+ *
+ * @author Anmol Gupta
+ */
+public class RandomStrategy implements Strategy {
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public String getName() {
+		return "random";
+	}
+
+	// implementation of method from the com.bigtwo.Bots.Strategy interface
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random) {
+		int n = state.getLegalMoves(moves);
+		int choice = random.nextInt(state.canPass() ? n + 1 : n);
+		return choice < n ? moves[choice] : 0L;
+	}
+}
@@ -0,0 +1,209 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.Hands.HandClassifier;
+
+/**
+ * This class is used to gather the statistics of a number of simulated games:
+ * the wins and the cards left for each seat and for each strategy, how often
+ * each type of hand was played, and how often the players passed. The
+ * statistics of games simulated by different threads are gathered separately
+ * and then merged.
+ *
+ * @author Anmol Gupta
+ */
+public class SimulationStats {
+	private final int numOfPlayers; // the number of players of a game
+	private final String[] strategyNames; // the names of the strategies
+	private long numOfGames = 0; // the number of games
+	private long numOfMoves = 0; // the number of moves, passes included
+	private long numOfPasses = 0; // the number of passes
+	private final long[] seatWins; // the number of wins of each seat
+	private final long[] seatCardsLeft; // the cards left at the end to each seat
+	private final long[] strategyGames; // the number of seats taken by each strategy
+	private final long[] strategyWins; // the number of wins of each strategy
+	private final long[] strategyCardsLeft; // the cards left at the end to each strategy
+	private final long[] handTypes = new long[HandClassifier.TYPE_NAMES.length]; // the number of hands of each type
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.SimulationStats
+	 * class, for games with the specified number of players and strategies.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players of a game
+	 * @param strategyNames
+	 *            the names of the strategies
+	 */
+	public SimulationStats(int numOfPlayers, String[] strategyNames) {
+		this.numOfPlayers = numOfPlayers;
+		this.strategyNames = strategyNames;
+		seatWins = new long[numOfPlayers];
+		seatCardsLeft = new long[numOfPlayers];
+		strategyGames = new long[strategyNames.length];
+		strategyWins = new long[strategyNames.length];
+		strategyCardsLeft = new long[strategyNames.length];
+	}
+
+	/**
+	 * Records a move.
+	 *
+	 * @param move
+	 *            the bits of the cards played, or 0 for a pass
+	 */
+	public void addMove(long move) {
+		numOfMoves++;
+		if (move == 0) {
+			numOfPasses++;
+		} else {
+			handTypes[HandClassifier.getType(HandClassifier.classify(move))]++;
+		}
+	}
+
+	/**
+	 * Records the end of a game.
+	 *
+	 * @param strategies
+	 *            the index of the strategy of each seat
+	 * @param cardsLeft
+	 *            the number of cards left to each seat
+	 */
+	public void addGame(int[] strategies, int[] cardsLeft) {
+		numOfGames++;
+		for (int i = 0; i < numOfPlayers; i++) {
+			int strategy = strategies[i];
+			strategyGames[strategy]++;
+			seatCardsLeft[i] += cardsLeft[i];
+			strategyCardsLeft[strategy] += cardsLeft[i];
+			if (cardsLeft[i] == 0) {
+				seatWins[i]++;
+				strategyWins[strategy]++;
+			}
+		}
+	}
+
+	/**
+	 * Adds the statistics of other games to these statistics.
+	 *
+	 * @param stats
+	 *            the statistics to be added
+	 */
+	public void merge(SimulationStats stats) {
+		numOfGames += stats.numOfGames;
+		numOfMoves += stats.numOfMoves;
+		numOfPasses += stats.numOfPasses;
+		add(seatWins, stats.seatWins);
+		add(seatCardsLeft, stats.seatCardsLeft);
+		add(strategyGames, stats.strategyGames);
+		add(strategyWins, stats.strategyWins);
+		add(strategyCardsLeft, stats.strategyCardsLeft);
+		add(handTypes, stats.handTypes);
+	}
+
+	/**
+	 * Returns the number of games.
+	 *
+	 * @return the number of games
+	 */
+	public long getNumOfGames() {
+		return numOfGames;
+	}
+
+	/**
+	 * Returns the number of moves, passes included.
+	 *
+	 * @return the number of moves
+	 */
+	public long getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns the number of wins of the specified strategy.
+	 *
+	 * @param strategy
+	 *            the index of the strategy
+	 * @return the number of wins
+	 */
+	public long getNumOfWins(int strategy) {
+		return strategyWins[strategy];
+	}
+
+	/**
+	 * Returns the number of seats taken by the specified strategy.
+	 *
+	 * @param strategy
+	 *            the index of the strategy
+	 * @return the number of games played by the strategy, counted per seat
+	 */
+	public long getNumOfGames(int strategy) {
+		return strategyGames[strategy];
+	}
+
+	/**
+	 * Returns a report of these statistics.
+	 *
+	 * @return a string representation of these statistics
+	 */
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append("Games: ").append(numOfGames).append(", moves: ")
+				.append(numOfMoves).append(" (")
+				.append(format(ratio(numOfMoves, numOfGames)))
+				.append(" per game)\n");
+		for (int i = 0; i < numOfPlayers; i++) {
+			report.append("Seat ").append(i).append(": win rate ")
+					.append(percent(seatWins[i], numOfGames))
+					.append(", average cards left ")
+					.append(format(ratio(seatCardsLeft[i], numOfGames)))
+					.append('\n');
+		}
+		for (int i = 0; i < strategyNames.length; i++) {
+			report.append("Strategy ").append(strategyNames[i])
+					.append(": win rate ")
+					.append(percent(strategyWins[i], strategyGames[i]))
+					.append(", average cards left ")
+					.append(format(ratio(strategyCardsLeft[i], strategyGames[i])))
+					.append(" (").append(strategyGames[i]).append(" seats)\n");
+		}
+		report.append("Passes: ").append(percent(numOfPasses, numOfMoves))
+				.append(" of the moves\n");
+		long numOfHands = numOfMoves - numOfPasses;
+		for (int i = 0; i < HandClassifier.TYPE_NAMES.length; i++) {
+			report.append(HandClassifier.TYPE_NAMES[i]).append(": ")
+					.append(percent(handTypes[i], numOfHands))
+					.append(" of the hands (")
+					.append(format(ratio(handTypes[i], numOfGames)))
+					.append(" per game)\n");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Adds the elements of the second array to those of the first.
+	 */
+	private static void add(long[] sum, long[] values) {
+		for (int i = 0; i < sum.length; i++) {
+			sum[i] += values[i];
+		}
+	}
+
+	/**
+	 * Returns the ratio of two counts, or 0 if the second is 0.
+	 */
+	private static double ratio(long count, long total) {
+		return total == 0 ? 0 : (double) count / total;
+	}
+
+	/**
+	 * Returns the ratio of two counts as a percentage.
+	 */
+	private static String percent(long count, long total) {
+		return String.format("%.2f%%", 100 * ratio(count, total));
+	}
+
+	/**
+	 * Returns a value with three decimals.
+	 */
+	private static String format(double value) {
+		return String.format("%.3f", value);
+	}
+}
@@ -0,0 +1,219 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoDeck;
+import com.bigtwo.BigTwoState;
+import com.bigtwo.Hands.MoveGenerator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class is used to simulate complete Big Two games between bots, in
+ * process and without any network connection. The games are split into
+ * batches which a ForkJoinPool runs on all the cores, each batch gathering
+ * its own com.bigtwo.Bots.SimulationStats, which are merged as the batches
+ * join.
+ * <p>
+ * Every game is dealt from its own seed, the seed of the simulation plus the
+ * index of the game, in the same way as the server deals a
+ * com.bigtwo.BigTwoDeck shuffled with that seed, and the strategies draw their
+ * random numbers from the same generator. A game therefore plays out the same
+ * whichever thread runs it, and can be played again on its own. The
+ * strategies take turns in the seats from one game to the next, so no
+ * strategy keeps the advantage of a seat.
+ *
+ * @author Anmol Gupta
+ */
+public class Simulator {
+	// the number of players of a game
+	private static final int NUM_OF_PLAYERS = 4;
+	// the number of games below which a batch is not split any further
+	private static final int GAMES_PER_BATCH = 256;
+
+	private final Strategy[] strategies; // the strategies taking turns in the seats
+	private final long seed; // the seed of the first game
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.Bots.Simulator class.
+	 *
+	 * @param strategies
+	 *            the strategies of the players; seat j of game i is taken by
+	 *            strategy (i + j) % strategies.length
+	 * @param seed
+	 *            the seed of the first game
+	 */
+	public Simulator(Strategy[] strategies, long seed) {
+		this.strategies = strategies.clone();
+		this.seed = seed;
+	}
+
+	/**
+	 * Simulates the specified number of games on the specified pool.
+	 *
+	 * @param numOfGames
+	 *            the number of games
+	 * @param pool
+	 *            the pool running the games
+	 * @return the statistics of the games
+	 */
+	public SimulationStats simulate(long numOfGames, ForkJoinPool pool) {
+		return pool.invoke(new Batch(0, numOfGames));
+	}
+
+	/**
+	 * Plays the game with the specified index, and adds it to the statistics.
+	 *
+	 * @param game
+	 *            the index of the game
+	 * @param state
+	 *            the state in which the game is played
+	 * @param moves
+	 *            an array with room for MoveGenerator.MAX_NUM_OF_MOVES moves
+	 * @param stats
+	 *            the statistics to which the game is added
+	 */
+	public void playGame(long game, BigTwoState state, long[] moves,
+			SimulationStats stats) {
+		SplittableRandom random = new SplittableRandom(seed + game);
+		long[] hands = new long[NUM_OF_PLAYERS];
+		BigTwoDeck.deal(random, hands);
+		state.start(hands);
+
+		int[] seats = new int[NUM_OF_PLAYERS];
+		for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+			seats[i] = (int) ((game + i) % strategies.length);
+		}
+		while (!state.isGameOver()) {
+			Strategy strategy = strategies[seats[state.getCurrentIdx()]];
+			long move = strategy.chooseMove(state, moves, random);
+			if (!state.isLegal(move)) {
+				throw new IllegalStateException("Strategy " + strategy.getName()
+						+ " made an illegal move in game " + game);
+			}
+			stats.addMove(move);
+			state.apply(move);
+		}
+
+		int[] cardsLeft = new int[NUM_OF_PLAYERS];
+		for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+			cardsLeft[i] = state.getNumOfCards(i);
+		}
+		stats.addGame(seats, cardsLeft);
+	}
+
+	/**
+	 * Returns the names of the strategies.
+	 */
+	private String[] getStrategyNames() {
+		String[] names = new String[strategies.length];
+		for (int i = 0; i < strategies.length; i++) {
+			names[i] = strategies[i].getName();
+		}
+		return names;
+	}
+
+	/**
+	 * This inner class is used to simulate a range of games, split in halves
+	 * until the range is small enough.
+	 */
+	private class Batch extends RecursiveTask<SimulationStats> {
+		private static final long serialVersionUID = 1L;
+		private final long from; // the index of the first game
+		private final long to; // the index after the last game
+
+		Batch(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected SimulationStats compute() {
+			if (to - from > GAMES_PER_BATCH) {
+				long middle = (from + to) >>> 1;
+				Batch second = new Batch(middle, to);
+				second.fork();
+				SimulationStats stats = new Batch(from, middle).compute();
+				stats.merge(second.join());
+				return stats;
+			}
+			SimulationStats stats = new SimulationStats(NUM_OF_PLAYERS,
+					getStrategyNames());
+			BigTwoState state = new BigTwoState(NUM_OF_PLAYERS);
+			long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES];
+			for (long game = from; game < to; game++) {
+				playGame(game, state, moves, stats);
+			}
+			return stats;
+		}
+	}
+
+	/**
+	 * Returns the strategy with the specified name. A name "endgame-" followed
+	 * by the name of another strategy gives that strategy with the endgame
+	 * solver. "ismcts" searches a single tree for a number of iterations;
+	 * "ismcts:t" searches for t milliseconds on all the cores, and
+	 * "ismcts:t:n" for t milliseconds with n trees.
+	 *
+	 * @param name
+	 *            the name of the strategy
+	 * @return a new instance of the strategy
+	 */
+	public static Strategy createStrategy(String name) {
+		if (name.equals("random")) {
+			return new RandomStrategy();
+		} else if (name.equals("greedy")) {
+			return new GreedyStrategy();
+		} else if (name.equals("heuristic")) {
+			return new HeuristicStrategy();
+		} else if (name.equals("ismcts")) {
+			return new IsmctsStrategy();
+		} else if (name.startsWith("ismcts:")) {
+			String[] budget = name.substring(7).split(":");
+			int numOfTrees = budget.length > 1 ? Integer.parseInt(budget[1])
+					: Runtime.getRuntime().availableProcessors();
+			return new IsmctsStrategy(0, Long.parseLong(budget[0]), numOfTrees);
+		} else if (name.startsWith("endgame-")) {
+			return new EndgameStrategy(createStrategy(name.substring(8)));
+		}
+		throw new IllegalArgumentException("Unknown strategy: " + name);
+	}
+
+	/**
+	 * main() method for running a simulation.
+	 *
+	 * @param args
+	 *            the number of games, the seed of the first game, and the
+	 *            names of the strategies. By default, 100000 games between
+	 *            the greedy and the random strategies are dealt from a random
+	 *            seed
+	 */
+	public static void main(String[] args) {
+		long numOfGames = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+		long seed = args.length > 1 ? Long.parseLong(args[1])
+				: new SplittableRandom().nextLong();
+		Strategy[] strategies;
+		if (args.length > 2) {
+			strategies = new Strategy[args.length - 2];
+			for (int i = 2; i < args.length; i++) {
+				strategies[i - 2] = createStrategy(args[i]);
+			}
+		} else {
+			strategies = new Strategy[] { new GreedyStrategy(),
+					new RandomStrategy() };
+		}
+
+		ForkJoinPool pool = new ForkJoinPool();
+		Simulator simulator = new Simulator(strategies, seed);
+		long start = System.nanoTime();
+		SimulationStats stats = simulator.simulate(numOfGames, pool);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+
+		System.out.println(String.format(
+				"Simulated %d games (seed %d) in %.2f s on %d threads: %.0f games/s, %.0f moves/s",
+				stats.getNumOfGames(), seed, seconds, pool.getParallelism(),
+				stats.getNumOfGames() / seconds, stats.getNumOfMoves()
+						/ seconds));
+		System.out.print(stats);
+	}
+}
@@ -0,0 +1,40 @@
+package com.bigtwo.Bots;
+
+import com.bigtwo.BigTwoState;
+
+import java.util.SplittableRandom;
+
+/**
+ * An interface for a strategy of a Big Two bot. A strategy is asked for the
+ * move of the player for the current turn of a com.bigtwo.BigTwoState, and may
+ * only use what that player knows: its own cards, the number of cards of the
+ * other players and the moves played so far. Strategies keep no state of their
+ * own between moves, so one instance can be shared by any number of players
+ * and threads.
+ *
+ * @author Anmol Gupta
+ */
+public interface Strategy {
+	/**
+	 * Returns the name of this strategy.
+	 *
+	 * @return the name of this strategy
+	 */
+	public String getName();
+
+	/**
+	 * Chooses the move of the player for the current turn. The state must be
+	 * left as it was found.
+	 *
+	 * @param state
+	 *            the state of the game
+	 * @param moves
+	 *            an array which may be used to generate the legal moves, with
+	 *            room for MoveGenerator.MAX_NUM_OF_MOVES moves
+	 * @param random
+	 *            the generator of the random numbers of this game
+	 * @return the bits of the cards to be played, or 0 to pass
+	 */
+	public long chooseMove(BigTwoState state, long[] moves,
+			SplittableRandom random);
+}
@@ -113,6 +113,6 @@ public class Card implements Comparable<Card>, Serializable {
 	 * @return a hash code value for the card
 	 */
 	public int hashCode() {
-		return rank;
+		return suit * 13 + rank;
 	}
 }
@@ -59,6 +59,41 @@ public class CardGameMessage extends GameMessage {
 	 * sent this chat message, and data is a reference to a string containing a formated chat message.
 	 */
 	public static final int MSG = 7;
+	/**
+	 * Sent by the server to a client when the move made by the local player is
+	 * rejected, either because it is not the turn of the player or because the
+	 * cards do not form a hand which beats the last hand on the table. Nothing
+	 * is broadcast to the other clients. In this message, playerID specifies
+	 * the player who made the move, and data is a reference to the array of int
+	 * received in the MOVE message.
+	 */
+	public static final int ILLEGAL = 8;
+	/**
+	 * Broadcast by a server which validates the moves when it accepts a move.
+	 * The clients play the move without checking it again. In this message,
+	 * playerID specifies the player who makes the move, and data is a reference
+	 * to a com.bigtwo.CardList object holding the cards played, or null for a
+	 * pass.
+	 */
+	public static final int PLAYED = 9;
+	/**
+	 * Sent by a server which deals the cards itself to each client when all
+	 * clients are ready for a new game, in place of the START message. Each
+	 * client only receives its own hand. In this message, playerID specifies
+	 * the player who makes the first move, and data is a reference to a
+	 * com.bigtwo.CardList object holding the cards dealt to the local player.
+	 */
+	public static final int DEAL = 10;
+	/**
+	 * Sent by a server to a client which has joined a table, and sent back by
+	 * the client in place of a JOIN message when it connects again after the
+	 * server has restarted, to take back its seat in a restored game. In this
+	 * message, playerID specifies the seat of the local player (for the
+	 * message sent by the server) or -1 (for the message sent by a client), and
+	 * data is a reference to an array of two strings: the name of the player
+	 * and the resume token of the seat.
+	 */
+	public static final int RESUME = 11;
 
 	/**
 	 * Creates and returns an instance of com.bigtwo.CardGameMessage.
@@ -0,0 +1,282 @@
+package com.bigtwo;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class implements the compact binary codec of com.bigtwo.CardGameMessage
+ * objects used by the com.bigtwo.WireProtocol. A message is encoded as its type
+ * and playerID (one byte each) followed by its data in a fixed layout for the
+ * type: names and chat messages as length-prefixed UTF-8 strings, the indices
+ * of a MOVE as one byte each, and every card as a single byte. Nothing but
+ * the content of the message is written, so a MOVE takes a handful of bytes
+ * instead of the hundreds written by Java serialization.
+ *
+ * @author Anmol Gupta
+ */
+public final class CardGameMessageCodec {
+	// kinds of cards carried by a START, PLAYED or DEAL message
+	private static final int PLAIN_DECK = 0;
+	private static final int BIG_TWO_DECK = 1;
+	// the length written in place of a null string or array
+	private static final int NULL_LENGTH = -1;
+	// the length of the longest string which can be encoded (in bytes)
+	private static final int MAX_STRING_LENGTH = 0xFFFF;
+	// the initial capacity of the buffer of an encoded frame
+	private static final int INITIAL_CAPACITY = 128;
+
+	private CardGameMessageCodec() {
+	}
+
+	/**
+	 * Encodes the specified message into a complete frame, including the
+	 * length prefix.
+	 *
+	 * @param message
+	 *            the message to be encoded
+	 * @return the bytes of the frame
+	 * @throws IOException
+	 *             if the data of the message cannot be encoded
+	 */
+	public static byte[] encodeFrame(CardGameMessage message) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+		buffer.position(WireProtocol.FRAME_HEADER_LENGTH);
+		buffer.put((byte) message.getType());
+		buffer.put((byte) message.getPlayerID());
+
+		Object data = message.getData();
+		switch (message.getType()) {
+		case CardGameMessage.PLAYER_LIST:
+		case CardGameMessage.RESUME:
+			String[] names = (String[]) data;
+			buffer.put((byte) names.length);
+			for (String name : names) {
+				buffer = putString(buffer, name);
+			}
+			break;
+		case CardGameMessage.JOIN:
+		case CardGameMessage.QUIT:
+		case CardGameMessage.MSG:
+			buffer = putString(buffer, (String) data);
+			break;
+		case CardGameMessage.FULL:
+		case CardGameMessage.READY:
+			break;
+		case CardGameMessage.START:
+			Deck deck = (Deck) data;
+			buffer = ensureCapacity(buffer, 2 + deck.size());
+			buffer.put((byte) (deck instanceof BigTwoDeck ? BIG_TWO_DECK
+					: PLAIN_DECK));
+			buffer = putCards(buffer, deck);
+			break;
+		case CardGameMessage.MOVE:
+		case CardGameMessage.ILLEGAL:
+			int[] cardIdx = (int[]) data;
+			if (cardIdx == null) {
+				buffer.put((byte) NULL_LENGTH);
+			} else {
+				buffer = ensureCapacity(buffer, 1 + cardIdx.length);
+				buffer.put((byte) cardIdx.length);
+				for (int idx : cardIdx) {
+					buffer.put((byte) idx);
+				}
+			}
+			break;
+		case CardGameMessage.PLAYED:
+		case CardGameMessage.DEAL:
+			CardList cards = (CardList) data;
+			if (cards == null) {
+				buffer.put((byte) NULL_LENGTH);
+			} else {
+				buffer = ensureCapacity(buffer, 2 + cards.size());
+				buffer.put((byte) (cards.size() > 0
+						&& cards.getCard(0) instanceof BigTwoCard ? BIG_TWO_DECK
+						: PLAIN_DECK));
+				buffer = putCards(buffer, cards);
+			}
+			break;
+		default:
+			throw new StreamCorruptedException("Unknown message type: "
+					+ message.getType());
+		}
+
+		int length = buffer.position() - WireProtocol.FRAME_HEADER_LENGTH;
+		buffer.putInt(0, length);
+		byte[] frame = new byte[buffer.position()];
+		buffer.flip();
+		buffer.get(frame);
+		return frame;
+	}
+
+	/**
+	 * Decodes a message from the payload of a frame.
+	 *
+	 * @param payload
+	 *            the array holding the payload
+	 * @param offset
+	 *            the offset of the payload in the array
+	 * @param length
+	 *            the length of the payload
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the payload is not a valid message
+	 */
+	public static CardGameMessage decode(byte[] payload, int offset, int length)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(payload, offset, length);
+		try {
+			int type = buffer.get();
+			int playerID = buffer.get();
+			Object data = null;
+			switch (type) {
+			case CardGameMessage.PLAYER_LIST:
+			case CardGameMessage.RESUME:
+				String[] names = new String[buffer.get()];
+				for (int i = 0; i < names.length; i++) {
+					names[i] = getString(buffer);
+				}
+				data = names;
+				break;
+			case CardGameMessage.JOIN:
+			case CardGameMessage.QUIT:
+			case CardGameMessage.MSG:
+				data = getString(buffer);
+				break;
+			case CardGameMessage.FULL:
+			case CardGameMessage.READY:
+				break;
+			case CardGameMessage.START:
+				boolean bigTwo = buffer.get() == BIG_TWO_DECK;
+				Deck deck = bigTwo ? new BigTwoDeck() : new Deck();
+				deck.removeAllCards();
+				getCards(buffer, deck, bigTwo);
+				data = deck;
+				break;
+			case CardGameMessage.MOVE:
+			case CardGameMessage.ILLEGAL:
+				int n = buffer.get();
+				if (n != NULL_LENGTH) {
+					int[] cardIdx = new int[n];
+					for (int i = 0; i < n; i++) {
+						cardIdx[i] = buffer.get();
+					}
+					data = cardIdx;
+				}
+				break;
+			case CardGameMessage.PLAYED:
+			case CardGameMessage.DEAL:
+				int kind = buffer.get();
+				if (kind != NULL_LENGTH) {
+					CardList cards = new CardList();
+					getCards(buffer, cards, kind == BIG_TWO_DECK);
+					data = cards;
+				}
+				break;
+			default:
+				throw new StreamCorruptedException("Unknown message type: "
+						+ type);
+			}
+			return new CardGameMessage(type, playerID, data);
+		} catch (BufferUnderflowException | NegativeArraySizeException ex) {
+			throw new StreamCorruptedException("Truncated message");
+		}
+	}
+
+	/**
+	 * Encodes the specified card as a single byte.
+	 *
+	 * @param card
+	 *            the card to be encoded
+	 * @return the byte value (0 - 51) of the card
+	 */
+	public static int encodeCard(Card card) {
+		return card.getSuit() * 13 + card.getRank();
+	}
+
+	/**
+	 * Decodes a card from its byte value.
+	 *
+	 * @param value
+	 *            the byte value (0 - 51) of the card
+	 * @param bigTwo
+	 *            true if the canonical com.bigtwo.BigTwoCard is to be returned
+	 * @return the decoded card
+	 * @throws StreamCorruptedException
+	 *             if the value is not a valid card
+	 */
+	public static Card decodeCard(int value, boolean bigTwo)
+			throws StreamCorruptedException {
+		if (value < 0 || value >= 52) {
+			throw new StreamCorruptedException("Invalid card: " + value);
+		}
+		int suit = value / 13;
+		int rank = value % 13;
+		// the com.bigtwo.BigTwoCard constructor shifts the rank by two
+		return bigTwo ? BigTwoCard.valueOf(suit, (rank + 11) % 13) : new Card(
+				suit, rank);
+	}
+
+	private static ByteBuffer putCards(ByteBuffer buffer, CardList cards) {
+		buffer = ensureCapacity(buffer, 1 + cards.size());
+		buffer.put((byte) cards.size());
+		for (int i = 0; i < cards.size(); i++) {
+			buffer.put((byte) encodeCard(cards.getCard(i)));
+		}
+		return buffer;
+	}
+
+	private static void getCards(ByteBuffer buffer, CardList cards,
+			boolean bigTwo) throws StreamCorruptedException {
+		int n = buffer.get() & 0xFF;
+		for (int i = 0; i < n; i++) {
+			cards.addCard(decodeCard(buffer.get(), bigTwo));
+		}
+	}
+
+	private static ByteBuffer putString(ByteBuffer buffer, String string)
+			throws StreamCorruptedException {
+		if (string == null) {
+			buffer = ensureCapacity(buffer, 2);
+			buffer.putShort((short) NULL_LENGTH);
+			return buffer;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length >= MAX_STRING_LENGTH) {
+			throw new StreamCorruptedException("String too long: "
+					+ bytes.length + " bytes");
+		}
+		buffer = ensureCapacity(buffer, 2 + bytes.length);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		return buffer;
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getShort();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		length &= 0xFFFF;
+		if (length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String string = new String(buffer.array(), buffer.arrayOffset()
+				+ buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+
+	private static ByteBuffer ensureCapacity(ByteBuffer buffer, int extra) {
+		if (buffer.remaining() >= extra) {
+			return buffer;
+		}
+		ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+				buffer.position() + extra));
+		buffer.flip();
+		larger.put(buffer);
+		return larger;
+	}
+}
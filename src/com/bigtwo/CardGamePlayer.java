@@ -1,14 +1,17 @@
 package com.bigtwo;
 
 /**
- * This class is used to represent a player in general card games.
+ * This class is used to represent a player in general card games. The cards
+ * held by a player are kept in a com.bigtwo.CardSet, and are therefore always
+ * in Big Two order.
  *
  * @author Kenneth Wong
  */
 public class CardGamePlayer {
 	private static int playerId = 0;
 	private String name = "";
-	private CardList cardsInHand = new CardList();
+	private final CardSet cardsInHand = new CardSet();
+	private int numOfHiddenCards = 0;
 
 	/**
 	 * Creates and returns an instance of the Player class.
@@ -55,20 +58,44 @@ public class CardGamePlayer {
 	 */
 	public void addCard(Card card) {
 		if (card != null) {
-			cardsInHand.addCard(card);
+			cardsInHand.add(card);
 		}
 	}
 
+	/**
+	 * Adds the specified number of cards which are not known to this player,
+	 * such as the cards of an opponent.
+	 *
+	 * @param numOfCards
+	 *            the number of hidden cards to be added to this player
+	 */
+	public void addHiddenCards(int numOfCards) {
+		numOfHiddenCards += numOfCards;
+	}
+
+	/**
+	 * Returns the number of cards of this player which are not known.
+	 *
+	 * @return the number of hidden cards of this player
+	 */
+	public int getNumOfHiddenCards() {
+		return numOfHiddenCards;
+	}
+
 	/**
 	 * Removes the list of cards from this player, if they are held by this
-	 * player.
+	 * player. A card which is not known to be held by this player is removed
+	 * from the hidden cards instead.
 	 *
 	 * @param cards
 	 *            the list of cards to be removed from this player
 	 */
 	public void removeCards(CardList cards) {
 		for (int i = 0; i < cards.size(); i++) {
-			cardsInHand.removeCard(cards.getCard(i));
+			if (!cardsInHand.remove(cards.getCard(i))
+					&& numOfHiddenCards > 0) {
+				numOfHiddenCards--;
+			}
 		}
 	}
 
@@ -76,31 +103,43 @@ public class CardGamePlayer {
 	 * Removes all cards from this player.
 	 */
 	public void removeAllCards() {
-		cardsInHand = new CardList();
+		cardsInHand.clear();
+		numOfHiddenCards = 0;
 	}
 
 	/**
-	 * Returns the number of cards held by this player.
+	 * Returns the number of cards held by this player, including the hidden
+	 * cards.
 	 *
 	 * @return the number of cards held by this player
 	 */
 	public int getNumOfCards() {
-		return cardsInHand.size();
+		return cardsInHand.size() + numOfHiddenCards;
 	}
 
 	/**
-	 * Sorts the list of cards held by this player.
+	 * Sorts the list of cards held by this player. The cards are always kept
+	 * in Big Two order, so there is nothing left to be done.
 	 */
 	public void sortCardsInHand() {
-		cardsInHand.sort();
 	}
 
 	/**
-	 * Returns the list of cards held by this player.
+	 * Returns a list of the cards held by this player, in Big Two order.
+	 * Changing the list does not change the cards held by this player.
 	 *
 	 * @return the list of cards held by this player
 	 */
 	public CardList getCardsInHand() {
+		return cardsInHand.toCardList();
+	}
+
+	/**
+	 * Returns the set of cards held by this player.
+	 *
+	 * @return the set of cards held by this player
+	 */
+	public CardSet getCardSet() {
 		return cardsInHand;
 	}
 
@@ -119,8 +158,9 @@ public class CardGamePlayer {
 
 		CardList cards = new CardList();
 		for (int idx : cardIdx) {
-			if (idx >= 0 && idx < cardsInHand.size()) {
-				cards.addCard(cardsInHand.getCard(idx));
+			Card card = cardsInHand.getCard(idx);
+			if (card != null) {
+				cards.addCard(card);
 			}
 		}
 
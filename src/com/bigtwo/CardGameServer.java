@@ -1,11 +1,28 @@
 package com.bigtwo;
 
+import com.bigtwo.History.EventLog;
+import com.bigtwo.History.GameArchive;
+import com.bigtwo.History.GameEvent;
+
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.security.SecureRandom;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -22,26 +39,65 @@ import javax.swing.ScrollPaneConstants;
  *
  */
 public class CardGameServer {
+	/**
+	 * Overflow policy under which chat messages arriving for a client whose
+	 * outgoing queue is full are dropped, and the client is disconnected if
+	 * its queue overflows with game messages.
+	 */
+	public static final int OVERFLOW_DROP_CHAT = 0;
+	/**
+	 * Overflow policy under which a client whose outgoing queue overflows is
+	 * disconnected.
+	 */
+	public static final int OVERFLOW_DISCONNECT = 1;
+	/**
+	 * Overflow policy under which the sender waits for room in the outgoing
+	 * queue of the client, holding up the table of the client meanwhile. This
+	 * only applies to a server with a thread per client, whose writers take no
+	 * locks. With event loops, the loop writing out the queue needs the table
+	 * and server locks which the sender holds, and would deadlock with it; the
+	 * client is disconnected instead, as with OVERFLOW_DISCONNECT.
+	 */
+	public static final int OVERFLOW_BLOCK = 2;
+	/**
+	 * The default maximum number of messages waiting to be written to a client.
+	 */
+	public static final int DEFAULT_MAX_QUEUE_LENGTH = 256;
+
 	// The name of this card game server
 	private String serverName;
 	// The maximum number of players in a card game
 	private final int maxNumOfPlayers;
-	// Array for holding sockets of the clients
-	private Socket[] clientSockets;
-	// Array for holding ObjectOutputStreams of the clients
-	private ObjectOutputStream[] clientOutputStreams;
-	// Array for holding player names of the clients
-	private String[] clientNames;
-	// Array for holding ready states of the clients
-	private boolean[] clientReadyStates;
-	// number of current players
-	private int numOfPlayers = 0;
+	// The maximum number of tables hosted by this server
+	private final int maxNumOfTables;
+	// List of the tables opened by this server
+	private final ArrayList<ServerTable> tables = new ArrayList<ServerTable>();
 	// the main frame of the server
 	private JFrame frame = null;
 	// text area for displaying server states
 	private JTextArea textArea = null;
 	// a boolean indicating if the server is up
-	private boolean serverUp = false;
+	private volatile boolean serverUp = false;
+	// number of event loops serving the clients, or 0 for a thread per client
+	private final int numOfEventLoops;
+	// counter of the outgoing traffic
+	private final TrafficCounter trafficCounter = new TrafficCounter();
+	// the maximum number of messages waiting to be written to a client
+	private volatile int maxQueueLength = DEFAULT_MAX_QUEUE_LENGTH;
+	// the overflow policy of the outgoing queues
+	private volatile int overflowPolicy = OVERFLOW_DROP_CHAT;
+	// a boolean indicating if each client only receives its own hand
+	private volatile boolean perSeatDealing = true;
+	// the generator from which each new table splits its generator of seeds
+	private SplittableRandom tableSeeds = new SplittableRandom();
+	// the log to which the events of the tables are appended, or null
+	private volatile EventLog eventLog = null;
+	// the thread adding the games to the archive as they finish, or null
+	private volatile Archiver archiver = null;
+	// a boolean indicating if some tables have been restored after a restart
+	private volatile boolean tablesRestored = false;
+	// the generator of the resume tokens of the players
+	private final SecureRandom resumeTokens = new SecureRandom();
 
 	/**
 	 * Creates and returns an instance of the com.bigtwo.BigTwoServer class.
@@ -52,15 +108,30 @@ public class CardGameServer {
 	 *            the maximum number of players in a card game
 	 */
 	public CardGameServer(String serverName, int maxNumOfPlayers) {
+		this(serverName, maxNumOfPlayers, 0, 1);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.BigTwoServer class.
+	 *
+	 * @param serverName
+	 *            the name of this card game server
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players in a card game
+	 * @param numOfEventLoops
+	 *            the number of event loop threads serving the clients through
+	 *            non-blocking channels, or 0 to serve each client by a thread
+	 *            of its own
+	 * @param maxNumOfTables
+	 *            the maximum number of tables, each seating maxNumOfPlayers
+	 *            players, hosted by this server
+	 */
+	public CardGameServer(String serverName, int maxNumOfPlayers,
+			int numOfEventLoops, int maxNumOfTables) {
 		this.serverName = serverName;
 		this.maxNumOfPlayers = maxNumOfPlayers;
-
-		// creates arrays for holding client sockets, output streams, player
-		// names, and ready states
-		clientSockets = new Socket[maxNumOfPlayers];
-		clientOutputStreams = new ObjectOutputStream[maxNumOfPlayers];
-		clientNames = new String[maxNumOfPlayers];
-		clientReadyStates = new boolean[maxNumOfPlayers];
+		this.numOfEventLoops = numOfEventLoops;
+		this.maxNumOfTables = maxNumOfTables;
 
 		buildGUI();
 	}
@@ -84,10 +155,16 @@ public class CardGameServer {
 		// build the menu bar
 		JMenuItem clearMenuItem = new JMenuItem("Clear console");
 		clearMenuItem.addActionListener(new ClearMenuItemListener());
+		JMenuItem trafficMenuItem = new JMenuItem("Show traffic");
+		trafficMenuItem.addActionListener(new TrafficMenuItemListener());
+		JMenuItem queuesMenuItem = new JMenuItem("Show queues");
+		queuesMenuItem.addActionListener(new QueuesMenuItemListener());
 		JMenuItem quitMenuItem = new JMenuItem("Quit");
 		quitMenuItem.addActionListener(new QuitMenuItemListener());
 		JMenu menu = new JMenu("Option");
 		menu.add(clearMenuItem);
+		menu.add(trafficMenuItem);
+		menu.add(queuesMenuItem);
 		menu.add(quitMenuItem);
 		JMenuBar menuBar = new JMenuBar();
 		menuBar.add(menu);
@@ -106,6 +183,10 @@ public class CardGameServer {
 	public void start(int port) {
 		// start the server
 		try {
+			if (numOfEventLoops > 0) {
+				startEventLoops(port);
+				return;
+			}
 			// creates a ServerScoket
 			ServerSocket serverSocket = new ServerSocket(port);
 			println("Starts up the server at localhost:"
@@ -114,7 +195,7 @@ public class CardGameServer {
 			while (serverUp) {
 				// waits for clients to connect
 				Socket clientSocket = serverSocket.accept();
-				addConnection(clientSocket);
+				startClientHandler(clientSocket, null);
 			} // while
 			serverSocket.close();
 		} catch (Exception ex) {
@@ -124,67 +205,415 @@ public class CardGameServer {
 	} // start
 
 	/**
-	 * Parses the incoming message from the specified client.
+	 * Starts the server at the specified port in non-blocking mode, where a
+	 * fixed number of event loops serve all the clients.
+	 *
+	 * @param port
+	 *            the specified port at which the server starts
+	 * @throws Exception
+	 *             if the server cannot be started
+	 */
+	private void startEventLoops(int port) throws Exception {
+		// creates a ServerSocketChannel
+		ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port));
+		println("Starts up the server at localhost:"
+				+ serverChannel.socket().getLocalPort() + " with "
+				+ numOfEventLoops + " event loop(s)");
+		serverUp = true;
+
+		// creates the event loops
+		NioEventLoop[] eventLoops = new NioEventLoop[numOfEventLoops];
+		for (int i = 0; i < numOfEventLoops; i++) {
+			eventLoops[i] = new NioEventLoop(this);
+			Thread t = new Thread(eventLoops[i], serverName + " event loop "
+					+ i);
+			t.start();
+		}
+
+		int next = 0;
+		while (serverUp) {
+			// waits for clients to connect and spreads them over the loops
+			SocketChannel clientChannel = serverChannel.accept();
+			clientChannel.configureBlocking(false);
+			clientChannel.socket().setTcpNoDelay(true);
+			eventLoops[next].register(clientChannel);
+			next = (next + 1) % numOfEventLoops;
+		} // while
+		serverChannel.close();
+	} // startEventLoops
+
+	/**
+	 * Creates a thread for receiving messages from a client over a blocking
+	 * socket.
 	 *
 	 * @param clientSocket
-	 *            the socket connection to the specified client
+	 *            the socket connection to the client
+	 * @param prefix
+	 *            bytes already read from the client, or null if none
+	 * @throws IOException
+	 *             if the input stream of the socket cannot be obtained
+	 */
+	void startClientHandler(Socket clientSocket, byte[] prefix)
+			throws IOException {
+		InputStream istream = clientSocket.getInputStream();
+		if (prefix != null && prefix.length > 0) {
+			istream = new SequenceInputStream(new ByteArrayInputStream(prefix),
+					istream);
+		}
+		Thread t = new Thread(new ClientHandler(clientSocket, istream));
+		t.start();
+	}
+
+	/**
+	 * Returns the counter of the outgoing traffic of this server.
+	 *
+	 * @return the counter of the outgoing traffic
+	 */
+	public TrafficCounter getTrafficCounter() {
+		return trafficCounter;
+	}
+
+	/**
+	 * Sets the size and overflow policy of the outgoing queue of each client.
+	 * Applies to the clients connecting afterwards.
+	 *
+	 * @param maxQueueLength
+	 *            the maximum number of messages waiting to be written to a
+	 *            client
+	 * @param overflowPolicy
+	 *            what to do with a message arriving when the queue is full:
+	 *            OVERFLOW_DROP_CHAT, OVERFLOW_DISCONNECT or OVERFLOW_BLOCK
+	 */
+	public void setOutgoingQueue(int maxQueueLength, int overflowPolicy) {
+		this.maxQueueLength = maxQueueLength;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Returns the maximum number of messages waiting to be written to a client.
+	 *
+	 * @return the maximum length of an outgoing queue
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	/**
+	 * Returns the overflow policy of the outgoing queues.
+	 *
+	 * @return OVERFLOW_DROP_CHAT, OVERFLOW_DISCONNECT or OVERFLOW_BLOCK
+	 */
+	public int getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Sets whether the server deals the cards itself and sends each client
+	 * only its own hand, rather than broadcasting the whole shuffled deck.
+	 * Per-seat dealing requires a server which knows the rules of the game
+	 * (see createGame()), and clients speaking the legacy protocol still
+	 * receive the whole deck.
+	 *
+	 * @param perSeatDealing
+	 *            true to send each client only its own hand; false to
+	 *            broadcast the whole deck
+	 */
+	public void setPerSeatDealing(boolean perSeatDealing) {
+		this.perSeatDealing = perSeatDealing;
+	}
+
+	/**
+	 * Returns true if the server sends each client only its own hand.
+	 *
+	 * @return true if the cards are dealt per seat
+	 */
+	public boolean isPerSeatDealing() {
+		return perSeatDealing;
+	}
+
+	/**
+	 * Sets the log to which the events of every table are appended: the
+	 * seeds of the deals, the moves, the players joining, leaving and getting
+	 * ready, and the chat messages. Appending never waits for the disk, so the
+	 * log does not slow down the broadcasting of the messages.
+	 *
+	 * @param eventLog
+	 *            the event log, or null to stop logging
+	 */
+	public void setEventLog(EventLog eventLog) {
+		this.eventLog = eventLog;
+	}
+
+	/**
+	 * Returns the log to which the events of the tables are appended.
+	 *
+	 * @return the event log, or null if the events are not logged
+	 */
+	public EventLog getEventLog() {
+		return eventLog;
+	}
+
+	/**
+	 * Sets the archive to which every game is added, and indexed, as soon as
+	 * it finishes. The ID of a game is the sequence number of its deal in the
+	 * event log, or 0 if the events are not logged. The events are passed on
+	 * to the archive by a thread of its own, so the tables never wait for the
+	 * archive. This method returns once the events already passed on to the
+	 * previous archive, if any, have been added to it.
+	 *
+	 * @param gameArchive
+	 *            the game archive, or null to stop archiving
+	 */
+	public synchronized void setGameArchive(GameArchive gameArchive) {
+		Archiver previous = archiver;
+		archiver = gameArchive == null ? null : new Archiver(gameArchive);
+		if (previous != null) {
+			previous.finish();
+		}
+		if (archiver != null) {
+			Thread t = new Thread(archiver, "Archiver");
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	/**
+	 * Returns the archive to which the games are added.
+	 *
+	 * @return the game archive, or null if the games are not archived
+	 */
+	public GameArchive getGameArchive() {
+		Archiver a = archiver;
+		return a == null ? null : a.archive;
+	}
+
+	/**
+	 * Passes the specified event on to the thread of the game archive, if any.
+	 *
+	 * @param event
+	 *            the event to be archived
+	 */
+	void archiveEvent(GameEvent event) {
+		Archiver a = archiver;
+		if (a != null) {
+			a.events.add(event);
+		}
+	}
+
+	/**
+	 * Sets the seed from which the tables opened from now on draw the seeds of
+	 * their deals, so the same sequence of deals can be played again.
+	 *
+	 * @param seed
+	 *            the seed of the server
+	 */
+	public synchronized void setSeed(long seed) {
+		tableSeeds = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Returns the seed with which the deck of the current (or last) game at
+	 * the specified table was shuffled. createDeck(seed) deals the same deck
+	 * again.
+	 *
+	 * @param tableID
+	 *            the ID (index) of the table
+	 * @return the seed of the game at the table
+	 */
+	public synchronized long getSeed(int tableID) {
+		ServerTable table = tables.get(tableID);
+		synchronized (table) {
+			return table.getSeed();
+		}
+	}
+
+	/**
+	 * Returns the number of messages waiting to be written to each client at
+	 * the specified table.
+	 *
+	 * @param tableID
+	 *            the ID (index) of the table
+	 * @return an array holding the depth of the outgoing queue of each seat
+	 *         (-1 for an empty seat)
+	 */
+	public synchronized int[] getQueueDepths(int tableID) {
+		ServerTable table = tables.get(tableID);
+		synchronized (table) {
+			int[] depths = new int[table.getMaxNumOfPlayers()];
+			for (int i = 0; i < depths.length; i++) {
+				ClientConnection connection = table.getConnection(i);
+				depths[i] = connection == null ? -1 : connection
+						.getQueueDepth();
+			}
+			return depths;
+		}
+	}
+
+	/**
+	 * Returns the number of tables opened by this server.
+	 *
+	 * @return the number of tables
+	 */
+	public synchronized int getNumOfTables() {
+		return tables.size();
+	}
+
+	/**
+	 * Returns the tables opened by this server.
+	 *
+	 * @return a copy of the list of the tables
+	 */
+	synchronized ArrayList<ServerTable> getTables() {
+		return new ArrayList<ServerTable>(tables);
+	}
+
+	/**
+	 * Returns the table with the specified ID, opening it, and any table
+	 * before it, if needed. Used to restore the tables after a restart, before
+	 * the server is started.
+	 *
+	 * @param tableID
+	 *            the ID (index) of the table
+	 * @return the table, or null if the ID is beyond the maximum number of
+	 *         tables
+	 */
+	synchronized ServerTable openTable(int tableID) {
+		if (tableID < 0 || tableID >= maxNumOfTables) {
+			return null;
+		}
+		while (tables.size() <= tableID) {
+			ServerTable table = new ServerTable(tables.size(),
+					maxNumOfPlayers, tableSeeds.split());
+			tables.add(table);
+			println("Opens " + table);
+		}
+		return tables.get(tableID);
+	}
+
+	/**
+	 * Records that some tables have been restored, so that their players are
+	 * seated back in their seats as they join again.
+	 */
+	void setTablesRestored() {
+		tablesRestored = true;
+	}
+
+	/**
+	 * Returns true if the server is up.
+	 *
+	 * @return true if the server is up; false otherwise
+	 */
+	boolean isServerUp() {
+		return serverUp;
+	}
+
+	/**
+	 * Parses the incoming message from the specified client.
+	 *
+	 * @param connection
+	 *            the connection to the specified client
 	 * @param message
 	 *            the message received from the specified client
 	 */
-	private synchronized void parseMessage(Socket clientSocket,
-			CardGameMessage message) {
-		// updates the playerID
-		for (int i = 0; i < maxNumOfPlayers; i++) {
-			if (clientSockets[i] == clientSocket) {
-				message.setPlayerID(i);
-				break;
-			}
+	void parseMessage(ClientConnection connection, CardGameMessage message) {
+		// a player coming back to a restored table takes its seat there
+		boolean resuming = message.getType() == CardGameMessage.RESUME;
+		String[] resumeData = resuming ? (String[]) message.getData() : null;
+		if ((resuming || message.getType() == CardGameMessage.JOIN)
+				&& tablesRestored && !connection.isLegacy()
+				&& resumePlayer(connection, parseResumeToken(resumeData))) {
+			return;
+		}
+		if (resuming) {
+			// no seat is kept for the token, so the player joins as usual
+			message = new CardGameMessage(CardGameMessage.JOIN, -1,
+					resumeData != null && resumeData.length > 0 ? resumeData[0]
+							: null);
 		}
 
-		// parses the message based on it type
-		switch (message.getType()) {
-		case CardGameMessage.JOIN:
-			// adds a player to the game
-			addPlayer(clientSocket, (String) message.getData());
-			break;
-		case CardGameMessage.READY:
-			// marks the specified player as ready for a new game
-			setReadyState(clientSocket);
-			break;
-		case CardGameMessage.MOVE:
-			println("Broadcasts a \"MOVE\" message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the MOVE message to all clients
-			broadcastMessage(message);
-			break;
-		case CardGameMessage.MSG:
-			println("Broadcasts a user message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the user message to all clients
-			broadcastUserMessage(clientSocket, (String) message.getData());
-			break;
-		default:
-			println("Wrong message type: " + message.getType());
-			// invalid message
-			break;
+		ServerTable table = connection.getTable();
+		if (table == null) {
+			// ignores messages from a client which is not seated
+			return;
+		}
+
+		synchronized (table) {
+			// updates the playerID
+			int seat = connection.getSeat();
+			if (seat < 0) {
+				return;
+			}
+			message.setPlayerID(seat);
+
+			// parses the message based on it type
+			switch (message.getType()) {
+			case CardGameMessage.JOIN:
+				// adds a player to the game
+				addPlayer(table, seat, (String) message.getData());
+				break;
+			case CardGameMessage.READY:
+				// marks the specified player as ready for a new game
+				setReadyState(table, seat);
+				break;
+			case CardGameMessage.MOVE:
+				// plays the move made by the specified player
+				playMove(table, seat, message);
+				break;
+			case CardGameMessage.MSG:
+				println("Broadcasts a user message from "
+						+ connection.getRemoteSocketAddress() + " at " + table);
+				// broadcast the user message to all clients
+				broadcastUserMessage(table, seat, (String) message.getData());
+				break;
+			default:
+				println("Wrong message type: " + message.getType());
+				// invalid message
+				break;
+			}
 		}
 	} // parseMessage
 
 	/**
-	 * Broadcasts the specified message to all clients.
+	 * Broadcasts the specified message to all clients at the specified table.
+	 * The message is encoded once and the same bytes are sent to every client.
+	 * The caller must hold the lock of the table.
 	 *
+	 * @param table
+	 *            the table whose clients receive the message
 	 * @param message
 	 *            the specified message to be broadcast to all clients
 	 */
-	private synchronized void broadcastMessage(CardGameMessage message) {
-		if (numOfPlayers > 0) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] != null && clientOutputStreams[i] != null) {
+	void broadcastMessage(ServerTable table, CardGameMessage message) {
+		broadcastMessage(table, message, message);
+	}
+
+	/**
+	 * Broadcasts the specified message to all clients at the specified table,
+	 * and another message to the clients speaking the legacy protocol, which
+	 * do not understand the former. The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table whose clients receive the message
+	 * @param message
+	 *            the specified message to be broadcast to all clients
+	 * @param legacyMessage
+	 *            the message broadcast instead to legacy clients
+	 */
+	void broadcastMessage(ServerTable table, CardGameMessage message,
+			CardGameMessage legacyMessage) {
+		if (table.getNumOfPlayers() > 0) {
+			OutboundMessage outbound = new OutboundMessage(message,
+					legacyMessage, trafficCounter);
+			for (int i = 0; i < table.getMaxNumOfPlayers(); i++) {
+				ClientConnection connection = table.getConnection(i);
+				// a closed client is about to leave the table
+				if (connection != null && !connection.isClosed()) {
 					try {
-						clientOutputStreams[i].writeObject(message);
+						connection.send(outbound);
 					} catch (Exception ex) {
 						println("Error in broadcasting a message to the client at "
-								+ clientSockets[i].getRemoteSocketAddress());
+								+ connection.getRemoteSocketAddress());
 						ex.printStackTrace();
 					}
 				}
@@ -193,167 +622,413 @@ public class CardGameServer {
 	} // broadcastMessage
 
 	/**
-	 * Adds a new socket connection to the server
+	 * Sends the specified message to the client in the specified seat, and
+	 * another message if the client speaks the legacy protocol. The caller must
+	 * hold the lock of the table.
 	 *
-	 * @param clientSocket
-	 *            the socket connection to be added to the server
+	 * @param table
+	 *            the table of the client
+	 * @param i
+	 *            the seat of the client
+	 * @param message
+	 *            the message to be sent to the client
+	 * @param legacyMessage
+	 *            the message sent instead to a legacy client
+	 */
+	void sendMessage(ServerTable table, int i, CardGameMessage message,
+			CardGameMessage legacyMessage) {
+		ClientConnection connection = table.getConnection(i);
+		if (connection != null && !connection.isClosed()) {
+			try {
+				connection.send(new OutboundMessage(message, legacyMessage,
+						trafficCounter));
+			} catch (Exception ex) {
+				println("Error in sending a message to the client at "
+						+ connection.getRemoteSocketAddress());
+				ex.printStackTrace();
+			}
+		}
+	} // sendMessage
+
+	/**
+	 * Adds a new connection to the server, seating it at the first table with
+	 * an empty seat. A new table is opened if all the tables are full.
+	 *
+	 * @param connection
+	 *            the connection to be added to the server
+	 * @return true if the connection is added; false if the server is full
 	 */
-	private synchronized void addConnection(Socket clientSocket) {
+	synchronized boolean addConnection(ClientConnection connection) {
+		// locates the first table with an empty seat for the new connection
+		ServerTable table = null;
+		for (int i = 0; i < tables.size() && table == null; i++) {
+			synchronized (tables.get(i)) {
+				if (!tables.get(i).isFull()) {
+					table = tables.get(i);
+				}
+			}
+		}
+		if (table == null && tables.size() < maxNumOfTables) {
+			table = new ServerTable(tables.size(), maxNumOfPlayers,
+					tableSeeds.split());
+			tables.add(table);
+			println("Opens " + table);
+		}
+
 		// adds this connection to the server if the server is not full
-		if (numOfPlayers < maxNumOfPlayers) {
-			// locates the first empty slot for the new connection
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == null) {
-					try {
-						// creates an ObjectOutputStream for this client socket
-						ObjectOutputStream oostream = new ObjectOutputStream(
-								clientSocket.getOutputStream());
-
-						clientSockets[i] = clientSocket;
-						clientOutputStreams[i] = oostream;
-						clientNames[i] = null;
-						clientReadyStates[i] = false;
-						numOfPlayers++;
-						println("Establishes a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-
-						// creates a thread for receiving messages from this
-						// client
-						Thread t = new Thread(new ClientHandler(clientSocket));
-						t.start();
-
-						// sends the player list to the new player
-						oostream.writeObject(new CardGameMessage(
-								CardGameMessage.PLAYER_LIST, i, clientNames));
-					} catch (Exception ex) {
-						println("Error in establishing a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-						ex.printStackTrace();
-					}
-					break;
+		if (table != null) {
+			synchronized (table) {
+				int i = table.seat(connection);
+				try {
+					println("Establishes a connection with a client at "
+							+ connection.getRemoteSocketAddress() + " at "
+							+ table);
+
+					// sends the player list to the new player
+					connection.send(new OutboundMessage(new CardGameMessage(
+							CardGameMessage.PLAYER_LIST, i, table
+									.getClientNames()), trafficCounter));
+				} catch (Exception ex) {
+					println("Error in establishing a connection with a client at "
+							+ connection.getRemoteSocketAddress());
+					ex.printStackTrace();
 				}
-			} // for
+			}
+			return true;
+		} else if (tablesRestored && !connection.isLegacy()) {
+			// the client may be a player coming back to a restored table, so
+			// it waits without a seat for its JOIN message
+			println("Waits for a client at "
+					+ connection.getRemoteSocketAddress()
+					+ " to join a restored table");
+			try {
+				connection.send(new OutboundMessage(new CardGameMessage(
+						CardGameMessage.PLAYER_LIST, -1,
+						new String[maxNumOfPlayers]), trafficCounter));
+			} catch (Exception ex) {
+				println("Error in establishing a connection with a client at "
+						+ connection.getRemoteSocketAddress());
+				ex.printStackTrace();
+			}
+			return true;
 		} else {
-			// Max. no. of players reached
-			println("Server is full: cannot establish a connection with a client at "
-					+ clientSocket.getRemoteSocketAddress());
-
-			// creates a thread for sending a FULL message to this client, waits
-			// for 1000 milliseconds and closes the socket
-			Thread t = new Thread(new ClientHandler2(clientSocket));
-			t.start();
+			rejectConnection(connection);
+			return false;
 		}
 
 	} // addConnection
 
 	/**
-	 * Removes a connection from the server (possibly due to connection loss).
+	 * Sends a FULL message to a connection which cannot be seated, and closes
+	 * it.
 	 *
-	 * @param clientSocket
-	 *            the socket connection being removed from the server
-	 */
-	private synchronized void removeConnection(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String name = clientNames[i];
-
-					clientSockets[i] = null;
-					clientOutputStreams[i] = null;
-					clientNames[i] = null;
-					clientReadyStates[i] = false;
-					numOfPlayers--;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") leaves the game.");
-
-					String remoteAddress = clientSocket
-							.getRemoteSocketAddress().toString();
-
-					// broadcasts a message about the leaving of this player
-					broadcastMessage(new CardGameMessage(CardGameMessage.QUIT,
-							i, remoteAddress));
-					break;
-				}
-			}
+	 * @param connection
+	 *            the connection rejected by the server
+	 */
+	private void rejectConnection(ClientConnection connection) {
+		// Max. no. of tables and players reached
+		println("Server is full: cannot establish a connection with a client at "
+				+ connection.getRemoteSocketAddress());
+
+		// creates a thread for sending a FULL message to this client, waits
+		// for 1000 milliseconds and closes the socket
+		Thread t = new Thread(new ClientHandler2(connection));
+		t.start();
+	}
+
+	/**
+	 * Returns the resume token in the data of a RESUME message.
+	 *
+	 * @param data
+	 *            the name and the resume token sent by the client, or null
+	 * @return the resume token, or 0 if there is none
+	 */
+	private static long parseResumeToken(String[] data) {
+		if (data == null || data.length < 2 || data[1] == null) {
+			return 0L;
 		}
-	} // removeConnection
+		try {
+			return Long.parseUnsignedLong(data[1], 16);
+		} catch (NumberFormatException ex) {
+			return 0L;
+		}
+	}
 
 	/**
-	 * adds a player to the game.
+	 * Seats a player joining the server back in the seat kept for them at a
+	 * restored table, if they present the resume token of the seat. The
+	 * connection, seated at first like any other, leaves its seat, which has
+	 * no player yet, and takes the kept seat; the game in progress there is
+	 * then resumed by resumeGame(). The locks of the two tables are never held
+	 * together. If the seat stops being kept in the meantime, the connection
+	 * is seated again like a new one. A connection waiting without a seat, as
+	 * the server was full, is rejected if no seat is kept for the token.
 	 *
-	 * @param clientSocket
-	 *            the socket connection to the player who is joining the game
-	 * @param name
-	 *            the name of the player who is joining the game
+	 * @param connection
+	 *            the connection of the player
+	 * @param token
+	 *            the resume token presented by the player, or 0 if none
+	 * @return true if the player has been seated back or rejected; false if
+	 *         the message must be parsed as a JOIN message
 	 */
-	private synchronized void addPlayer(Socket clientSocket, String name) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					// updates the name of the new player
-					clientNames[i] = name;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") joins the game.");
-
-					// broadcasts a message about this player joining the game
-					broadcastMessage(new CardGameMessage(CardGameMessage.JOIN,
-							i, name));
-					break;
+	private synchronized boolean resumePlayer(ClientConnection connection,
+			long token) {
+		ServerTable oldTable = connection.getTable();
+		if (connection.isClosed()) {
+			return false;
+		}
+
+		// locates the seat kept for this player
+		ServerTable table = null;
+		int j = -1;
+		for (int k = 0; token != 0L && k < tables.size() && table == null;
+				k++) {
+			synchronized (tables.get(k)) {
+				for (int i = 0; i < maxNumOfPlayers; i++) {
+					if (tables.get(k).getReservedToken(i) == token
+							&& tables.get(k).getConnection(i) == null) {
+						table = tables.get(k);
+						j = i;
+						break;
+					}
 				}
 			}
 		}
-	} // addPlayer
+		if (table == null) {
+			if (oldTable == null) {
+				rejectConnection(connection);
+				return true;
+			}
+			return false;
+		}
 
-	/**
-	 * Marks the specified player as ready for a new game.
-	 *
-	 * @param clientSocket
-	 *            the socket connection to the player who becomes ready for a
-	 *            new game
-	 */
-	private synchronized void setReadyState(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					clientReadyStates[i] = true;
-					println(clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress()
-							+ " ) is ready for the next game.");
-					broadcastMessage(new CardGameMessage(CardGameMessage.READY,
-							i, null));
-					break;
+		// leaves the seat taken on connecting, unless the player has joined
+		if (oldTable != null) {
+			synchronized (oldTable) {
+				int i = connection.getSeat();
+				if (i < 0 || connection.getTable() != oldTable
+						|| oldTable.getClientName(i) != null) {
+					return false;
 				}
+				oldTable.unseat(i);
 			}
 		}
 
-		// checks if all players are ready
-		if (numOfPlayers == maxNumOfPlayers) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientReadyStates[i] == false) {
-					// returns if any of the players is not ready
-					return;
+		synchronized (table) {
+			if (table.getReservedToken(j) == token
+					&& table.getConnection(j) == null) {
+				String name = table.getReservedName(j);
+				table.seatAt(j, connection);
+				println("Seats " + name + " ("
+						+ connection.getRemoteSocketAddress() + ") back at "
+						+ table + ".");
+				try {
+					// sends the player list of the restored table
+					connection.send(new OutboundMessage(new CardGameMessage(
+							CardGameMessage.PLAYER_LIST, j, table
+									.getClientNames()), trafficCounter));
+				} catch (Exception ex) {
+					println("Error in seating a client at "
+							+ connection.getRemoteSocketAddress());
+					ex.printStackTrace();
 				}
+				addPlayer(table, j, name);
+				resumeGame(table, j);
+				return true;
 			}
+		}
 
-			// resets the ready states of all the players for the next game
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				clientReadyStates[i] = false;
+		// the game has ended meanwhile, so the player joins like a new one
+		if (addConnection(connection) && connection.getTable() == null) {
+			rejectConnection(connection);
+		}
+		return connection.getTable() == null;
+	}
+
+	/**
+	 * Resumes the restored game at the specified table for a player seated
+	 * back there, by sending them the state of the game. Overrides this method
+	 * if the server restores games; by default nothing is sent. The caller
+	 * must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the restored table
+	 * @param i
+	 *            the seat of the player
+	 */
+	void resumeGame(ServerTable table, int i) {
+	}
+
+	/**
+	 * Removes a connection from the server (possibly due to connection loss).
+	 *
+	 * @param connection
+	 *            the connection being removed from the server
+	 */
+	synchronized void removeConnection(ClientConnection connection) {
+		connection.close();
+		ServerTable table = connection.getTable();
+		if (table == null) {
+			return;
+		}
+
+		synchronized (table) {
+			int i = connection.getSeat();
+			if (i < 0) {
+				return;
 			}
+			String name = table.getClientName(i);
+			table.unseat(i);
+			logEvent(table, GameEvent.QUIT, i, 0L, name);
+
+			println(name + " (" + connection.getRemoteSocketAddress()
+					+ ") leaves " + table + ".");
+
+			// a bot may finish the game in place of this player
+			if (fillSeat(table, i, name)) {
+				return;
+			}
+
+			String remoteAddress = connection.getRemoteSocketAddress()
+					.toString();
+
+			// broadcasts a message about the leaving of this player
+			broadcastMessage(table, new CardGameMessage(CardGameMessage.QUIT,
+					i, remoteAddress));
+		}
+	} // removeConnection
+
+	/**
+	 * Seats a bot in place of a player who has left the specified table in
+	 * the middle of a game, so that the other players can finish the game. The
+	 * seat has already been emptied, and the bot announces itself by a JOIN
+	 * message instead of the QUIT message about the player. Overrides this
+	 * method if the server can fill a seat; by default the game is abandoned.
+	 * The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table which the player has left
+	 * @param i
+	 *            the seat of the player who has left
+	 * @param name
+	 *            the name of the player who has left
+	 * @return true if a bot has taken the seat; false if the QUIT message must
+	 *         be broadcast
+	 */
+	boolean fillSeat(ServerTable table, int i, String name) {
+		return false;
+	}
+
+	/**
+	 * adds a player to the game. The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table of the player who is joining the game
+	 * @param i
+	 *            the seat of the player who is joining the game
+	 * @param name
+	 *            the name of the player who is joining the game
+	 */
+	private void addPlayer(ServerTable table, int i, String name) {
+		// updates the name of the new player, and issues the token with which
+		// the player takes the seat back after a restart
+		long token = 0L;
+		if (!table.getConnection(i).isLegacy()) {
+			do {
+				token = resumeTokens.nextLong();
+			} while (token == 0L);
+		}
+		table.setClientName(i, name);
+		table.setResumeToken(i, token);
+		logEvent(table, GameEvent.JOIN, i, token, name);
+
+		println(name + " (" + table.getConnection(i).getRemoteSocketAddress()
+				+ ") joins " + table + ".");
+
+		// broadcasts a message about this player joining the game
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.JOIN, i,
+				name));
+		if (token != 0L) {
+			CardGameMessage resume = new CardGameMessage(
+					CardGameMessage.RESUME, i, new String[] { name,
+							Long.toHexString(token) });
+			sendMessage(table, i, resume, resume);
+		}
+	} // addPlayer
+
+	/**
+	 * Marks the specified player as ready for a new game. The caller must hold
+	 * the lock of the table.
+	 *
+	 * @param table
+	 *            the table of the player who becomes ready for a new game
+	 * @param i
+	 *            the seat of the player who becomes ready for a new game
+	 */
+	private void setReadyState(ServerTable table, int i) {
+		table.setReady(i);
+		logEvent(table, GameEvent.READY, i, 0L, null);
+		println(table.getClientName(i) + " ("
+				+ table.getConnection(i).getRemoteSocketAddress()
+				+ " ) is ready for the next game.");
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.READY, i,
+				null));
+
+		// checks if all players are ready, unless a restored game goes on
+		if (table.isAllReady() && !table.isRestored()) {
+			// resets the ready states of all the players for the next game
+			table.resetReadyStates();
 
 			// creates a new deck, shuffles the deck, and starts a new game
-			Deck deck = createDeck();
-			deck.shuffle();
-			println("All players are ready. Game starts.");
-			broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
-					deck));
+			long seed = table.nextSeed();
+			Deck deck = createDeck(seed);
+			table.setSeed(seed);
+			table.setDeck(deck);
+			logEvent(table, GameEvent.DEAL, -1, seed, null);
+			CardGame game = createGame();
+			if (game != null) {
+				game.start(deck);
+			}
+			table.setGame(game);
+			println("All players are ready. Game starts at " + table
+					+ " (seed " + seed + ").");
+			CardGameMessage startMessage = new CardGameMessage(
+					CardGameMessage.START, -1, deck);
+			if (game != null && perSeatDealing) {
+				// sends each client its own hand and the first player
+				for (int j = 0; j < table.getMaxNumOfPlayers(); j++) {
+					CardList hand = game.getPlayerList().get(j).getCardsInHand();
+					sendMessage(table, j, new CardGameMessage(
+							CardGameMessage.DEAL, game.getCurrentIdx(), hand),
+							startMessage);
+				}
+			} else {
+				broadcastMessage(table, startMessage);
+			}
 		}
 	}
 
+	/**
+	 * Plays the move made by the specified player. The MOVE message is
+	 * broadcast to all clients as received, and every client checks the move
+	 * by itself. Overrides this method if the server validates the moves. The
+	 * caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table of the player who makes the move
+	 * @param i
+	 *            the seat of the player who makes the move
+	 * @param message
+	 *            the MOVE message received from the player
+	 */
+	void playMove(ServerTable table, int i, CardGameMessage message) {
+		println("Broadcasts a \"MOVE\" message from "
+				+ table.getConnection(i).getRemoteSocketAddress() + " at "
+				+ table);
+		// broadcast the MOVE message to all clients
+		broadcastMessage(table, message);
+	}
+
 	/**
 	 * Creates and returns an instance of the com.bigtwo.Deck class. Overrides this method
 	 * if a different type of deck is needed.
@@ -364,20 +1039,70 @@ public class CardGameServer {
 		return new Deck();
 	}
 
-	private synchronized void broadcastUserMessage(Socket clientSocket,
-			String msg) {
-		if (numOfPlayers > 0) {
-			// locates the client in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String longMsg = clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress() + "): "
-							+ msg;
-					broadcastMessage(new CardGameMessage(CardGameMessage.MSG,
-							i, longMsg));
-					break;
-				}
-			}
+	/**
+	 * Creates a deck by createDeck(), and shuffles it with a generator of the
+	 * specified seed. The same seed always gives the same deck, so any deal
+	 * can be reproduced from its seed.
+	 *
+	 * @param seed
+	 *            the seed of the deal
+	 * @return the shuffled deck
+	 */
+	public Deck createDeck(long seed) {
+		Deck deck = createDeck();
+		deck.shuffle(new SplittableRandom(seed));
+		return deck;
+	}
+
+	/**
+	 * Creates and returns the game which validates the moves made at a table,
+	 * or null if the moves are not validated by the server. Overrides this
+	 * method if the server knows the rules of the game.
+	 *
+	 * @return null
+	 */
+	public CardGame createGame() {
+		return null;
+	}
+
+	private void broadcastUserMessage(ServerTable table, int i, String msg) {
+		logEvent(table, GameEvent.CHAT, i, 0L, msg);
+		String longMsg = table.getClientName(i) + " ("
+				+ table.getConnection(i).getRemoteSocketAddress() + "): " + msg;
+		broadcastMessage(table, new CardGameMessage(CardGameMessage.MSG, i,
+				longMsg));
+	}
+
+	/**
+	 * Appends an event at the specified table to the event log, if any, and
+	 * queues it for the game archive, if any. The table is marked as changed
+	 * for its next snapshot. The caller must hold the lock of the table.
+	 *
+	 * @param table
+	 *            the table of the event
+	 * @param type
+	 *            the type of the event, as defined in com.bigtwo.History.GameEvent
+	 * @param i
+	 *            the seat of the event, or -1 for the whole table
+	 * @param value
+	 *            the seed or the cards of the event, or 0
+	 * @param text
+	 *            the name or the message of the event, or null
+	 */
+	void logEvent(ServerTable table, int type, int i, long value, String text) {
+		EventLog log = eventLog;
+		long sequence = 0;
+		long time = System.currentTimeMillis();
+		if (log != null) {
+			sequence = log.append(type, table.getTableID(), i, value, text);
+		}
+		table.markChanged(sequence);
+		if (type == GameEvent.DEAL) {
+			table.setGameStart(sequence, time);
+		}
+		if (archiver != null) {
+			archiveEvent(new GameEvent(sequence, time, type,
+					table.getTableID(), i, value, text));
 		}
 	}
 
@@ -386,7 +1111,7 @@ public class CardGameServer {
 	 *
 	 * @param msg
 	 */
-	private void println(String msg) {
+	void println(String msg) {
 		textArea.append(msg + "\n");
 		textArea.setCaretPosition(textArea.getDocument().getLength());
 	}
@@ -399,75 +1124,169 @@ public class CardGameServer {
 	 */
 	private class ClientHandler implements Runnable {
 		private Socket clientSocket; // socket connection to the client
-		private ObjectInputStream oistream; // ObjectInputStream of the client
+		private InputStream istream; // InputStream of the client
 
 		/**
 		 * Creates and returns an instance of the ClientHandler class.
 		 *
 		 * @param clientSocket
 		 *            the socket connection to the client
+		 * @param istream
+		 *            the InputStream from which messages of the client are read
 		 */
-		public ClientHandler(Socket clientSocket) {
+		public ClientHandler(Socket clientSocket, InputStream istream) {
 			this.clientSocket = clientSocket;
-			try {
-				// creates an ObjectInputStream and chains it to the InputStream
-				// of the client socket
-				oistream = new ObjectInputStream(clientSocket.getInputStream());
-			} catch (Exception ex) {
-				println("Error in creating an ObjectInputStream for the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
+			this.istream = istream;
 		} // constructor
 
 		// implementation of method from the Runnable interface
 		public void run() {
 			CardGameMessage message;
+			ClientConnection connection = null;
 			try {
+				// tells a legacy client from a framed client by the first byte
+				PushbackInputStream pistream = new PushbackInputStream(istream);
+				int firstByte = pistream.read();
+				if (firstByte < 0) {
+					clientSocket.close();
+					return;
+				}
+				pistream.unread(firstByte);
+				boolean legacy = WireProtocol.isLegacyStream(firstByte);
+
+				ObjectInputStream oistream = null;
+				DataInputStream distream = null;
+				int codec = WireProtocol.CODEC_SERIALIZED;
+				if (legacy) {
+					// creates an ObjectInputStream and chains it to the
+					// InputStream of the client socket
+					oistream = new ObjectInputStream(pistream);
+				} else {
+					distream = new DataInputStream(new BufferedInputStream(
+							pistream));
+					byte[] handshake = new byte[WireProtocol.HANDSHAKE_LENGTH];
+					distream.readFully(handshake);
+					codec = WireProtocol.negotiate(WireProtocol
+							.parseHandshake(handshake));
+				}
+
+				connection = new StreamClientConnection(clientSocket, legacy,
+						codec, maxQueueLength, overflowPolicy);
+				if (!addConnection(connection)) {
+					return;
+				}
+
 				// waits for messages from the client
-				while ((message = (CardGameMessage) oistream.readObject()) != null) {
+				while ((message = legacy ? (CardGameMessage) oistream
+						.readObject() : WireProtocol.readFrame(distream, codec)) != null) {
 					println("Message received from "
 							+ clientSocket.getRemoteSocketAddress());
-					parseMessage(clientSocket, message);
+					parseMessage(connection, message);
 				} // close while
 			} catch (Exception ex) {
 				println("Error in receiving messages from the client at "
 						+ clientSocket.getRemoteSocketAddress());
 				ex.printStackTrace();
 				// possible connection loss, removes the connection
-				removeConnection(clientSocket);
+				if (connection != null) {
+					removeConnection(connection);
+				} else {
+					try {
+						clientSocket.close();
+					} catch (IOException ioex) {
+						ioex.printStackTrace();
+					}
+				}
 			}
 		} // run
 	} // ClientHandler
 
+	/**
+	 * This inner class is used to add the events queued by the tables to a
+	 * game archive, until it is told to finish. The events of each table are
+	 * queued in order while its lock is held.
+	 */
+	private class Archiver implements Runnable {
+		private final GameArchive archive; // the archive of the games
+		private final LinkedBlockingQueue<GameEvent> events = new LinkedBlockingQueue<GameEvent>(); // the events to be archived
+		private final GameEvent end = new GameEvent(0L, 0L, -1, -1, -1, 0L,
+				null); // the event telling this thread to finish
+		private boolean finished = false; // a boolean indicating if the queue has been drained
+
+		/**
+		 * Creates and returns an instance of the Archiver class.
+		 *
+		 * @param archive
+		 *            the archive of the games
+		 */
+		public Archiver(GameArchive archive) {
+			this.archive = archive;
+		} // constructor
+
+		/**
+		 * Waits until the events queued so far have been archived, and stops
+		 * this thread.
+		 */
+		public synchronized void finish() {
+			events.add(end);
+			boolean interrupted = false;
+			while (!finished) {
+				try {
+					wait();
+				} catch (InterruptedException ex) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		} // finish
+
+		// implementation of method from the Runnable interface
+		public void run() {
+			try {
+				GameEvent event;
+				while ((event = events.take()) != end) {
+					try {
+						archive.record(event);
+					} catch (IOException ex) {
+						println("Cannot archive the game at table "
+								+ event.getTableID() + ": " + ex);
+					}
+				}
+			} catch (InterruptedException ex) {
+				// the server is going down
+			} finally {
+				synchronized (this) {
+					finished = true;
+					notifyAll();
+				}
+			}
+		} // run
+	} // Archiver
+
 	private class ClientHandler2 implements Runnable {
-		private Socket clientSocket; // socket connection to the client
+		private ClientConnection connection; // connection to the client
 
 		/**
 		 * Creates and returns an instance of the ClientHandler2 class.
 		 *
-		 * @param clientSocket
-		 *            the socket connection to the client
+		 * @param connection
+		 *            the connection to the client
 		 */
-		public ClientHandler2(Socket clientSocket) {
-			this.clientSocket = clientSocket;
+		public ClientHandler2(ClientConnection connection) {
+			this.connection = connection;
 		} // constructor
 
 		// implementation of method from the Runnable interface
 		public void run() {
 			try {
-				// creates an ObjectOutputStream and chains it to the
-				// OutputStream
-				// of the client socket
-				ObjectOutputStream oostream = new ObjectOutputStream(
-						clientSocket.getOutputStream());
 				// sends a FULL message to the client
-				oostream.writeObject(new CardGameMessage(CardGameMessage.FULL,
-						-1, null));
-				oostream.flush();
+				connection.send(new OutboundMessage(new CardGameMessage(
+						CardGameMessage.FULL, -1, null), trafficCounter));
 			} catch (Exception ex) {
 				println("Error in sending a FULL message to the client at "
-						+ clientSocket.getRemoteSocketAddress());
+						+ connection.getRemoteSocketAddress());
 				ex.printStackTrace();
 			}
 
@@ -476,18 +1295,12 @@ public class CardGameServer {
 				Thread.sleep(1000);
 			} catch (Exception ex) {
 				println("Error in sleeping before closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
+						+ connection.getRemoteSocketAddress());
 				ex.printStackTrace();
 			}
 
 			// closes the socket
-			try {
-				clientSocket.close();
-			} catch (Exception ex) {
-				println("Error in closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
+			connection.close();
 		} // run
 	} // ClientHandler2
 
@@ -503,6 +1316,33 @@ public class CardGameServer {
 		}
 	} // ClearMenuItemListener
 
+	/**
+	 * This inner class is used for handling the Show traffic menu
+	 *
+	 * @author Anmol Gupta
+	 *
+	 */
+	private class TrafficMenuItemListener implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			println("Traffic: " + trafficCounter);
+		}
+	} // TrafficMenuItemListener
+
+	/**
+	 * This inner class is used for handling the Show queues menu
+	 *
+	 * @author Anmol Gupta
+	 *
+	 */
+	private class QueuesMenuItemListener implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			for (int i = 0; i < getNumOfTables(); i++) {
+				println("Table " + i + " queue depths: "
+						+ java.util.Arrays.toString(getQueueDepths(i)));
+			}
+		}
+	} // QueuesMenuItemListener
+
 	/**
 	 * This inner class is used for handling the Quit menu
 	 *
@@ -0,0 +1,290 @@
+package com.bigtwo;
+
+/**
+ * This class is used to model a set of Big Two cards as a single long, in
+ * which bit i is set if the card with index i is in the set. Cards are indexed
+ * in the order of their strength in Big Two: index 0 is the 3 of Diamonds and
+ * index 51 is the 2 of Spades, with the four suits of a rank next to each
+ * other. Adding, removing and looking up a card are single bit operations,
+ * the size of a set is a population count, and the cards of a set are always
+ * visited in Big Two order. The static methods work on the bare long, so hot
+ * code can use card sets without allocating any object.
+ *
+ * @author Anmol Gupta
+ */
+public final class CardSet {
+	/**
+	 * The number of cards in a full deck.
+	 */
+	public static final int NUM_OF_CARDS = 52;
+	/**
+	 * The set holding all 52 cards.
+	 */
+	public static final long ALL_CARDS = (1L << NUM_OF_CARDS) - 1;
+
+	private long mask; // the bits of the cards in this set
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.CardSet class holding
+	 * no cards.
+	 */
+	public CardSet() {
+		this.mask = 0L;
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.CardSet class holding
+	 * the cards of the specified bits.
+	 *
+	 * @param mask
+	 *            the bits of the cards in the set
+	 */
+	public CardSet(long mask) {
+		this.mask = mask & ALL_CARDS;
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.CardSet class holding
+	 * the cards in the specified list.
+	 *
+	 * @param cards
+	 *            the list of cards to be added to the set
+	 */
+	public CardSet(CardList cards) {
+		this.mask = maskOf(cards);
+	}
+
+	/**
+	 * Returns the index of the specified card in Big Two order.
+	 *
+	 * @param card
+	 *            the card
+	 * @return an int value between 0 (3 of Diamonds) and 51 (2 of Spades)
+	 */
+	public static int indexOf(Card card) {
+		return ((card.getRank() + 11) % 13) * 4 + card.getSuit();
+	}
+
+	/**
+	 * Returns the canonical instance of the card with the specified index in
+	 * Big Two order.
+	 *
+	 * @param index
+	 *            an int value between 0 (3 of Diamonds) and 51 (2 of Spades)
+	 * @return the card with the specified index
+	 */
+	public static BigTwoCard cardAt(int index) {
+		return BigTwoCard.valueOf(index);
+	}
+
+	/**
+	 * Returns the bit of the specified card.
+	 *
+	 * @param card
+	 *            the card
+	 * @return a long with only the bit of the card set
+	 */
+	public static long bit(Card card) {
+		return 1L << indexOf(card);
+	}
+
+	/**
+	 * Returns the bits of the cards in the specified list.
+	 *
+	 * @param cards
+	 *            the list of cards
+	 * @return the bits of the cards in the list
+	 */
+	public static long maskOf(CardList cards) {
+		long mask = 0L;
+		for (int i = 0; i < cards.size(); i++) {
+			mask |= bit(cards.getCard(i));
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the index of the card at the specified position of a set, the
+	 * cards being ordered from the weakest to the strongest.
+	 *
+	 * @param mask
+	 *            the bits of the set
+	 * @param position
+	 *            the position of the card in the set
+	 * @return the index of the card, or -1 if the position is invalid
+	 */
+	public static int indexAt(long mask, int position) {
+		if (position < 0 || position >= Long.bitCount(mask)) {
+			return -1;
+		}
+		for (int i = 0; i < position; i++) {
+			mask &= mask - 1;
+		}
+		return Long.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	 * Returns the position of the card with the specified index in a set, the
+	 * cards being ordered from the weakest to the strongest.
+	 *
+	 * @param mask
+	 *            the bits of the set
+	 * @param index
+	 *            the index of the card
+	 * @return the position of the card, or -1 if it is not in the set
+	 */
+	public static int positionOf(long mask, int index) {
+		if ((mask & (1L << index)) == 0) {
+			return -1;
+		}
+		return Long.bitCount(mask & ((1L << index) - 1));
+	}
+
+	/**
+	 * Returns the index of the first card of a set at or after the specified
+	 * index. The cards of a set can be visited in Big Two order by
+	 * <code>for (int i = nextIndex(mask, 0); i >= 0; i = nextIndex(mask, i + 1))</code>.
+	 *
+	 * @param mask
+	 *            the bits of the set
+	 * @param from
+	 *            the index from which to search
+	 * @return the index of the card, or -1 if there is no such card
+	 */
+	public static int nextIndex(long mask, int from) {
+		if (from >= NUM_OF_CARDS) {
+			return -1;
+		}
+		long rest = mask & (-1L << from);
+		return rest == 0 ? -1 : Long.numberOfTrailingZeros(rest);
+	}
+
+	/**
+	 * Returns a list of the cards in a set, in Big Two order.
+	 *
+	 * @param mask
+	 *            the bits of the set
+	 * @return a list of the cards in the set
+	 */
+	public static CardList toCardList(long mask) {
+		CardList cards = new CardList();
+		for (int i = nextIndex(mask, 0); i >= 0; i = nextIndex(mask, i + 1)) {
+			cards.addCard(cardAt(i));
+		}
+		return cards;
+	}
+
+	/**
+	 * Returns the bits of the cards in this set.
+	 *
+	 * @return the bits of the cards in this set
+	 */
+	public long getMask() {
+		return mask;
+	}
+
+	/**
+	 * Adds the specified card to this set.
+	 *
+	 * @param card
+	 *            the card to be added
+	 * @return true if the card was not in this set
+	 */
+	public boolean add(Card card) {
+		long bit = bit(card);
+		boolean added = (mask & bit) == 0;
+		mask |= bit;
+		return added;
+	}
+
+	/**
+	 * Adds the cards in the specified list to this set.
+	 *
+	 * @param cards
+	 *            the list of cards to be added
+	 */
+	public void addAll(CardList cards) {
+		mask |= maskOf(cards);
+	}
+
+	/**
+	 * Removes the specified card from this set.
+	 *
+	 * @param card
+	 *            the card to be removed
+	 * @return true if the card was in this set
+	 */
+	public boolean remove(Card card) {
+		long bit = bit(card);
+		boolean removed = (mask & bit) != 0;
+		mask &= ~bit;
+		return removed;
+	}
+
+	/**
+	 * Removes all the cards from this set.
+	 */
+	public void clear() {
+		mask = 0L;
+	}
+
+	/**
+	 * Returns true if the specified card is in this set.
+	 *
+	 * @param card
+	 *            the card
+	 * @return true if the card is in this set
+	 */
+	public boolean contains(Card card) {
+		return (mask & bit(card)) != 0;
+	}
+
+	/**
+	 * Returns the card at the specified position of this set, the cards being
+	 * ordered from the weakest to the strongest.
+	 *
+	 * @param position
+	 *            the position of the card
+	 * @return the card at the position, or null if the position is invalid
+	 */
+	public Card getCard(int position) {
+		int index = indexAt(mask, position);
+		return index < 0 ? null : cardAt(index);
+	}
+
+	/**
+	 * Returns the number of cards in this set.
+	 *
+	 * @return the number of cards in this set
+	 */
+	public int size() {
+		return Long.bitCount(mask);
+	}
+
+	/**
+	 * Returns true if this set holds no cards.
+	 *
+	 * @return true if this set is empty
+	 */
+	public boolean isEmpty() {
+		return mask == 0L;
+	}
+
+	/**
+	 * Returns a list of the cards in this set, in Big Two order.
+	 *
+	 * @return a list of the cards in this set
+	 */
+	public CardList toCardList() {
+		return toCardList(mask);
+	}
+
+	/**
+	 * Returns a string representation of this set.
+	 *
+	 * @return a string representation of the cards in this set
+	 */
+	public String toString() {
+		return toCardList().toString();
+	}
+}
@@ -0,0 +1,205 @@
+package com.bigtwo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class is used to model a connection to a client over a non-blocking
+ * socket channel served by a com.bigtwo.NioEventLoop. Outgoing messages are
+ * encoded into frames by the calling thread and queued; the event loop owning
+ * the channel writes them out whenever the channel can accept more bytes.
+ *
+ * @author Anmol Gupta
+ */
+class ChannelClientConnection extends ClientConnection {
+	// initial capacity of the buffer for incoming bytes
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	// the channel of this connection
+	private final SocketChannel channel;
+	// the event loop serving this connection
+	private final NioEventLoop eventLoop;
+	// frames waiting to be written to the channel
+	private final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<ByteBuffer>();
+	// the reply to the handshake of the client, until it is written
+	private volatile ByteBuffer handshakeReply = null;
+	// buffer holding incoming bytes which have not been parsed yet
+	private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	// the key of the channel in the selector of the event loop
+	private SelectionKey key;
+	// a boolean indicating if the handshake has been received
+	private boolean handshakeDone = false;
+	// the codec accepted for this connection
+	private volatile int codec = WireProtocol.CODEC_SERIALIZED;
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.ChannelClientConnection
+	 * class.
+	 *
+	 * @param channel
+	 *            the non-blocking channel of the client
+	 * @param eventLoop
+	 *            the event loop serving the channel
+	 * @param maxQueueLength
+	 *            the maximum number of messages waiting to be written
+	 * @param overflowPolicy
+	 *            the overflow policy of the queue
+	 */
+	ChannelClientConnection(SocketChannel channel, NioEventLoop eventLoop,
+			int maxQueueLength, int overflowPolicy) {
+		super(channel.socket(), maxQueueLength, overflowPolicy);
+		this.channel = channel;
+		this.eventLoop = eventLoop;
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	boolean mayWaitForWriter() {
+		// the event loop writing out the queue also parses the messages of its
+		// clients under the table and server locks which the sender may hold
+		return false;
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	void enqueue(OutboundMessage message) throws IOException {
+		byte[] frame = message.getFrame(codec);
+		// each connection reads the shared frame through a buffer of its own
+		outbound.add(ByteBuffer.wrap(frame));
+		message.countSent(frame);
+		eventLoop.requestFlush(this);
+	}
+
+	/**
+	 * Accepts the specified codec for this connection and queues the reply to
+	 * the handshake of the client.
+	 *
+	 * @param codec
+	 *            the codec accepted for this connection
+	 */
+	void acceptCodec(int codec) {
+		this.codec = codec;
+		handshakeReply = ByteBuffer.wrap(WireProtocol.handshake(codec));
+		eventLoop.requestFlush(this);
+	}
+
+	/**
+	 * Returns the codec accepted for this connection.
+	 *
+	 * @return the codec of this connection
+	 */
+	int getCodec() {
+		return codec;
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	void closeTransport() {
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+		// lets the event loop remove a connection closed by another thread
+		eventLoop.requestFlush(this);
+	}
+
+	/**
+	 * Returns the channel of this connection.
+	 *
+	 * @return the channel of this connection
+	 */
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Returns the key of the channel in the selector of the event loop.
+	 *
+	 * @return the selection key of this connection
+	 */
+	SelectionKey getKey() {
+		return key;
+	}
+
+	/**
+	 * Sets the key of the channel in the selector of the event loop.
+	 *
+	 * @param key
+	 *            the selection key of this connection
+	 */
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	/**
+	 * Returns the buffer holding incoming bytes. The buffer is in write mode
+	 * (ready for bytes to be read from the channel into it).
+	 *
+	 * @return the buffer for incoming bytes
+	 */
+	ByteBuffer getInbound() {
+		return inbound;
+	}
+
+	/**
+	 * Makes sure the buffer for incoming bytes can hold at least the
+	 * specified number of bytes, keeping its content.
+	 *
+	 * @param capacity
+	 *            the number of bytes the buffer must be able to hold
+	 */
+	void ensureInboundCapacity(int capacity) {
+		if (inbound.capacity() < capacity) {
+			ByteBuffer larger = ByteBuffer.allocate(capacity);
+			inbound.flip();
+			larger.put(inbound);
+			inbound = larger;
+		}
+	}
+
+	/**
+	 * Returns true if the handshake has been received from the client.
+	 *
+	 * @return true if the handshake has been received
+	 */
+	boolean isHandshakeDone() {
+		return handshakeDone;
+	}
+
+	/**
+	 * Marks the handshake as received.
+	 */
+	void setHandshakeDone() {
+		handshakeDone = true;
+	}
+
+	/**
+	 * Writes as many queued frames as the channel accepts. Must only be called
+	 * by the event loop serving this connection.
+	 *
+	 * @return true if all queued frames have been written; false if the
+	 *         channel cannot accept more bytes for now
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	boolean flush() throws IOException {
+		if (handshakeReply != null) {
+			channel.write(handshakeReply);
+			if (handshakeReply.hasRemaining()) {
+				return false;
+			}
+			handshakeReply = null;
+		}
+		ByteBuffer frame;
+		while ((frame = outbound.peek()) != null) {
+			channel.write(frame);
+			if (frame.hasRemaining()) {
+				return false;
+			}
+			outbound.poll();
+			messageWritten();
+		}
+		return true;
+	}
+}
@@ -0,0 +1,265 @@
+package com.bigtwo;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+
+/**
+ * This class is used to model the connection between the card game server and
+ * one of its clients. It hides whether messages are written to a blocking
+ * socket or queued for a non-blocking channel, so that the server can treat
+ * all of its clients in the same way.
+ * <p>
+ * Messages are never written by the thread sending them: each connection has
+ * a bounded queue of outgoing messages, drained by a writer of its own, so a
+ * client which does not read its messages cannot hold up the other clients at
+ * its table. The overflow policy decides what happens to a message arriving
+ * when the queue is full.
+ *
+ * @author Anmol Gupta
+ */
+abstract class ClientConnection {
+	// the socket of this connection
+	private final Socket socket;
+	// the table at which this client is seated, or null if none
+	private volatile ServerTable table = null;
+	// the seat of this client at its table, or -1 if none
+	private volatile int seat = -1;
+	// the maximum number of messages waiting to be written
+	private final int maxQueueLength;
+	// what to do with a message arriving when the queue is full
+	private final int overflowPolicy;
+	// lock guarding the number of messages waiting to be written
+	private final Object queueLock = new Object();
+	// number of messages waiting to be written
+	private int queueDepth = 0;
+	// number of chat messages dropped because the queue was full
+	private int numOfDroppedMessages = 0;
+	// a boolean indicating if this connection has been closed
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.ClientConnection class.
+	 *
+	 * @param socket
+	 *            the socket of this connection
+	 * @param maxQueueLength
+	 *            the maximum number of messages waiting to be written
+	 * @param overflowPolicy
+	 *            the overflow policy of the queue, one of
+	 *            CardGameServer.OVERFLOW_DROP_CHAT, OVERFLOW_DISCONNECT and
+	 *            OVERFLOW_BLOCK
+	 */
+	ClientConnection(Socket socket, int maxQueueLength, int overflowPolicy) {
+		this.socket = socket;
+		this.maxQueueLength = maxQueueLength;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Returns the socket of this connection.
+	 *
+	 * @return the socket of this connection
+	 */
+	Socket getSocket() {
+		return socket;
+	}
+
+	/**
+	 * Returns the address of the remote end of this connection.
+	 *
+	 * @return the address of the client
+	 */
+	SocketAddress getRemoteSocketAddress() {
+		return socket.getRemoteSocketAddress();
+	}
+
+	/**
+	 * Returns the table at which this client is seated.
+	 *
+	 * @return the table of this client, or null if it is not seated
+	 */
+	ServerTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Returns the seat of this client at its table.
+	 *
+	 * @return the index of the seat, or -1 if it is not seated
+	 */
+	int getSeat() {
+		return seat;
+	}
+
+	/**
+	 * Records the table and seat of this client.
+	 *
+	 * @param table
+	 *            the table of this client, or null if it leaves its table
+	 * @param seat
+	 *            the index of the seat, or -1 if it leaves its table
+	 */
+	void setTable(ServerTable table, int seat) {
+		this.table = table;
+		this.seat = seat;
+	}
+
+	/**
+	 * Returns true if the client speaks the legacy object stream protocol.
+	 *
+	 * @return true for a legacy client
+	 */
+	boolean isLegacy() {
+		return false;
+	}
+
+	/**
+	 * Queues the specified message to be sent to the client. The message may
+	 * be sent to other clients as well, so its encoded bytes are only ever
+	 * read. Depending on the overflow policy, a message arriving when the queue
+	 * is full is dropped (chat messages only), makes the caller wait for the
+	 * writer, or closes the connection. A caller which may not wait for the
+	 * writer closes the connection instead.
+	 *
+	 * @param message
+	 *            the message to be sent to the client
+	 * @throws IOException
+	 *             if the connection is closed, or is closed because its queue
+	 *             overflows
+	 */
+	final void send(OutboundMessage message) throws IOException {
+		if (admit(message)) {
+			try {
+				enqueue(message);
+			} catch (IOException ex) {
+				// gives back the room reserved for the message
+				messageWritten();
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Reserves room in the queue for the specified message, applying the
+	 * overflow policy if the queue is full.
+	 *
+	 * @param message
+	 *            the message to be queued
+	 * @return true if the message is to be queued; false if it is dropped
+	 * @throws IOException
+	 *             if the connection is closed
+	 */
+	private boolean admit(OutboundMessage message) throws IOException {
+		synchronized (queueLock) {
+			while (!closed) {
+				if (queueDepth < maxQueueLength) {
+					queueDepth++;
+					return true;
+				}
+				if (overflowPolicy == CardGameServer.OVERFLOW_DROP_CHAT
+						&& message.getMessage().getType() == CardGameMessage.MSG) {
+					numOfDroppedMessages++;
+					return false;
+				}
+				if (overflowPolicy == CardGameServer.OVERFLOW_BLOCK
+						&& mayWaitForWriter()) {
+					try {
+						queueLock.wait();
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while sending");
+					}
+					continue;
+				}
+				// gives up on a client which does not keep up with the game
+				close();
+				throw new IOException("Outgoing queue overflows");
+			}
+			throw new IOException("Connection closed");
+		}
+	}
+
+	/**
+	 * Records that the writer has written out a message taken from the queue.
+	 */
+	void messageWritten() {
+		synchronized (queueLock) {
+			queueDepth--;
+			queueLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of messages waiting to be written to the client.
+	 *
+	 * @return the depth of the outgoing queue
+	 */
+	int getQueueDepth() {
+		synchronized (queueLock) {
+			return queueDepth;
+		}
+	}
+
+	/**
+	 * Returns the number of chat messages dropped because the outgoing queue
+	 * was full.
+	 *
+	 * @return the number of dropped messages
+	 */
+	int getNumOfDroppedMessages() {
+		synchronized (queueLock) {
+			return numOfDroppedMessages;
+		}
+	}
+
+	/**
+	 * Returns true if this connection has been closed.
+	 *
+	 * @return true if this connection has been closed
+	 */
+	boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes this connection. Closing a connection more than once has no
+	 * effect.
+	 */
+	final void close() {
+		synchronized (queueLock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queueLock.notifyAll();
+		}
+		closeTransport();
+	}
+
+	/**
+	 * Returns true if the current thread may wait for the writer of this
+	 * connection to make room in the queue. The senders hold the lock of a
+	 * table, and sometimes the lock of the server, so a thread must never wait
+	 * for a writer which takes these locks itself, or for itself.
+	 *
+	 * @return true if the current thread may wait for room in the queue
+	 */
+	abstract boolean mayWaitForWriter();
+
+	/**
+	 * Hands the specified message, for which room has been reserved in the
+	 * queue, to the writer.
+	 *
+	 * @param message
+	 *            the message to be written
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	abstract void enqueue(OutboundMessage message) throws IOException;
+
+	/**
+	 * Closes the underlying socket or channel and stops the writer.
+	 */
+	abstract void closeTransport();
+}
@@ -1,5 +1,7 @@
 package com.bigtwo;
 
+import java.util.SplittableRandom;
+
 /**
  * This class is used to represent a deck of cards in general card games.
  *
@@ -29,11 +31,24 @@ public class Deck extends CardList {
 	}
 
 	/**
-	 * Shuffles the deck of cards.
+	 * Shuffles the deck of cards with a randomly seeded generator.
 	 */
 	public void shuffle() {
-		for (int i = 0; i < this.size(); i++) {
-			int j = (int) (Math.random() * this.size());
+		shuffle(new SplittableRandom());
+	}
+
+	/**
+	 * Shuffles the deck of cards with the specified generator, by the
+	 * Fisher-Yates algorithm, so every order of the cards is equally likely.
+	 * Two decks holding the same cards in the same order and shuffled with
+	 * generators of the same seed end up in the same order.
+	 *
+	 * @param random
+	 *            the generator of the random numbers
+	 */
+	public void shuffle(SplittableRandom random) {
+		for (int i = this.size() - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
 			if (i != j) {
 				Card card = setCard(i, getCard(j));
 				setCard(j, card);
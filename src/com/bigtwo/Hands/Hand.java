@@ -4,6 +4,7 @@ import com.bigtwo.BigTwoCard;
 import com.bigtwo.Card;
 import com.bigtwo.CardGamePlayer;
 import com.bigtwo.CardList;
+import com.bigtwo.CardSet;
 
 /**
  * This class is an abstract class that defines a structure of a hand. It is inherited by other subclasses
@@ -74,21 +75,54 @@ public abstract class Hand extends CardList {
         if(this.size() != hand.size()) {
             return false;
         }
-        if(this.handLevel < hand.handLevel) {
-            return false;
-        }
-        if(this.handLevel > hand.handLevel) {
-            return true;
-        }
-        if(this.handLevel == 4) {
-            if(this.getCard(0).getSuit() > hand.getCard(0).getSuit()) {
-                return true;
-            }
-            if(this.getCard(0).getSuit() < hand.getCard(0).getSuit()) {
-                return false;
-            }
+        return this.getStrengthKey() > hand.getStrengthKey();
+    }
+
+    /**
+     *
+     * This method retrieves the level of this hand, from 0 for a com.bigtwo.Hands.Single to 7 for a
+     * com.bigtwo.Hands.StraightFlush.
+     *
+     * @return The level of this hand
+     */
+    public int getHandLevel() {
+        return handLevel;
+    }
+
+    /**
+     *
+     * This method retrieves the strength key of this hand, which packs the size of the hand, its level and its
+     * tie-break into one value. Of two hands of the same size, the one with the greater key is the stronger. The top
+     * card is found from the set of the cards, so the key does not depend on their order, and is computed on each
+     * call as the cards may change.
+     *
+     * @return The strength key of this hand
+     */
+    public long getStrengthKey() {
+        long mask = CardSet.maskOf(this);
+        int result = HandClassifier.classify(mask);
+        int topIndex;
+        if(result != HandClassifier.INVALID) {
+            topIndex = HandClassifier.getTopIndex(result);
+        } else {
+            topIndex = mask == 0 ? 0 : 63 - Long.numberOfLeadingZeros(mask);
         }
-        return (this.getTopCard()).compareTo(hand.getTopCard()) == 1;
+        return strengthKey(size(), handLevel, topIndex);
+    }
+
+    /**
+     *
+     * This method computes the strength key of a hand from its size, its level and its top card (in Big Two
+     * order). Flushes are compared by their suit first, so the suit is also part of their tie-break.
+     *
+     * @param size The number of cards in the hand
+     * @param handLevel The level of the hand
+     * @param topIndex The index of the top card of the hand in Big Two order
+     * @return The strength key of the hand
+     */
+    public static long strengthKey(int size, int handLevel, int topIndex) {
+        long tieBreak = handLevel == 4 ? ((topIndex % 4) << 6) | topIndex : topIndex;
+        return ((long) size << 16) | ((long) handLevel << 12) | tieBreak;
     }
 
     /**
@@ -151,6 +185,12 @@ public abstract class Hand extends CardList {
         return true;
     }
 
+    /**
+     *
+     * This method sets the level of this hand. It is called by the constructor of each subclass.
+     *
+     * @param handLevel The level of this hand
+     */
     protected void setHandLevel(int handLevel) {
         this.handLevel = handLevel;
     }
@@ -0,0 +1,184 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.CardSet;
+
+/**
+ * This class classifies a set of cards, given as the bits of a com.bigtwo.CardSet, into the type of hand it forms
+ * and the top card of that hand, without creating any com.bigtwo.Hands.Hand. Since the four suits of a rank are
+ * next to each other in the set, the cards of each rank form a 4-bit group, and the classification only needs a
+ * few bit operations and lookups in small precomputed tables.
+ * <p>
+ * The result of a classification packs the type and the index of the top card into one int, and is -1 if the
+ * cards do not form a valid hand. The types have the same values as the levels of the corresponding subclasses
+ * of com.bigtwo.Hands.Hand.
+ *
+ * @author Anmol Gupta
+ */
+public final class HandClassifier {
+
+    public static final int INVALID = -1; // the result for cards which do not form a valid hand.
+    public static final int SINGLE = 0; // the type of a com.bigtwo.Hands.Single.
+    public static final int PAIR = 1; // the type of a com.bigtwo.Hands.Pair.
+    public static final int TRIPLE = 2; // the type of a com.bigtwo.Hands.Triple.
+    public static final int STRAIGHT = 3; // the type of a com.bigtwo.Hands.Straight.
+    public static final int FLUSH = 4; // the type of a com.bigtwo.Hands.Flush.
+    public static final int FULL_HOUSE = 5; // the type of a com.bigtwo.Hands.FullHouse.
+    public static final int QUAD = 6; // the type of a com.bigtwo.Hands.Quad.
+    public static final int STRAIGHT_FLUSH = 7; // the type of a com.bigtwo.Hands.StraightFlush.
+    public static final String[] TYPE_NAMES = { "Single", "Pair", "Triple", "Straight", "Flush", "FullHouse",
+            "Quad", "StraightFlush" }; // the names of the types, indexed by type.
+
+    private static final int TYPE_SHIFT = 6; // the position of the type in a result.
+    private static final int TOP_MASK = (1 << TYPE_SHIFT) - 1; // the bits of the top card in a result.
+    private static final long RANK_BITS = 0x1111111111111L; // the lowest bit of the group of each rank.
+    private static final long STRAIGHT_RANKS = 0x11111L; // the rank bits of five consecutive ranks from the lowest.
+
+    private static final int[] GROUP_SIZE = new int[16]; // the number of cards in a 4-bit group.
+    private static final int[] GROUP_TOP = new int[16]; // the highest suit in a 4-bit group.
+    private static final long[] SUIT_CARDS = new long[4]; // the bits of all the cards of each suit.
+
+    static {
+        for (int group = 1; group < 16; group++) {
+            GROUP_SIZE[group] = Integer.bitCount(group);
+            GROUP_TOP[group] = 31 - Integer.numberOfLeadingZeros(group);
+        }
+        for (int i = 0; i < CardSet.NUM_OF_CARDS; i++) {
+            SUIT_CARDS[i % 4] |= 1L << i;
+        }
+    }
+
+    private HandClassifier() {
+    }
+
+    /**
+     *
+     * This method classifies the specified set of cards.
+     *
+     * @param mask The bits of the set of cards.
+     * @return The type and top card of the hand formed by the cards, or INVALID.
+     */
+    public static int classify(long mask) {
+        if (mask == 0 || (mask & ~CardSet.ALL_CARDS) != 0) {
+            return INVALID;
+        }
+        int top = 63 - Long.numberOfLeadingZeros(mask);
+        long ranks = rankBits(mask);
+        switch (Long.bitCount(mask)) {
+            case 1:
+                return result(SINGLE, top);
+            case 2:
+                return Long.bitCount(ranks) == 1 ? result(PAIR, top) : INVALID;
+            case 3:
+                return Long.bitCount(ranks) == 1 ? result(TRIPLE, top) : INVALID;
+            case 5:
+                return classifyFive(mask, ranks, top);
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     *
+     * This method returns the type with the specified name.
+     *
+     * @param name The name of the type, as in TYPE_NAMES.
+     * @return The type with the name, or INVALID if there is no such type.
+     */
+    public static int typeOf(String name) {
+        for (int type = 0; type < TYPE_NAMES.length; type++) {
+            if (TYPE_NAMES[type].equals(name)) {
+                return type;
+            }
+        }
+        return INVALID;
+    }
+
+    /**
+     *
+     * This method returns the type of the hand in the specified result of a classification.
+     *
+     * @param result The result of a classification.
+     * @return The type of the hand, or INVALID.
+     */
+    public static int getType(int result) {
+        return result < 0 ? INVALID : result >>> TYPE_SHIFT;
+    }
+
+    /**
+     *
+     * This method returns the index of the top card of the hand in the specified result of a classification.
+     *
+     * @param result The result of a classification.
+     * @return The index of the top card in Big Two order, or -1.
+     */
+    public static int getTopIndex(int result) {
+        return result < 0 ? -1 : result & TOP_MASK;
+    }
+
+    /**
+     *
+     * This method classifies a set of five cards. A set of five different ranks may be a straight, a flush or
+     * both, and a set of two ranks is a quad (four and one) or a full house (three and two).
+     *
+     * @param mask The bits of the set of cards.
+     * @param ranks The lowest bit of the group of each rank in the set.
+     * @param top The index of the highest card in the set.
+     * @return The type and top card of the hand formed by the cards, or INVALID.
+     */
+    private static int classifyFive(long mask, long ranks, int top) {
+        int numOfRanks = Long.bitCount(ranks);
+        if (numOfRanks == 5) {
+            boolean straight = ranks >>> Long.numberOfTrailingZeros(ranks) == STRAIGHT_RANKS;
+            boolean flush = (mask & ~SUIT_CARDS[top % 4]) == 0;
+            if (straight && flush) {
+                return result(STRAIGHT_FLUSH, top);
+            } else if (flush) {
+                return result(FLUSH, top);
+            } else if (straight) {
+                return result(STRAIGHT, top);
+            }
+            return INVALID;
+        }
+        if (numOfRanks != 2) {
+            return INVALID;
+        }
+
+        int lowRank = Long.numberOfTrailingZeros(ranks) / 4;
+        int highRank = (63 - Long.numberOfLeadingZeros(ranks)) / 4;
+        int lowGroup = group(mask, lowRank);
+        int highGroup = group(mask, highRank);
+        switch (GROUP_SIZE[lowGroup]) {
+            case 4:
+                return result(QUAD, lowRank * 4 + GROUP_TOP[lowGroup]);
+            case 1:
+                return result(QUAD, highRank * 4 + GROUP_TOP[highGroup]);
+            case 3:
+                return result(FULL_HOUSE, lowRank * 4 + GROUP_TOP[lowGroup]);
+            default:
+                return result(FULL_HOUSE, highRank * 4 + GROUP_TOP[highGroup]);
+        }
+    }
+
+    /**
+     * This method returns a set with the lowest bit of the group of each rank present in the specified set.
+     */
+    private static long rankBits(long mask) {
+        long ranks = mask | (mask >>> 1);
+        ranks |= ranks >>> 2;
+        return ranks & RANK_BITS;
+    }
+
+    /**
+     * This method returns the 4-bit group of the cards of the specified rank.
+     */
+    private static int group(long mask, int rank) {
+        return (int) (mask >>> (rank * 4)) & 0xF;
+    }
+
+    /**
+     * This method packs a type and a top card into a result.
+     */
+    private static int result(int type, int top) {
+        return (type << TYPE_SHIFT) | top;
+    }
+}
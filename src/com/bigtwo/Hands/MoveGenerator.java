@@ -0,0 +1,165 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.CardSet;
+
+/**
+ * This class enumerates the legal moves of a player, given the cards in the hand of the player as the bits of a
+ * com.bigtwo.CardSet and the strength key of the last hand on the table. Every combination of 1, 2, 3 or 5 cards
+ * of the player is visited by nested loops over the bits of the hand, classified by the
+ * com.bigtwo.Hands.HandClassifier and compared by its strength key, so no object is created while the moves are
+ * generated. The moves are written as card sets into an array supplied by the caller, which can be reused from
+ * one call to the next.
+ *
+ * @author Anmol Gupta
+ */
+public final class MoveGenerator {
+
+    public static final long FREE_LEAD = 0L; // the key passed when any valid hand may be played.
+    public static final int MAX_NUM_OF_MOVES = 13 + 78 + 286 + 1287; // the number of 1, 2, 3 and 5-card subsets of 13 cards.
+
+    private MoveGenerator() {
+    }
+
+    /**
+     *
+     * This method returns the strength key of the specified set of cards, as com.bigtwo.Hands.Hand.getStrengthKey()
+     * would return for the hand formed by the cards.
+     *
+     * @param mask The bits of the set of cards.
+     * @return The strength key of the hand formed by the cards, or -1 if they do not form a valid hand.
+     */
+    public static long strengthKey(long mask) {
+        int result = HandClassifier.classify(mask);
+        if (result == HandClassifier.INVALID) {
+            return -1;
+        }
+        return Hand.strengthKey(Long.bitCount(mask), HandClassifier.getType(result),
+                HandClassifier.getTopIndex(result));
+    }
+
+    /**
+     *
+     * This method enumerates the legal moves of a player who has to beat the specified hand. When the last hand on
+     * the table was played by the same player, or the game is being opened, any valid hand may be played, and
+     * null is passed instead of the last hand.
+     *
+     * @param hand The bits of the cards held by the player (13 cards at most).
+     * @param lastHand The last hand on the table, or null for a free lead.
+     * @param opening Whether this is the first move of the game, which must include the 3 of Diamonds.
+     * @param moves The array into which the card sets of the moves are written; MAX_NUM_OF_MOVES long is enough.
+     * @return The number of moves written into the array.
+     */
+    public static int generate(long hand, Hand lastHand, boolean opening, long[] moves) {
+        long lastKey = lastHand == null ? FREE_LEAD : lastHand.getStrengthKey();
+        return generate(hand, lastKey, opening ? 1L : 0L, moves);
+    }
+
+    /**
+     *
+     * This method enumerates the valid hands which can be formed from the cards of a player, include all the
+     * required cards, and beat the hand with the specified strength key (or are of any size for a free lead).
+     *
+     * @param hand The bits of the cards held by the player (13 cards at most).
+     * @param lastKey The strength key of the hand to be beaten, or FREE_LEAD.
+     * @param required The bits of the cards which every move must include, such as the 3 of Diamonds in the first
+     *                 move of the game.
+     * @param moves The array into which the card sets of the moves are written; MAX_NUM_OF_MOVES long is enough.
+     * @return The number of moves written into the array.
+     */
+    public static int generate(long hand, long lastKey, long required, long[] moves) {
+        if ((hand & required) != required) {
+            return 0;
+        }
+        int lastSize = (int) (lastKey >>> 16);
+        int n = 0;
+        if (lastKey == FREE_LEAD || lastSize == 1) {
+            n = generateSingles(hand, lastKey, required, moves, n);
+        }
+        if (lastKey == FREE_LEAD || lastSize == 2 || lastSize == 3) {
+            n = generateSets(hand, lastKey, required, moves, n);
+        }
+        if (lastKey == FREE_LEAD || lastSize == 5) {
+            n = generateFives(hand, lastKey, required, moves, n);
+        }
+        return n;
+    }
+
+    /**
+     * This method writes the singles which beat the last hand.
+     */
+    private static int generateSingles(long hand, long lastKey, long required, long[] moves, int n) {
+        for (long r1 = hand; r1 != 0; r1 &= r1 - 1) {
+            n = add(r1 & -r1, lastKey, required, moves, n);
+        }
+        return n;
+    }
+
+    /**
+     * This method writes the pairs and triples which beat the last hand. Only cards of the same rank can form
+     * either, so the combinations are taken within the 4-bit group of each rank.
+     */
+    private static int generateSets(long hand, long lastKey, long required, long[] moves, int n) {
+        int lastSize = (int) (lastKey >>> 16);
+        for (int rank = 0; rank < 13; rank++) {
+            long group = hand & (0xFL << (rank * 4));
+            if (Long.bitCount(group) < 2) {
+                continue;
+            }
+            for (long r1 = group; r1 != 0; r1 &= r1 - 1) {
+                long c1 = r1 & -r1;
+                for (long r2 = r1 & (r1 - 1); r2 != 0; r2 &= r2 - 1) {
+                    long c2 = c1 | (r2 & -r2);
+                    if (lastKey == FREE_LEAD || lastSize == 2) {
+                        n = add(c2, lastKey, required, moves, n);
+                    }
+                    if (lastKey == FREE_LEAD || lastSize == 3) {
+                        for (long r3 = r2 & (r2 - 1); r3 != 0; r3 &= r3 - 1) {
+                            n = add(c2 | (r3 & -r3), lastKey, required, moves, n);
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * This method writes the five-card hands which beat the last hand.
+     */
+    private static int generateFives(long hand, long lastKey, long required, long[] moves, int n) {
+        if (Long.bitCount(hand) < 5) {
+            return n;
+        }
+        for (long r1 = hand; r1 != 0; r1 &= r1 - 1) {
+            long c1 = r1 & -r1;
+            for (long r2 = r1 & (r1 - 1); r2 != 0; r2 &= r2 - 1) {
+                long c2 = c1 | (r2 & -r2);
+                for (long r3 = r2 & (r2 - 1); r3 != 0; r3 &= r3 - 1) {
+                    long c3 = c2 | (r3 & -r3);
+                    for (long r4 = r3 & (r3 - 1); r4 != 0; r4 &= r4 - 1) {
+                        long c4 = c3 | (r4 & -r4);
+                        for (long r5 = r4 & (r4 - 1); r5 != 0; r5 &= r5 - 1) {
+                            n = add(c4 | (r5 & -r5), lastKey, required, moves, n);
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * This method writes the specified set of cards as a move if it is a valid hand, includes the required cards
+     * and beats the last hand.
+     */
+    private static int add(long mask, long lastKey, long required, long[] moves, int n) {
+        if ((mask & required) != required) {
+            return n;
+        }
+        long key = strengthKey(mask);
+        if (key >= 0 && (lastKey == FREE_LEAD || key > lastKey)) {
+            moves[n++] = mask;
+        }
+        return n;
+    }
+}
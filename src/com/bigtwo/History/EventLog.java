@@ -0,0 +1,478 @@
+package com.bigtwo.History;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to append the events of the tables of a card game server
+ * to a durable log. The log is a directory of segment files, each named after
+ * the sequence number of its first event, and a new segment is started when
+ * the current one grows past a given size. Every event is written as a record
+ * holding its length and a CRC32 of its contents, so a record torn by a crash
+ * is found and cut off when the log is opened again.
+ * <p>
+ * Appending an event only encodes it into an in-memory buffer and returns its
+ * sequence number; the caller never waits for the disk unless the buffer is
+ * full. A writer thread swaps the buffer for a second one, writes all the
+ * events gathered meanwhile through a FileChannel and forces them to the disk
+ * with a single fsync, so that one fsync commits a whole group of events
+ * however many arrive. A caller which needs an event to be durable waits for
+ * it with awaitDurable().
+ *
+ * @author Anmol Gupta
+ */
+public final class EventLog implements Closeable {
+	/**
+	 * The default size past which a new segment is started, in bytes.
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+	/**
+	 * The default size of each of the two buffers of events, in bytes.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	// the length of the header of a record: the length and the CRC32 of its body
+	static final int HEADER_LENGTH = 8;
+	// the length of the body of a record without its text
+	static final int BODY_LENGTH = 32;
+	// the maximum number of bytes of the text of an event
+	static final int MAX_TEXT_LENGTH = 4096;
+	// the prefix and the suffix of the names of the segment files
+	private static final String SEGMENT_PREFIX = "events-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private final Path directory; // the directory of the segment files
+	private final long segmentSize; // the size past which a new segment is started
+	private final boolean sync; // whether the events are forced to the disk
+	private final CRC32 crc = new CRC32(); // the checksum of the records appended
+	private final Thread writer; // the thread writing the events
+	private ByteBuffer active; // the buffer to which events are appended
+	private ByteBuffer spare; // the buffer being written by the writer thread
+	private long nextSequence; // the sequence number of the next event
+	private long batchSequence; // the sequence number of the first event in the active buffer
+	private long durableSequence; // the sequence number of the last event on the disk
+	private long numOfBatches = 0; // the number of groups of events committed
+	private FileChannel channel; // the channel of the current segment
+	private long segmentLength; // the length of the current segment
+	private boolean closed = false; // whether the log has been closed
+	private IOException failure = null; // the error which stopped the writer thread
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.EventLog
+	 * class, with the default segment and buffer sizes, forcing every group
+	 * of events to the disk.
+	 *
+	 * @param directory
+	 *            the directory of the segment files, created if needed
+	 * @throws IOException
+	 *             if the log cannot be opened
+	 */
+	public EventLog(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_BUFFER_SIZE, true);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.EventLog
+	 * class. The events already in the directory are kept, after cutting off
+	 * a torn record at the end of the last segment, and the new events follow
+	 * them.
+	 *
+	 * @param directory
+	 *            the directory of the segment files, created if needed
+	 * @param segmentSize
+	 *            the size past which a new segment is started, in bytes
+	 * @param bufferSize
+	 *            the size of each of the two buffers of events, in bytes
+	 * @param sync
+	 *            true to force every group of events to the disk; false to
+	 *            leave them to the operating system
+	 * @throws IOException
+	 *             if the log cannot be opened
+	 */
+	public EventLog(Path directory, long segmentSize, int bufferSize,
+			boolean sync) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.sync = sync;
+		int minBufferSize = HEADER_LENGTH + BODY_LENGTH + MAX_TEXT_LENGTH;
+		active = ByteBuffer.allocate(Math.max(bufferSize, minBufferSize));
+		spare = ByteBuffer.allocate(Math.max(bufferSize, minBufferSize));
+
+		Files.createDirectories(directory);
+		long[] segments = listSegments(directory);
+		if (segments.length == 0) {
+			nextSequence = 1;
+			openSegment(1);
+		} else {
+			recover(segments[segments.length - 1]);
+		}
+		batchSequence = nextSequence;
+		durableSequence = nextSequence - 1;
+
+		writer = new Thread(new Writer(), "Event log writer for " + directory);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Appends an event to the log. The event is only in memory when this
+	 * method returns; the caller waits only if the buffer is full.
+	 *
+	 * @param type
+	 *            the type of the event, as defined in com.bigtwo.History.GameEvent
+	 * @param tableID
+	 *            the ID of the table
+	 * @param seat
+	 *            the seat, or -1 for the whole table
+	 * @param value
+	 *            the seed or the cards of the event, or 0
+	 * @param text
+	 *            the name or the message of the event, or null; longer texts
+	 *            are cut at MAX_TEXT_LENGTH bytes
+	 * @return the sequence number of the event, or -1 if the log has been
+	 *         closed or has failed
+	 */
+	public long append(int type, int tableID, int seat, long value, String text) {
+		byte[] bytes = null;
+		if (text != null) {
+			bytes = text.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > MAX_TEXT_LENGTH) {
+				bytes = Arrays.copyOf(bytes, MAX_TEXT_LENGTH);
+			}
+		}
+		int length = HEADER_LENGTH + BODY_LENGTH
+				+ (bytes == null ? 0 : bytes.length);
+
+		synchronized (this) {
+			try {
+				while (!closed && failure == null && active.remaining() < length) {
+					wait();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return -1;
+			}
+			if (closed || failure != null) {
+				return -1;
+			}
+			boolean wasEmpty = active.position() == 0;
+			long sequence = nextSequence++;
+			int start = active.position();
+			active.putInt(length - HEADER_LENGTH);
+			active.putInt(0);
+			active.putLong(sequence);
+			active.putLong(System.currentTimeMillis());
+			active.put((byte) type);
+			active.putInt(tableID);
+			active.put((byte) seat);
+			active.putLong(value);
+			active.putShort((short) (bytes == null ? -1 : bytes.length));
+			if (bytes != null) {
+				active.put(bytes);
+			}
+			crc.reset();
+			crc.update(active.array(), start + HEADER_LENGTH, length
+					- HEADER_LENGTH);
+			active.putInt(start + 4, (int) crc.getValue());
+			if (wasEmpty) {
+				notifyAll();
+			}
+			return sequence;
+		}
+	}
+
+	/**
+	 * Waits until the specified event has been forced to the disk.
+	 *
+	 * @param sequence
+	 *            the sequence number of the event
+	 * @throws IOException
+	 *             if the log has failed before the event was written
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	public synchronized void awaitDurable(long sequence) throws IOException,
+			InterruptedException {
+		while (durableSequence < sequence) {
+			if (failure != null) {
+				throw failure;
+			}
+			if (closed && !writer.isAlive()) {
+				return;
+			}
+			wait();
+		}
+	}
+
+	/**
+	 * Returns the sequence number of the last event appended.
+	 *
+	 * @return the sequence number, or 0 if the log is empty
+	 */
+	public synchronized long getLastSequence() {
+		return nextSequence - 1;
+	}
+
+	/**
+	 * Returns the sequence number of the last event written to the disk.
+	 *
+	 * @return the sequence number, or 0 if no event has been written
+	 */
+	public synchronized long getDurableSequence() {
+		return durableSequence;
+	}
+
+	/**
+	 * Returns the number of groups of events committed, which is the number of
+	 * fsyncs if the events are forced to the disk.
+	 *
+	 * @return the number of groups of events
+	 */
+	public synchronized long getNumOfBatches() {
+		return numOfBatches;
+	}
+
+	/**
+	 * Returns the directory of the segment files.
+	 *
+	 * @return the directory of the log
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes the events appended so far, and closes the log. Events appended
+	 * afterwards are dropped.
+	 *
+	 * @throws IOException
+	 *             if the events could not be written
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		synchronized (this) {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * Opens the last segment, cuts off a torn record at its end, and
+	 * continues the sequence after its last event.
+	 */
+	private void recover(long firstSequence) throws IOException {
+		channel = FileChannel.open(segmentPath(directory, firstSequence),
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		// read rather than mapped: a mapped file cannot be truncated on some
+		// platforms until the mapping is garbage collected
+		ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+		}
+		buffer.flip();
+		CRC32 checksum = new CRC32();
+		long lastSequence = firstSequence - 1;
+		int validLength = 0;
+		GameEvent event;
+		while ((event = readRecord(buffer, checksum)) != null) {
+			lastSequence = event.getSequence();
+			validLength = buffer.position();
+		}
+		channel.truncate(validLength);
+		channel.position(validLength);
+		segmentLength = validLength;
+		nextSequence = lastSequence + 1;
+	}
+
+	/**
+	 * Starts a new segment with the specified first event.
+	 */
+	private void openSegment(long firstSequence) throws IOException {
+		channel = FileChannel.open(segmentPath(directory, firstSequence),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		segmentLength = 0;
+	}
+
+	/**
+	 * This inner class is used to write the events in groups, one fsync per
+	 * group.
+	 */
+	private class Writer implements Runnable {
+		// implementation of method from the Runnable interface
+		public void run() {
+			try {
+				while (true) {
+					ByteBuffer batch;
+					long first;
+					long last;
+					synchronized (EventLog.this) {
+						while (active.position() == 0 && !closed) {
+							EventLog.this.wait();
+						}
+						if (active.position() == 0) {
+							break;
+						}
+						batch = active;
+						active = spare;
+						spare = batch;
+						first = batchSequence;
+						last = nextSequence - 1;
+						batchSequence = nextSequence;
+						// the appenders waiting for room may go on
+						EventLog.this.notifyAll();
+					}
+
+					batch.flip();
+					if (segmentLength > 0
+							&& segmentLength + batch.remaining() > segmentSize) {
+						if (sync) {
+							channel.force(false);
+						}
+						channel.close();
+						openSegment(first);
+					}
+					while (batch.hasRemaining()) {
+						segmentLength += channel.write(batch);
+					}
+					if (sync) {
+						channel.force(false);
+					}
+					batch.clear();
+
+					synchronized (EventLog.this) {
+						durableSequence = last;
+						numOfBatches++;
+						EventLog.this.notifyAll();
+					}
+				}
+			} catch (IOException ex) {
+				ex.printStackTrace();
+				synchronized (EventLog.this) {
+					failure = ex;
+					EventLog.this.notifyAll();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns the sequence numbers of the first events of the segments in the
+	 * specified directory, in ascending order.
+	 *
+	 * @param directory
+	 *            the directory of the log
+	 * @return the sequence numbers naming the segments
+	 * @throws IOException
+	 *             if the directory cannot be listed
+	 */
+	static long[] listSegments(Path directory) throws IOException {
+		ArrayList<Long> segments = new ArrayList<Long>();
+		if (Files.isDirectory(directory)) {
+			DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+					SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX);
+			try {
+				for (Path path : stream) {
+					String name = path.getFileName().toString();
+					segments.add(Long.parseLong(name.substring(
+							SEGMENT_PREFIX.length(), name.length()
+									- SEGMENT_SUFFIX.length())));
+				}
+			} finally {
+				stream.close();
+			}
+		}
+		long[] result = new long[segments.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = segments.get(i);
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the path of the segment with the specified first event.
+	 *
+	 * @param directory
+	 *            the directory of the log
+	 * @param firstSequence
+	 *            the sequence number of the first event of the segment
+	 * @return the path of the segment file
+	 */
+	static Path segmentPath(Path directory, long firstSequence) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX,
+				firstSequence, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * Reads the record at the position of the specified buffer, and moves the
+	 * position past it.
+	 *
+	 * @param buffer
+	 *            the buffer holding the records
+	 * @param checksum
+	 *            the checksum used to check the record
+	 * @return the event of the record, or null if there is no complete and
+	 *         valid record at the position, which is then left unchanged
+	 */
+	static GameEvent readRecord(ByteBuffer buffer, CRC32 checksum) {
+		int start = buffer.position();
+		if (buffer.remaining() < HEADER_LENGTH + BODY_LENGTH) {
+			return null;
+		}
+		int length = buffer.getInt(start);
+		int crc = buffer.getInt(start + 4);
+		if (length < BODY_LENGTH || length > BODY_LENGTH + MAX_TEXT_LENGTH
+				|| buffer.remaining() < HEADER_LENGTH + length) {
+			return null;
+		}
+		int limit = buffer.limit();
+		buffer.position(start + HEADER_LENGTH);
+		buffer.limit(start + HEADER_LENGTH + length);
+		checksum.reset();
+		checksum.update(buffer);
+		buffer.limit(limit);
+		if ((int) checksum.getValue() != crc) {
+			buffer.position(start);
+			return null;
+		}
+
+		buffer.position(start + HEADER_LENGTH);
+		long sequence = buffer.getLong();
+		long time = buffer.getLong();
+		int type = buffer.get();
+		int tableID = buffer.getInt();
+		int seat = buffer.get();
+		long value = buffer.getLong();
+		int textLength = buffer.getShort();
+		String text = null;
+		if (textLength >= 0) {
+			byte[] bytes = new byte[textLength];
+			buffer.get(bytes);
+			text = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return new GameEvent(sequence, time, type, tableID, seat, value, text);
+	}
+}
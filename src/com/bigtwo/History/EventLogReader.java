@@ -0,0 +1,109 @@
+package com.bigtwo.History;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to read the events of a com.bigtwo.History.EventLog in
+ * order, one segment at a time. Each segment is mapped into memory when the
+ * reader gets to it, so events appended to it afterwards are not seen. A torn
+ * record at the end of the last segment ends the log.
+ *
+ * @author Anmol Gupta
+ */
+public final class EventLogReader implements Closeable {
+	private final Path directory; // the directory of the segment files
+	private final long[] segments; // the first sequence numbers of the segments
+	private final long fromSequence; // the sequence number of the first event read
+	private final CRC32 checksum = new CRC32(); // the checksum of the records read
+	private int segmentIdx; // the index of the current segment
+	private MappedByteBuffer buffer = null; // the contents of the current segment
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.EventLogReader
+	 * class, reading from the first event of the log.
+	 *
+	 * @param directory
+	 *            the directory of the log
+	 * @throws IOException
+	 *             if the directory cannot be listed
+	 */
+	public EventLogReader(Path directory) throws IOException {
+		this(directory, 1);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.EventLogReader
+	 * class, reading from the specified event of the log.
+	 *
+	 * @param directory
+	 *            the directory of the log
+	 * @param fromSequence
+	 *            the sequence number of the first event to read
+	 * @throws IOException
+	 *             if the directory cannot be listed
+	 */
+	public EventLogReader(Path directory, long fromSequence) throws IOException {
+		this.directory = directory;
+		this.segments = EventLog.listSegments(directory);
+		this.fromSequence = fromSequence;
+		// start at the last segment beginning at or before the event
+		segmentIdx = 0;
+		while (segmentIdx + 1 < segments.length
+				&& segments[segmentIdx + 1] <= fromSequence) {
+			segmentIdx++;
+		}
+	}
+
+	/**
+	 * Returns the next event of the log.
+	 *
+	 * @return the next event, or null at the end of the log
+	 * @throws IOException
+	 *             if a segment cannot be read
+	 */
+	public GameEvent next() throws IOException {
+		while (segmentIdx < segments.length) {
+			if (buffer == null) {
+				buffer = map(segments[segmentIdx]);
+			}
+			GameEvent event;
+			while ((event = EventLog.readRecord(buffer, checksum)) != null) {
+				if (event.getSequence() >= fromSequence) {
+					return event;
+				}
+			}
+			buffer = null;
+			segmentIdx++;
+		}
+		return null;
+	}
+
+	/**
+	 * Releases the segment being read.
+	 */
+	public void close() {
+		buffer = null;
+		segmentIdx = segments.length;
+	}
+
+	/**
+	 * Maps the segment with the specified first event into memory.
+	 */
+	private MappedByteBuffer map(long firstSequence) throws IOException {
+		FileChannel channel = FileChannel.open(
+				EventLog.segmentPath(directory, firstSequence),
+				StandardOpenOption.READ);
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			channel.close();
+		}
+	}
+}
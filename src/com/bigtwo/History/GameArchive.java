@@ -0,0 +1,586 @@
+package com.bigtwo.History;
+
+import com.bigtwo.BigTwoState;
+import com.bigtwo.Hands.HandClassifier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to store finished games and to find them again without
+ * reading them all. The games are numbered from 0 in the order they are added,
+ * and written in blocks of up to GAMES_PER_BLOCK games in the format of
+ * com.bigtwo.History.GameRecordWriter, each block with its length and a CRC32.
+ * <p>
+ * Three inverted indexes are kept up to date as the games are added, each as
+ * com.bigtwo.History.PostingList objects of game numbers: the games of each
+ * player, the games in which each type of hand was played, and the games won
+ * from each seat. A query intersects the posting lists of its terms, so its
+ * cost depends on the number of games found rather than on the size of the
+ * archive. The indexes are saved by flush() and close(); games added after the
+ * last save are indexed again from the blocks when the archive is opened, and
+ * a block torn by a crash is cut off.
+ * <p>
+ * All the methods are synchronized, so games may be added while queries run.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameArchive implements Closeable {
+	/**
+	 * The largest number of games in a block.
+	 */
+	public static final int GAMES_PER_BLOCK = 64;
+
+	// the number of players of a game
+	private static final int NUM_OF_PLAYERS = 4;
+	// the first int of the index file
+	private static final int INDEX_MAGIC = 0x42324958;
+	// the names of the files of an archive
+	private static final String DATA_FILE = "games.dat";
+	private static final String INDEX_FILE = "index.dat";
+
+	private final Path directory; // the directory of the archive
+	private final FileChannel data; // the channel of the blocks of games
+	private long dataLength = 0; // the length of the blocks written
+	private long numOfGames = 0; // the number of games in the archive
+	private long[] blockOffsets = new long[16]; // the offset of each block
+	private long[] blockFirstGames = new long[16]; // the number of the first game of each block
+	private int numOfBlocks = 0; // the number of blocks written
+	private final ArrayList<GameRecord> pending = new ArrayList<GameRecord>(); // the games not yet written
+	private final HashMap<String, PostingList> players = new HashMap<String, PostingList>(); // the games of each player
+	private final PostingList[] handTypes = new PostingList[HandClassifier.TYPE_NAMES.length]; // the games with each type of hand
+	private final PostingList[] winners = new PostingList[NUM_OF_PLAYERS]; // the games won from each seat
+	private final GameRecorder recorder = new GameRecorder(NUM_OF_PLAYERS); // the games being played
+	private final BigTwoState state = new BigTwoState(NUM_OF_PLAYERS); // the state in which the games are replayed
+	private int cachedBlock = -1; // the block last read
+	private ArrayList<GameRecord> cachedGames = null; // the games of the block last read
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameArchive
+	 * class, opening the archive in the specified directory or creating it.
+	 *
+	 * @param directory
+	 *            the directory of the archive, created if needed
+	 * @throws IOException
+	 *             if the archive cannot be opened
+	 */
+	public GameArchive(Path directory) throws IOException {
+		this.directory = directory;
+		for (int i = 0; i < handTypes.length; i++) {
+			handTypes[i] = new PostingList();
+		}
+		for (int i = 0; i < winners.length; i++) {
+			winners[i] = new PostingList();
+		}
+		Files.createDirectories(directory);
+		data = FileChannel.open(directory.resolve(DATA_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		Path indexPath = directory.resolve(INDEX_FILE);
+		if (Files.exists(indexPath)) {
+			readIndex(indexPath);
+		}
+		recover();
+	}
+
+	/**
+	 * Adds a finished game to the archive, and to its indexes.
+	 *
+	 * @param record
+	 *            the game
+	 * @return the number of the game in the archive
+	 * @throws IOException
+	 *             if a block of games cannot be written
+	 */
+	public synchronized long add(GameRecord record) throws IOException {
+		long number = numOfGames++;
+		index(record, number);
+		pending.add(record);
+		if (pending.size() == GAMES_PER_BLOCK) {
+			writeBlock();
+		}
+		return number;
+	}
+
+	/**
+	 * Adds an event of a table, as logged by a com.bigtwo.History.EventLog,
+	 * and adds the games it finishes to the archive.
+	 *
+	 * @param event
+	 *            the event
+	 * @throws IOException
+	 *             if a block of games cannot be written
+	 */
+	public synchronized void record(GameEvent event) throws IOException {
+		recorder.add(event);
+		for (GameRecord record : recorder.takeFinishedGames()) {
+			add(record);
+		}
+	}
+
+	/**
+	 * Returns the number of games in the archive.
+	 *
+	 * @return the number of games
+	 */
+	public synchronized long getNumOfGames() {
+		return numOfGames;
+	}
+
+	/**
+	 * Reads the game with the specified number.
+	 *
+	 * @param number
+	 *            the number of the game
+	 * @return the game
+	 * @throws IOException
+	 *             if the game cannot be read
+	 */
+	public synchronized GameRecord read(long number) throws IOException {
+		if (number < 0 || number >= numOfGames) {
+			throw new IndexOutOfBoundsException("Game " + number + " of "
+					+ numOfGames);
+		}
+		long firstPending = numOfGames - pending.size();
+		if (number >= firstPending) {
+			return pending.get((int) (number - firstPending));
+		}
+		int block = Arrays.binarySearch(blockFirstGames, 0, numOfBlocks,
+				number);
+		if (block < 0) {
+			block = -block - 2;
+		}
+		if (block != cachedBlock) {
+			long end = block + 1 < numOfBlocks ? blockOffsets[block + 1]
+					: dataLength;
+			cachedGames = readBlock(blockOffsets[block], end);
+			if (cachedGames == null) {
+				cachedBlock = -1;
+				throw new IOException("Corrupt block of games at "
+						+ blockOffsets[block]);
+			}
+			cachedBlock = block;
+		}
+		return cachedGames.get((int) (number - blockFirstGames[block]));
+	}
+
+	/**
+	 * Returns the games in which the specified player took part.
+	 *
+	 * @param player
+	 *            the name of the player
+	 * @return a view of the posting list of the player
+	 */
+	public synchronized PostingList getGamesOf(String player) {
+		PostingList list = players.get(player);
+		return list == null ? new PostingList() : list.view();
+	}
+
+	/**
+	 * Returns the games in which a hand of the specified type was played.
+	 *
+	 * @param handType
+	 *            the type of hand, as defined in com.bigtwo.Hands.HandClassifier
+	 * @return a view of the posting list of the type of hand
+	 */
+	public synchronized PostingList getGamesWith(int handType) {
+		return handTypes[handType].view();
+	}
+
+	/**
+	 * Returns the games won by the player in the specified seat.
+	 *
+	 * @param seat
+	 *            the seat
+	 * @return a view of the posting list of the seat
+	 */
+	public synchronized PostingList getGamesWonFrom(int seat) {
+		return winners[seat].view();
+	}
+
+	/**
+	 * Returns the games matching all the specified terms, by intersecting
+	 * their posting lists.
+	 *
+	 * @param player
+	 *            the name of a player who took part, or null for any
+	 * @param handType
+	 *            a type of hand which was played, or -1 for any
+	 * @param winnerSeat
+	 *            the seat of the winner, or -1 for any
+	 * @return the numbers of the games, in ascending order
+	 */
+	public synchronized long[] query(String player, int handType, int winnerSeat) {
+		ArrayList<PostingList> lists = new ArrayList<PostingList>();
+		if (player != null) {
+			lists.add(getGamesOf(player));
+		}
+		if (handType >= 0) {
+			lists.add(getGamesWith(handType));
+		}
+		if (winnerSeat >= 0) {
+			lists.add(getGamesWonFrom(winnerSeat));
+		}
+		if (lists.isEmpty()) {
+			long[] all = new long[(int) numOfGames];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+		return PostingList.intersect(lists.toArray(new PostingList[lists.size()]));
+	}
+
+	/**
+	 * Returns the games in which the specified player played a hand of the
+	 * specified type. The games of the player with a hand of the type are found
+	 * by the indexes, and only those are read to check who played the hand.
+	 *
+	 * @param player
+	 *            the name of the player
+	 * @param handType
+	 *            the type of hand
+	 * @param winnerSeat
+	 *            the seat of the winner, or -1 for any
+	 * @return the numbers of the games, in ascending order
+	 * @throws IOException
+	 *             if a game cannot be read
+	 */
+	public synchronized long[] findGamesWherePlayed(String player,
+			int handType, int winnerSeat) throws IOException {
+		long[] candidates = query(player, handType, winnerSeat);
+		int n = 0;
+		for (long number : candidates) {
+			GameRecord record = read(number);
+			for (int i = 0; i < record.getNumOfMoves(); i++) {
+				long move = record.getMove(i);
+				if (move != 0 && player.equals(record.getName(record.getSeat(i)))
+						&& HandClassifier.getType(HandClassifier.classify(move)) == handType) {
+					candidates[n++] = number;
+					break;
+				}
+			}
+		}
+		return Arrays.copyOf(candidates, n);
+	}
+
+	/**
+	 * Writes the games not yet written, forces them to the disk, and saves
+	 * the indexes.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		if (!pending.isEmpty()) {
+			writeBlock();
+		}
+		data.force(false);
+		writeIndex();
+	}
+
+	/**
+	 * Flushes the archive and closes it.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be written
+	 */
+	public synchronized void close() throws IOException {
+		flush();
+		data.close();
+	}
+
+	/**
+	 * Adds a game to the indexes. The moves are replayed, and only the hands
+	 * of the legal moves are indexed, and the winner of a valid game.
+	 */
+	private void index(GameRecord record, long number) {
+		HashSet<String> names = new HashSet<String>();
+		for (int i = 0; i < record.getNumOfPlayers(); i++) {
+			String name = record.getName(i);
+			if (name != null && names.add(name)) {
+				PostingList list = players.get(name);
+				if (list == null) {
+					list = new PostingList();
+					players.put(name, list);
+				}
+				list.add(number);
+			}
+		}
+
+		int n = GameReplay.replay(record, state);
+		int types = 0;
+		for (int i = 0; i < n; i++) {
+			long move = record.getMove(i);
+			if (move != 0) {
+				types |= 1 << HandClassifier.getType(HandClassifier.classify(move));
+			}
+		}
+		for (int i = 0; i < handTypes.length; i++) {
+			if ((types & 1 << i) != 0) {
+				handTypes[i].add(number);
+			}
+		}
+		int winner = state.getWinner();
+		if (n == record.getNumOfMoves() && winner >= 0) {
+			winners[winner].add(number);
+		}
+	}
+
+	/**
+	 * Writes the pending games as a block.
+	 */
+	private void writeBlock() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GameRecordWriter writer = new GameRecordWriter(bytes);
+		for (GameRecord record : pending) {
+			writer.write(record);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		ByteBuffer buffer = ByteBuffer.allocate(8 + bytes.size());
+		buffer.putInt(bytes.size());
+		buffer.putInt((int) crc.getValue());
+		buffer.put(bytes.toByteArray());
+		buffer.flip();
+		long offset = dataLength;
+		while (buffer.hasRemaining()) {
+			dataLength += data.write(buffer, dataLength);
+		}
+		addBlock(offset, numOfGames - pending.size());
+		pending.clear();
+	}
+
+	/**
+	 * Records the position of a block written.
+	 */
+	private void addBlock(long offset, long firstGame) {
+		if (numOfBlocks == blockOffsets.length) {
+			blockOffsets = Arrays.copyOf(blockOffsets, numOfBlocks * 2);
+			blockFirstGames = Arrays.copyOf(blockFirstGames, numOfBlocks * 2);
+		}
+		blockOffsets[numOfBlocks] = offset;
+		blockFirstGames[numOfBlocks] = firstGame;
+		numOfBlocks++;
+	}
+
+	/**
+	 * Reads the games of the block between the specified offsets.
+	 *
+	 * @return the games, or null if the block is torn or corrupt
+	 */
+	private ArrayList<GameRecord> readBlock(long start, long end)
+			throws IOException {
+		if (end - start < 8) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - start,
+				Integer.MAX_VALUE));
+		while (buffer.hasRemaining()) {
+			if (data.read(buffer, start + buffer.position()) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		int length = buffer.getInt();
+		int crc = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			return null;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), 8, length);
+		if ((int) checksum.getValue() != crc) {
+			return null;
+		}
+		GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(
+				buffer.array(), 8, length));
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>();
+		GameRecord record;
+		while ((record = reader.read()) != null) {
+			games.add(record);
+		}
+		return games;
+	}
+
+	/**
+	 * Indexes the blocks written after the indexes were last saved, and cuts
+	 * off a torn block at the end.
+	 */
+	private void recover() throws IOException {
+		long size = data.size();
+		while (dataLength + 8 <= size) {
+			ByteBuffer header = ByteBuffer.allocate(8);
+			while (header.hasRemaining()
+					&& data.read(header, dataLength + header.position()) >= 0) {
+			}
+			long end = dataLength + 8 + header.getInt(0);
+			ArrayList<GameRecord> games = end <= size ? readBlock(dataLength,
+					end) : null;
+			if (games == null) {
+				break;
+			}
+			addBlock(dataLength, numOfGames);
+			for (GameRecord record : games) {
+				index(record, numOfGames++);
+			}
+			dataLength = end;
+		}
+		if (size > dataLength) {
+			data.truncate(dataLength);
+		}
+	}
+
+	/**
+	 * Saves the indexes to a new file, which then replaces the old one.
+	 */
+	private void writeIndex() throws IOException {
+		Path temp = directory.resolve(INDEX_FILE + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(temp)));
+		try {
+			out.writeInt(INDEX_MAGIC);
+			out.writeLong(dataLength);
+			out.writeLong(numOfGames);
+			out.writeInt(numOfBlocks);
+			for (int i = 0; i < numOfBlocks; i++) {
+				out.writeLong(blockOffsets[i]);
+				out.writeLong(blockFirstGames[i]);
+			}
+			out.writeInt(players.size());
+			for (String name : players.keySet()) {
+				out.writeUTF(name);
+				players.get(name).writeTo(out);
+			}
+			for (PostingList list : handTypes) {
+				list.writeTo(out);
+			}
+			for (PostingList list : winners) {
+				list.writeTo(out);
+			}
+		} finally {
+			out.close();
+		}
+		Files.move(temp, directory.resolve(INDEX_FILE),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads the indexes saved by writeIndex().
+	 */
+	private void readIndex(Path path) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(path)));
+		try {
+			if (in.readInt() != INDEX_MAGIC) {
+				throw new IOException("Not an index of games: " + path);
+			}
+			dataLength = in.readLong();
+			numOfGames = in.readLong();
+			int blocks = in.readInt();
+			for (int i = 0; i < blocks; i++) {
+				long offset = in.readLong();
+				addBlock(offset, in.readLong());
+			}
+			int numOfPlayers = in.readInt();
+			for (int i = 0; i < numOfPlayers; i++) {
+				String name = in.readUTF();
+				players.put(name, PostingList.readFrom(in));
+			}
+			for (int i = 0; i < handTypes.length; i++) {
+				handTypes[i] = PostingList.readFrom(in);
+			}
+			for (int i = 0; i < winners.length; i++) {
+				winners[i] = PostingList.readFrom(in);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * main() method for building an archive from an event log, or querying an
+	 * archive.
+	 *
+	 * @param args
+	 *            the directory of the archive, followed either by "import"
+	 *            and the directory of an event log, or by query terms:
+	 *            "player=NAME", "hand=TYPE" (e.g. "hand=StraightFlush") and
+	 *            "winner=SEAT"
+	 * @throws IOException
+	 *             if the archive or the log cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: GameArchive <archive directory> "
+					+ "[import <event log directory> | player=NAME hand=TYPE winner=SEAT]");
+			return;
+		}
+		GameArchive archive = new GameArchive(Paths.get(args[0]));
+		try {
+			if (args.length > 2 && args[1].equals("import")) {
+				long start = System.nanoTime();
+				ArrayList<GameRecord> games = GameRecorder.readGames(Paths
+						.get(args[2]));
+				for (GameRecord record : games) {
+					archive.add(record);
+				}
+				archive.flush();
+				System.out.println(String.format(
+						"Imported %d games in %.2f s; the archive holds %d games",
+						games.size(), (System.nanoTime() - start) / 1e9,
+						archive.getNumOfGames()));
+				return;
+			}
+
+			String player = null;
+			int handType = -1;
+			int winnerSeat = -1;
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].startsWith("player=")) {
+					player = args[i].substring(7);
+				} else if (args[i].startsWith("hand=")) {
+					handType = HandClassifier.typeOf(args[i].substring(5));
+					if (handType < 0) {
+						throw new IllegalArgumentException("Unknown hand: "
+								+ args[i].substring(5));
+					}
+				} else if (args[i].startsWith("winner=")) {
+					winnerSeat = Integer.parseInt(args[i].substring(7));
+				} else {
+					throw new IllegalArgumentException("Unknown term: " + args[i]);
+				}
+			}
+			long start = System.nanoTime();
+			long[] games = player != null && handType >= 0 ? archive
+					.findGamesWherePlayed(player, handType, winnerSeat)
+					: archive.query(player, handType, winnerSeat);
+			double millis = (System.nanoTime() - start) / 1e6;
+			for (long number : games) {
+				System.out.println(number + ": " + archive.read(number));
+			}
+			System.out.println(String.format("%d of %d games in %.3f ms",
+					games.length, archive.getNumOfGames(), millis));
+		} finally {
+			archive.close();
+		}
+	}
+}
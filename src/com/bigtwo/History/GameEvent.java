@@ -0,0 +1,158 @@
+package com.bigtwo.History;
+
+/**
+ * This class is used to model an event at a table of a card game server, as
+ * kept in a com.bigtwo.History.EventLog: a deal, a player getting ready, a
+ * move or a pass, a player joining or leaving, or a chat message. Every event
+ * carries the sequence number given by the log, the time it was logged, the
+ * table and the seat, and either a number or a text depending on its type.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameEvent {
+	/**
+	 * A new game is dealt; the value is the seed with which the deck was
+	 * shuffled.
+	 */
+	public static final int DEAL = 1;
+
+	/**
+	 * The player at the seat is ready for a new game.
+	 */
+	public static final int READY = 2;
+
+	/**
+	 * The player at the seat made a move; the value is the bits of the cards
+	 * played as a com.bigtwo.CardSet, or 0 for a pass.
+	 */
+	public static final int MOVE = 3;
+
+	/**
+	 * A player or a bot took the seat; the text is its name, and the value is
+	 * the resume token with which the player takes the seat back after a
+	 * restart, or 0 for a bot or a player who cannot resume.
+	 */
+	public static final int JOIN = 4;
+
+	/**
+	 * The player or bot at the seat left; the text is its name.
+	 */
+	public static final int QUIT = 5;
+
+	/**
+	 * The player at the seat sent a chat message; the text is the message.
+	 */
+	public static final int CHAT = 6;
+
+	private final long sequence; // the sequence number of this event in the log
+	private final long time; // the time this event was logged, in milliseconds
+	private final int type; // the type of this event
+	private final int tableID; // the ID of the table
+	private final int seat; // the seat, or -1 for the whole table
+	private final long value; // the seed or the cards of this event, or 0
+	private final String text; // the name or the message of this event, or null
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameEvent
+	 * class.
+	 *
+	 * @param sequence
+	 *            the sequence number of the event in the log
+	 * @param time
+	 *            the time the event was logged, in milliseconds since the epoch
+	 * @param type
+	 *            the type of the event
+	 * @param tableID
+	 *            the ID of the table
+	 * @param seat
+	 *            the seat, or -1 for the whole table
+	 * @param value
+	 *            the seed or the cards of the event, or 0
+	 * @param text
+	 *            the name or the message of the event, or null
+	 */
+	public GameEvent(long sequence, long time, int type, int tableID,
+			int seat, long value, String text) {
+		this.sequence = sequence;
+		this.time = time;
+		this.type = type;
+		this.tableID = tableID;
+		this.seat = seat;
+		this.value = value;
+		this.text = text;
+	}
+
+	/**
+	 * Returns the sequence number of this event in the log.
+	 *
+	 * @return the sequence number
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the time this event was logged.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the type of this event.
+	 *
+	 * @return DEAL, READY, MOVE, JOIN, QUIT or CHAT
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the ID of the table of this event.
+	 *
+	 * @return the ID of the table
+	 */
+	public int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the seat of this event.
+	 *
+	 * @return the seat, or -1 for the whole table
+	 */
+	public int getSeat() {
+		return seat;
+	}
+
+	/**
+	 * Returns the seed of a DEAL event or the cards of a MOVE event.
+	 *
+	 * @return the value of this event
+	 */
+	public long getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the name of a JOIN or QUIT event or the message of a CHAT event.
+	 *
+	 * @return the text of this event, or null
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Returns a string representation of this event.
+	 *
+	 * @return a string representation of this event
+	 */
+	public String toString() {
+		return "#" + sequence + " Table " + tableID + " seat " + seat
+				+ " type " + type + " value " + value
+				+ (text == null ? "" : " \"" + text + "\"");
+	}
+}
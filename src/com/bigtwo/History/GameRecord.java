@@ -0,0 +1,231 @@
+package com.bigtwo.History;
+
+import com.bigtwo.BigTwoDeck;
+
+import java.util.Arrays;
+
+/**
+ * This class is used to model a recorded Big Two game: the names of the
+ * players, the deal, and the moves in the order they were played. The deal is
+ * either the seed with which the server shuffled the deck, from which the
+ * hands are dealt again, or the hands themselves. Each move is kept as the
+ * seat of its player and the bits of its cards as a com.bigtwo.CardSet, 0
+ * being a pass. A record is filled move by move as the game is played, and
+ * checked against the rules by a com.bigtwo.History.GameReplay.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameRecord {
+	// the initial number of moves for which there is room
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final long gameID; // the ID of this game
+	private final int tableID; // the ID of the table at which this game was played
+	private final long time; // the time this game was dealt, in milliseconds
+	private final String[] names; // the names of the players in each seat
+	private final boolean seeded; // whether the deal is given by a seed
+	private final long seed; // the seed of the deal, if seeded
+	private final long[] hands; // the cards dealt to each player
+	private byte[] seats = new byte[INITIAL_CAPACITY]; // the seat of each move
+	private long[] moves = new long[INITIAL_CAPACITY]; // the cards of each move
+	private int numOfMoves = 0; // the number of moves recorded
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameRecord
+	 * class, for a game dealt from a deck shuffled with the specified seed as
+	 * the server does.
+	 *
+	 * @param gameID
+	 *            the ID of the game
+	 * @param tableID
+	 *            the ID of the table
+	 * @param time
+	 *            the time the game was dealt, in milliseconds since the epoch
+	 * @param names
+	 *            the names of the players in each seat; a name may be null
+	 * @param seed
+	 *            the seed with which the deck was shuffled
+	 */
+	public GameRecord(long gameID, int tableID, long time, String[] names,
+			long seed) {
+		this.gameID = gameID;
+		this.tableID = tableID;
+		this.time = time;
+		this.names = names.clone();
+		this.seeded = true;
+		this.seed = seed;
+		this.hands = new long[names.length];
+		BigTwoDeck.deal(seed, hands);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameRecord
+	 * class, for a game with the specified hands.
+	 *
+	 * @param gameID
+	 *            the ID of the game
+	 * @param tableID
+	 *            the ID of the table
+	 * @param time
+	 *            the time the game was dealt, in milliseconds since the epoch
+	 * @param names
+	 *            the names of the players in each seat; a name may be null
+	 * @param hands
+	 *            the bits of the cards dealt to each player
+	 */
+	public GameRecord(long gameID, int tableID, long time, String[] names,
+			long[] hands) {
+		this.gameID = gameID;
+		this.tableID = tableID;
+		this.time = time;
+		this.names = names.clone();
+		this.seeded = false;
+		this.seed = 0L;
+		this.hands = hands.clone();
+	}
+
+	/**
+	 * Adds a move to this record.
+	 *
+	 * @param seat
+	 *            the seat of the player who made the move
+	 * @param move
+	 *            the bits of the cards played, or 0 for a pass
+	 */
+	public void addMove(int seat, long move) {
+		if (numOfMoves == moves.length) {
+			seats = Arrays.copyOf(seats, numOfMoves * 2);
+			moves = Arrays.copyOf(moves, numOfMoves * 2);
+		}
+		seats[numOfMoves] = (byte) seat;
+		moves[numOfMoves] = move;
+		numOfMoves++;
+	}
+
+	/**
+	 * Returns the ID of this game.
+	 *
+	 * @return the ID of this game
+	 */
+	public long getGameID() {
+		return gameID;
+	}
+
+	/**
+	 * Returns the ID of the table at which this game was played.
+	 *
+	 * @return the ID of the table
+	 */
+	public int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the time this game was dealt.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of players of this game.
+	 *
+	 * @return the number of players
+	 */
+	public int getNumOfPlayers() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of the player in the specified seat.
+	 *
+	 * @param seat
+	 *            the seat of the player
+	 * @return the name of the player, or null
+	 */
+	public String getName(int seat) {
+		return names[seat];
+	}
+
+	/**
+	 * Returns true if the deal of this game is given by the seed of the deck.
+	 *
+	 * @return true if the deal is given by a seed
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * Returns the seed with which the deck of this game was shuffled.
+	 *
+	 * @return the seed of the deal, or 0 if the deal is given by the hands
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the cards dealt to the player in the specified seat.
+	 *
+	 * @param seat
+	 *            the seat of the player
+	 * @return the bits of the cards dealt to the player
+	 */
+	public long getHand(int seat) {
+		return hands[seat];
+	}
+
+	/**
+	 * Returns the cards dealt to every player.
+	 *
+	 * @return a copy of the bits of the cards dealt to each player
+	 */
+	public long[] getHands() {
+		return hands.clone();
+	}
+
+	/**
+	 * Returns the number of moves recorded, passes included.
+	 *
+	 * @return the number of moves
+	 */
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns the seat of the player who made the specified move.
+	 *
+	 * @param i
+	 *            the index of the move
+	 * @return the seat of the player
+	 */
+	public int getSeat(int i) {
+		return seats[i];
+	}
+
+	/**
+	 * Returns the cards of the specified move.
+	 *
+	 * @param i
+	 *            the index of the move
+	 * @return the bits of the cards played, or 0 for a pass
+	 */
+	public long getMove(int i) {
+		return moves[i];
+	}
+
+	/**
+	 * Returns a string representation of this record.
+	 *
+	 * @return a string representation of this record
+	 */
+	public String toString() {
+		return "Game " + gameID + " at Table " + tableID + " ("
+				+ (seeded ? "seed " + seed : "dealt") + ", " + numOfMoves
+				+ " moves)";
+	}
+}
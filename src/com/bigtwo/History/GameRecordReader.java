@@ -0,0 +1,230 @@
+package com.bigtwo.History;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * This class is used to read the com.bigtwo.History.GameRecord objects
+ * written to a stream by a com.bigtwo.History.GameRecordWriter, one at a
+ * time.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameRecordReader implements Closeable {
+	private final InputStream in; // the stream from which the games are read
+	private final ArrayList<String> names = new ArrayList<String>(); // the names read, by index
+	private long lastGameID = 0; // the ID of the previous game
+	private long lastTime = 0; // the time of the previous game
+	private long bits = 0; // the bits read and not yet used
+	private int numOfBits = 0; // the number of bits read and not yet used
+
+	/**
+	 * Creates and returns an instance of the
+	 * com.bigtwo.History.GameRecordReader class, and reads the start of the
+	 * stream. The stream should be buffered.
+	 *
+	 * @param in
+	 *            the stream from which the games are read
+	 * @throws IOException
+	 *             if the stream cannot be read or does not hold games
+	 */
+	public GameRecordReader(InputStream in) throws IOException {
+		this.in = in;
+		names.add(null);
+		for (byte b : GameRecordWriter.MAGIC) {
+			if (readByte() != b) {
+				throw new IOException("Not a stream of game records");
+			}
+		}
+		int version = readByte();
+		if (version != GameRecordWriter.VERSION) {
+			throw new IOException("Unknown version of game records: " + version);
+		}
+	}
+
+	/**
+	 * Reads the next game from the stream.
+	 *
+	 * @return the next game, or null at the end of the stream
+	 * @throws IOException
+	 *             if the stream cannot be read or is corrupt
+	 */
+	public GameRecord read() throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return null;
+		}
+		long gameID = lastGameID + unzigzag(readVarLong(first));
+		long time = lastTime + unzigzag(readVarLong(readByte()));
+		int tableID = (int) readVarLong(readByte());
+		int flags = readByte();
+		int numOfPlayers = flags >>> 1;
+		lastGameID = gameID;
+		lastTime = time;
+
+		String[] seatNames = new String[numOfPlayers];
+		for (int i = 0; i < numOfPlayers; i++) {
+			int index = (int) readVarLong(readByte());
+			if (index == names.size()) {
+				byte[] bytes = new byte[(int) readVarLong(readByte())];
+				for (int j = 0; j < bytes.length; j++) {
+					bytes[j] = (byte) readByte();
+				}
+				names.add(new String(bytes, StandardCharsets.UTF_8));
+			} else if (index > names.size()) {
+				throw new IOException("Corrupt game record: name " + index);
+			}
+			seatNames[i] = names.get(index);
+		}
+
+		GameRecord record;
+		if ((flags & 1) != 0) {
+			long seed = 0;
+			for (int i = 0; i < 8; i++) {
+				seed |= (long) readByte() << (i * 8);
+			}
+			record = new GameRecord(gameID, tableID, time, seatNames, seed);
+		} else {
+			long[] hands = new long[numOfPlayers];
+			for (int i = 0; i < numOfPlayers; i++) {
+				hands[i] = readBits(GameRecordWriter.NUM_OF_CARD_BITS);
+			}
+			alignBits();
+			record = new GameRecord(gameID, tableID, time, seatNames, hands);
+		}
+
+		long[] hands = record.getHands();
+		int n = (int) readVarLong(readByte());
+		int seatBits = GameRecordWriter.bitsFor(numOfPlayers);
+		int expected = GameRecordWriter.firstSeat(hands);
+		for (int i = 0; i < n; i++) {
+			int seat = readBits(1) != 0 ? expected : (int) readBits(seatBits);
+			long move = 0L;
+			if (readBits(1) == 0) {
+				long hand = seat < numOfPlayers ? hands[seat] : 0L;
+				int code = (int) readBits(3);
+				if (code == GameRecordWriter.RAW_MOVE) {
+					move = readBits(GameRecordWriter.NUM_OF_CARD_BITS);
+				} else {
+					int k = code + 1;
+					long numOfSets = GameRecordWriter.BINOMIALS[Long
+							.bitCount(hand)][k];
+					move = unrank(hand, k,
+							readBits(GameRecordWriter.bitsFor(numOfSets)));
+				}
+				if (seat < numOfPlayers) {
+					hands[seat] &= ~move;
+				}
+			}
+			record.addMove(seat, move);
+			expected = (seat + 1) % numOfPlayers;
+		}
+		alignBits();
+		return record;
+	}
+
+	/**
+	 * Closes the stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Returns the set of k cards of the hand with the specified rank in the
+	 * combinatorial number system.
+	 */
+	private static long unrank(long hand, int k, long rank) throws IOException {
+		long move = 0L;
+		int position = Long.bitCount(hand) - 1;
+		for (; k > 0; k--) {
+			while (position >= 0
+					&& GameRecordWriter.BINOMIALS[position][k] > rank) {
+				position--;
+			}
+			if (position < 0) {
+				throw new IOException("Corrupt game record: cards " + rank);
+			}
+			rank -= GameRecordWriter.BINOMIALS[position][k];
+			move |= nthCard(hand, position);
+			position--;
+		}
+		return move;
+	}
+
+	/**
+	 * Returns the bit of the n-th lowest card of the hand.
+	 */
+	private static long nthCard(long hand, int n) {
+		for (int i = 0; i < n; i++) {
+			hand &= hand - 1;
+		}
+		return Long.lowestOneBit(hand);
+	}
+
+	/**
+	 * Maps a value written by zigzag back to a signed value.
+	 */
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a value written in groups of seven bits, whose first byte has
+	 * already been read.
+	 */
+	private long readVarLong(int b) throws IOException {
+		long value = b & 0x7F;
+		for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+			if (shift > 63) {
+				throw new IOException("Corrupt game record: varint");
+			}
+			b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a byte, which must be there.
+	 */
+	private int readByte() throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException("Truncated game record");
+		}
+		return b;
+	}
+
+	/**
+	 * Reads n bits, n being at most 56.
+	 */
+	private long readBits(int n) throws IOException {
+		if (n == 0) {
+			return 0L;
+		}
+		while (numOfBits < n) {
+			bits |= (long) readByte() << numOfBits;
+			numOfBits += 8;
+		}
+		long value = bits & (-1L >>> (64 - n));
+		bits >>>= n;
+		numOfBits -= n;
+		return value;
+	}
+
+	/**
+	 * Drops the bits left in the current byte.
+	 */
+	private void alignBits() {
+		bits = 0;
+		numOfBits = 0;
+	}
+}
@@ -0,0 +1,280 @@
+package com.bigtwo.History;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class is used to write com.bigtwo.History.GameRecord objects to a
+ * stream in a compact binary format, read back by a
+ * com.bigtwo.History.GameRecordReader. A typical game takes about 60 bytes.
+ * <p>
+ * The stream starts with the four bytes "B2GR" and a version byte, and each
+ * game follows on a byte boundary:
+ * <ul>
+ * <li>the ID and the time of the game as varints of their differences from
+ * those of the previous game, and the ID of the table as a varint;</li>
+ * <li>a byte holding the number of players and whether the deal is seeded;</li>
+ * <li>the name of each seat as a varint index into the names already written
+ * in the stream, 0 being null; a new name is written in UTF-8 after its
+ * index;</li>
+ * <li>the deal, either the 8-byte seed or the 52 bits of the hand of each
+ * player;</li>
+ * <li>the number of moves as a varint, and the moves packed in bits.</li>
+ * </ul>
+ * A move takes one bit telling whether it is made by the expected player (the
+ * player after the previous one, or the holder of the 3 of Diamonds for the
+ * first move), followed by the seat otherwise, and one bit telling whether it
+ * is a pass. The cards of a play of one to five cards are written as a delta
+ * against the hand of the player: three bits for the number of cards, and the
+ * rank of the cards among all the sets of as many cards of the hand, in just
+ * enough bits. Any other move is written as its 52 bits.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameRecordWriter implements Closeable, Flushable {
+	// the bytes starting a stream of games
+	static final byte[] MAGIC = { 'B', '2', 'G', 'R' };
+	// the version of the format
+	static final int VERSION = 1;
+	// the number of bits of a set of cards
+	static final int NUM_OF_CARD_BITS = 52;
+	// the largest number of cards written as a delta against the hand
+	static final int MAX_DELTA_CARDS = 5;
+	// the code of the number of cards of a move written as its bits
+	static final int RAW_MOVE = 7;
+	// the number of sets of k cards among n, for n up to 52 and k up to 5
+	static final long[][] BINOMIALS = new long[NUM_OF_CARD_BITS + 1][MAX_DELTA_CARDS + 1];
+
+	static {
+		for (int n = 0; n <= NUM_OF_CARD_BITS; n++) {
+			BINOMIALS[n][0] = 1;
+			for (int k = 1; k <= MAX_DELTA_CARDS && k <= n; k++) {
+				BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+			}
+		}
+	}
+
+	private final OutputStream out; // the stream to which the games are written
+	private final HashMap<String, Integer> names = new HashMap<String, Integer>(); // the index of each name written
+	private long lastGameID = 0; // the ID of the previous game
+	private long lastTime = 0; // the time of the previous game
+	private byte[] buffer = new byte[256]; // the bytes of the game being written
+	private int length = 0; // the number of bytes in the buffer
+	private long bits = 0; // the bits not yet written to the buffer
+	private int numOfBits = 0; // the number of bits not yet written to the buffer
+
+	/**
+	 * Creates and returns an instance of the
+	 * com.bigtwo.History.GameRecordWriter class, and writes the start of the
+	 * stream.
+	 *
+	 * @param out
+	 *            the stream to which the games are written
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public GameRecordWriter(OutputStream out) throws IOException {
+		this.out = out;
+		out.write(MAGIC);
+		out.write(VERSION);
+	}
+
+	/**
+	 * Writes a game to the stream.
+	 *
+	 * @param record
+	 *            the game to be written
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void write(GameRecord record) throws IOException {
+		length = 0;
+		int numOfPlayers = record.getNumOfPlayers();
+		writeVarLong(zigzag(record.getGameID() - lastGameID));
+		writeVarLong(zigzag(record.getTime() - lastTime));
+		writeVarLong(record.getTableID());
+		writeByte(numOfPlayers << 1 | (record.isSeeded() ? 1 : 0));
+		lastGameID = record.getGameID();
+		lastTime = record.getTime();
+
+		for (int i = 0; i < numOfPlayers; i++) {
+			String name = record.getName(i);
+			Integer index = name == null ? Integer.valueOf(0) : names.get(name);
+			if (index != null) {
+				writeVarLong(index);
+			} else {
+				names.put(name, names.size() + 1);
+				writeVarLong(names.size());
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				writeVarLong(bytes.length);
+				for (byte b : bytes) {
+					writeByte(b);
+				}
+			}
+		}
+
+		long[] hands = record.getHands();
+		if (record.isSeeded()) {
+			long seed = record.getSeed();
+			for (int i = 0; i < 8; i++) {
+				writeByte((int) (seed >>> (i * 8)));
+			}
+		} else {
+			for (int i = 0; i < numOfPlayers; i++) {
+				writeBits(hands[i], NUM_OF_CARD_BITS);
+			}
+			alignBits();
+		}
+
+		int n = record.getNumOfMoves();
+		writeVarLong(n);
+		int seatBits = bitsFor(numOfPlayers);
+		int expected = firstSeat(hands);
+		for (int i = 0; i < n; i++) {
+			int seat = record.getSeat(i);
+			long move = record.getMove(i);
+			if (seat == expected) {
+				writeBits(1, 1);
+			} else {
+				writeBits(0, 1);
+				writeBits(seat, seatBits);
+			}
+			if (move == 0) {
+				writeBits(1, 1);
+			} else {
+				writeBits(0, 1);
+				long hand = seat < numOfPlayers ? hands[seat] : 0L;
+				int k = Long.bitCount(move);
+				if ((move & ~hand) == 0 && k <= MAX_DELTA_CARDS) {
+					writeBits(k - 1, 3);
+					writeBits(rank(hand, move), bitsFor(BINOMIALS[Long
+							.bitCount(hand)][k]));
+				} else {
+					writeBits(RAW_MOVE, 3);
+					writeBits(move, NUM_OF_CARD_BITS);
+				}
+				if (seat < numOfPlayers) {
+					hands[seat] &= ~move;
+				}
+			}
+			expected = (seat + 1) % numOfPlayers;
+		}
+		alignBits();
+		out.write(buffer, 0, length);
+	}
+
+	/**
+	 * Flushes the stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Closes the stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Returns the seat holding the 3 of Diamonds, who makes the first move.
+	 */
+	static int firstSeat(long[] hands) {
+		for (int i = 0; i < hands.length; i++) {
+			if ((hands[i] & 1L) != 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of bits needed to write a value from 0 to n - 1.
+	 */
+	static int bitsFor(long n) {
+		return n <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(n - 1);
+	}
+
+	/**
+	 * Returns the rank of a set of cards among all the sets of as many cards
+	 * of the hand, in the combinatorial number system.
+	 */
+	private static long rank(long hand, long move) {
+		long rank = 0;
+		int k = 0;
+		int position = 0;
+		for (long cards = hand; cards != 0; cards &= cards - 1, position++) {
+			if ((move & Long.lowestOneBit(cards)) != 0) {
+				rank += BINOMIALS[position][++k];
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Maps a signed value to an unsigned one, small in magnitude either way.
+	 */
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Writes a value in groups of seven bits, the lowest first.
+	 */
+	private void writeVarLong(long value) {
+		while ((value & ~0x7FL) != 0) {
+			writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte((int) value);
+	}
+
+	/**
+	 * Writes a byte to the buffer.
+	 */
+	private void writeByte(int b) {
+		if (length == buffer.length) {
+			buffer = Arrays.copyOf(buffer, length * 2);
+		}
+		buffer[length++] = (byte) b;
+	}
+
+	/**
+	 * Writes the lowest n bits of a value, n being at most 56.
+	 */
+	private void writeBits(long value, int n) {
+		if (n == 0) {
+			return;
+		}
+		bits |= (value & (-1L >>> (64 - n))) << numOfBits;
+		numOfBits += n;
+		while (numOfBits >= 8) {
+			writeByte((int) bits);
+			bits >>>= 8;
+			numOfBits -= 8;
+		}
+	}
+
+	/**
+	 * Writes the bits left, padded to a whole byte.
+	 */
+	private void alignBits() {
+		if (numOfBits > 0) {
+			writeByte((int) bits);
+		}
+		bits = 0;
+		numOfBits = 0;
+	}
+}
@@ -0,0 +1,151 @@
+package com.bigtwo.History;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class is used to gather the events of a com.bigtwo.History.EventLog
+ * into com.bigtwo.History.GameRecord objects, one per game. The events of all
+ * the tables are fed in the order of the log; a JOIN event names the player of
+ * a seat, a DEAL event starts a game at its table, and the MOVE events which
+ * follow are added to it. A game is finished as soon as a player has played
+ * all the cards dealt to them. The ID of a game is the sequence number of its
+ * DEAL event, so it is unique in the log.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameRecorder {
+	private final int numOfPlayers; // the number of players of a game
+	private final int numOfCardsPerPlayer; // the number of cards dealt to each player
+	private final HashMap<Integer, TableGames> tables = new HashMap<Integer, TableGames>(); // the games in progress at each table
+	private final ArrayList<GameRecord> finishedGames = new ArrayList<GameRecord>(); // the games finished and not yet taken
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameRecorder
+	 * class, for Big Two games between four players.
+	 */
+	public GameRecorder() {
+		this(4);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameRecorder
+	 * class.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players of a game
+	 */
+	public GameRecorder(int numOfPlayers) {
+		this.numOfPlayers = numOfPlayers;
+		this.numOfCardsPerPlayer = 52 / numOfPlayers;
+	}
+
+	/**
+	 * Adds an event of the log. The games finished by the event can then be
+	 * taken by takeFinishedGames().
+	 *
+	 * @param event
+	 *            the event
+	 */
+	public void add(GameEvent event) {
+		Integer tableID = event.getTableID();
+		TableGames table = tables.get(tableID);
+		if (table == null) {
+			table = new TableGames();
+			tables.put(tableID, table);
+		}
+		int seat = event.getSeat();
+
+		switch (event.getType()) {
+		case GameEvent.JOIN:
+			if (seat >= 0 && seat < numOfPlayers) {
+				table.names[seat] = event.getText();
+			}
+			break;
+		case GameEvent.DEAL:
+			table.game = new GameRecord(event.getSequence(), event.getTableID(),
+					event.getTime(), table.names, event.getValue());
+			table.numOfCardsPlayed = new int[numOfPlayers];
+			break;
+		case GameEvent.MOVE:
+			if (table.game == null || seat < 0 || seat >= numOfPlayers) {
+				break;
+			}
+			long move = event.getValue();
+			table.game.addMove(seat, move);
+			table.numOfCardsPlayed[seat] += Long.bitCount(move);
+			if (table.numOfCardsPlayed[seat] >= numOfCardsPerPlayer) {
+				finishedGames.add(table.game);
+				table.game = null;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Returns the games finished since the last call, in the order they
+	 * finished.
+	 *
+	 * @return the list of the finished games
+	 */
+	public ArrayList<GameRecord> takeFinishedGames() {
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>(finishedGames);
+		finishedGames.clear();
+		return games;
+	}
+
+	/**
+	 * Returns the games still in progress, at the end of the log or when the
+	 * server stopped.
+	 *
+	 * @return the list of the unfinished games
+	 */
+	public ArrayList<GameRecord> getUnfinishedGames() {
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>();
+		for (TableGames table : tables.values()) {
+			if (table.game != null) {
+				games.add(table.game);
+			}
+		}
+		return games;
+	}
+
+	/**
+	 * Reads the whole event log in the specified directory, and returns the
+	 * games finished in it.
+	 *
+	 * @param directory
+	 *            the directory of the log
+	 * @return the list of the finished games, in the order they finished
+	 * @throws IOException
+	 *             if the log cannot be read
+	 */
+	public static ArrayList<GameRecord> readGames(Path directory)
+			throws IOException {
+		GameRecorder recorder = new GameRecorder();
+		EventLogReader reader = new EventLogReader(directory);
+		try {
+			GameEvent event;
+			while ((event = reader.next()) != null) {
+				recorder.add(event);
+			}
+		} finally {
+			reader.close();
+		}
+		return recorder.takeFinishedGames();
+	}
+
+	/**
+	 * This inner class is used to keep the players and the game in progress
+	 * at a table.
+	 */
+	private class TableGames {
+		private final String[] names = new String[numOfPlayers]; // the names of the players in each seat
+		private GameRecord game = null; // the game in progress, or null
+		private int[] numOfCardsPlayed; // the number of cards played by each player
+	}
+}
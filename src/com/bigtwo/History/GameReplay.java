@@ -0,0 +1,183 @@
+package com.bigtwo.History;
+
+import com.bigtwo.BigTwoState;
+
+/**
+ * This class is used to replay a com.bigtwo.History.GameRecord under the
+ * rules of Big Two. The moves are checked once, when the replay is created,
+ * by the same rules as the server checks the moves of the players: each move
+ * must be made by the player whose turn it is, and must be legal at that
+ * point. The replay stops at the first move which is not.
+ * <p>
+ * While checking, a copy of the state is kept every few moves as a keyframe.
+ * Seeking to any move then starts from the keyframe before it and plays at
+ * most the interval between keyframes, and stepping forward from the last
+ * move sought plays a single move, so that seeking costs a bounded number of
+ * moves whatever the length of the game.
+ *
+ * @author Anmol Gupta
+ */
+public final class GameReplay {
+	/**
+	 * The default number of moves between two keyframes.
+	 */
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+	private final GameRecord record; // the game replayed
+	private final int interval; // the number of moves between two keyframes
+	private final BigTwoState[] keyframes; // the state before every interval-th move
+	private final int numOfMoves; // the number of legal moves before the first illegal one
+	private final boolean valid; // whether all the moves are legal
+	private final int winner; // the seat of the winner, or -1
+	private final BigTwoState cursor; // the state of the last seek
+	private int cursorIdx; // the number of moves played in the cursor
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameReplay
+	 * class, with a keyframe every DEFAULT_KEYFRAME_INTERVAL moves.
+	 *
+	 * @param record
+	 *            the game to be replayed
+	 */
+	public GameReplay(GameRecord record) {
+		this(record, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.GameReplay
+	 * class, and checks the moves of the game.
+	 *
+	 * @param record
+	 *            the game to be replayed
+	 * @param interval
+	 *            the number of moves between two keyframes
+	 */
+	public GameReplay(GameRecord record, int interval) {
+		this.record = record;
+		this.interval = interval;
+		int n = record.getNumOfMoves();
+		keyframes = new BigTwoState[n / interval + 1];
+
+		BigTwoState state = new BigTwoState(record.getNumOfPlayers());
+		state.start(record.getHands());
+		int i = 0;
+		for (; i < n; i++) {
+			if (i % interval == 0) {
+				keyframes[i / interval] = new BigTwoState(state);
+			}
+			long move = record.getMove(i);
+			if (record.getSeat(i) != state.getCurrentIdx()
+					|| !state.isLegal(move)) {
+				break;
+			}
+			state.apply(move);
+		}
+		if (i == n && n % interval == 0) {
+			keyframes[n / interval] = new BigTwoState(state);
+		}
+		numOfMoves = i;
+		valid = i == n;
+		winner = state.getWinner();
+		cursor = state;
+		cursorIdx = i;
+	}
+
+	/**
+	 * Returns the game replayed.
+	 *
+	 * @return the record of the game
+	 */
+	public GameRecord getRecord() {
+		return record;
+	}
+
+	/**
+	 * Returns true if every move of the game is legal.
+	 *
+	 * @return true if the game is valid
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Returns the number of moves which can be replayed, which is the number
+	 * of moves of a valid game, or the index of the first illegal move.
+	 *
+	 * @return the number of legal moves
+	 */
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns true if the game has been played to its end.
+	 *
+	 * @return true if a player has played all their cards
+	 */
+	public boolean isFinished() {
+		return winner >= 0;
+	}
+
+	/**
+	 * Returns the seat of the player who has won the game.
+	 *
+	 * @return the seat of the winner, or -1 if the game is not finished
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Replays the specified game in the specified state, without keyframes,
+	 * up to its first illegal move.
+	 *
+	 * @param record
+	 *            the game to be replayed
+	 * @param state
+	 *            the state in which the game is replayed; it is left after the
+	 *            last legal move
+	 * @return the number of legal moves before the first illegal one, which is
+	 *         the number of moves of the game if it is valid
+	 */
+	public static int replay(GameRecord record, BigTwoState state) {
+		state.start(record.getHands());
+		int n = record.getNumOfMoves();
+		for (int i = 0; i < n; i++) {
+			long move = record.getMove(i);
+			if (record.getSeat(i) != state.getCurrentIdx()
+					|| !state.isLegal(move)) {
+				return i;
+			}
+			state.apply(move);
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the state of the game after the specified number of moves. The
+	 * state returned is shared by the following seeks, and must not be
+	 * changed; copy it if needed.
+	 *
+	 * @param n
+	 *            the number of moves, from 0 to getNumOfMoves()
+	 * @return the state after n moves
+	 * @throws IndexOutOfBoundsException
+	 *             if n is out of range
+	 */
+	public BigTwoState seek(int n) {
+		if (n < 0 || n > numOfMoves) {
+			throw new IndexOutOfBoundsException("Move " + n + " of "
+					+ numOfMoves);
+		}
+		if (n < cursorIdx || n - cursorIdx > n % interval) {
+			// starts from the keyframe before the move
+			cursor.copyFrom(keyframes[n / interval]);
+			cursorIdx = n - n % interval;
+		}
+		for (; cursorIdx < n; cursorIdx++) {
+			cursor.apply(record.getMove(cursorIdx));
+		}
+		return cursor;
+	}
+}
@@ -0,0 +1,323 @@
+package com.bigtwo.History;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class is used to model a posting list of an index: an ascending list
+ * of non-negative longs, such as the numbers of the games in which a player
+ * took part. The values are kept compressed, as varints of their differences,
+ * with a skip entry every SKIP_INTERVAL values so that a cursor can jump
+ * ahead to a value without decoding everything before it. Values are only
+ * ever appended, and a view returned by view() keeps reading the values which
+ * were there when it was taken, while more are appended to the list.
+ * <p>
+ * intersect() finds the values common to several lists by leapfrogging: the
+ * cursor of the shortest list proposes a value, and the other cursors jump to
+ * it, any of them which jumps past it proposing the next value instead.
+ *
+ * @author Anmol Gupta
+ */
+public final class PostingList {
+	// the number of values between two skip entries
+	private static final int SKIP_INTERVAL = 64;
+
+	private byte[] bytes; // the varints of the differences between the values
+	private int length; // the number of bytes used
+	private int size; // the number of values
+	private long last = -1; // the last value
+	private long[] skipValues; // the value at each skip entry
+	private int[] skipOffsets; // the offset after the value at each skip entry
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.PostingList
+	 * class, with no values.
+	 */
+	public PostingList() {
+		bytes = new byte[16];
+		skipValues = new long[4];
+		skipOffsets = new int[4];
+	}
+
+	/**
+	 * Creates a view of the specified list, sharing its arrays.
+	 */
+	private PostingList(PostingList list) {
+		bytes = list.bytes;
+		length = list.length;
+		size = list.size;
+		last = list.last;
+		skipValues = list.skipValues;
+		skipOffsets = list.skipOffsets;
+	}
+
+	/**
+	 * Appends a value to this list.
+	 *
+	 * @param value
+	 *            the value, greater than the last value of the list
+	 * @throws IllegalArgumentException
+	 *             if the value is not greater than the last value
+	 */
+	public void add(long value) {
+		if (value <= last) {
+			throw new IllegalArgumentException("Posting " + value
+					+ " is not after " + last);
+		}
+		if (length + 10 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		long delta = value - last;
+		while ((delta & ~0x7FL) != 0) {
+			bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+			delta >>>= 7;
+		}
+		bytes[length++] = (byte) delta;
+		if (size % SKIP_INTERVAL == 0) {
+			int j = size / SKIP_INTERVAL;
+			if (j == skipValues.length) {
+				skipValues = Arrays.copyOf(skipValues, j * 2);
+				skipOffsets = Arrays.copyOf(skipOffsets, j * 2);
+			}
+			skipValues[j] = value;
+			skipOffsets[j] = length;
+		}
+		last = value;
+		size++;
+	}
+
+	/**
+	 * Returns the number of values in this list.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the values of this list.
+	 *
+	 * @return the number of compressed bytes
+	 */
+	public int getNumOfBytes() {
+		return length;
+	}
+
+	/**
+	 * Returns a view of the values of this list as they are now, which is not
+	 * changed by the values appended afterwards.
+	 *
+	 * @return a view of this list
+	 */
+	public PostingList view() {
+		return new PostingList(this);
+	}
+
+	/**
+	 * Returns a cursor over the values of this list as they are now.
+	 *
+	 * @return a cursor before the first value
+	 */
+	public Cursor cursor() {
+		return new Cursor(this);
+	}
+
+	/**
+	 * Returns the values of this list.
+	 *
+	 * @return an array of the values, in ascending order
+	 */
+	public long[] toArray() {
+		long[] values = new long[size];
+		Cursor cursor = cursor();
+		for (int i = 0; i < size; i++) {
+			values[i] = cursor.next();
+		}
+		return values;
+	}
+
+	/**
+	 * Writes this list to a stream.
+	 *
+	 * @param out
+	 *            the stream
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(length);
+		out.write(bytes, 0, length);
+	}
+
+	/**
+	 * Reads a list written by writeTo().
+	 *
+	 * @param in
+	 *            the stream
+	 * @return the list read
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	public static PostingList readFrom(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		// decodes the values again to rebuild the skip entries
+		PostingList list = new PostingList();
+		long value = -1;
+		int offset = 0;
+		for (int i = 0; i < size; i++) {
+			long delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				delta |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			value += delta;
+			list.add(value);
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the values common to all the specified lists.
+	 *
+	 * @param lists
+	 *            the lists
+	 * @return an array of the common values, in ascending order; empty if no
+	 *         list is given
+	 */
+	public static long[] intersect(PostingList... lists) {
+		if (lists.length == 0) {
+			return new long[0];
+		}
+		Cursor[] cursors = new Cursor[lists.length];
+		for (int i = 0; i < lists.length; i++) {
+			cursors[i] = lists[i].cursor();
+		}
+		Arrays.sort(cursors, new Comparator<Cursor>() {
+			public int compare(Cursor c1, Cursor c2) {
+				return Integer.compare(c1.size, c2.size);
+			}
+		});
+
+		long[] values = new long[cursors[0].size];
+		int n = 0;
+		long candidate = cursors[0].next();
+		search: while (candidate >= 0) {
+			for (int i = 1; i < cursors.length; i++) {
+				long value = cursors[i].advance(candidate);
+				if (value < 0) {
+					break search;
+				}
+				if (value > candidate) {
+					candidate = cursors[0].advance(value);
+					continue search;
+				}
+			}
+			values[n++] = candidate;
+			candidate = cursors[0].next();
+		}
+		return Arrays.copyOf(values, n);
+	}
+
+	/**
+	 * This inner class is used to read the values of a list in order, and to
+	 * jump ahead to a value.
+	 */
+	public static final class Cursor {
+		private final byte[] bytes; // the bytes of the list
+		private final int size; // the number of values of the list
+		private final long[] skipValues; // the value at each skip entry
+		private final int[] skipOffsets; // the offset after the value at each skip entry
+		private int index = 0; // the index of the next value
+		private int offset = 0; // the offset of the next value
+		private long value = -1; // the current value, or -1 before the first
+
+		/**
+		 * Creates a cursor over the values of the specified list as they are
+		 * now.
+		 */
+		private Cursor(PostingList list) {
+			bytes = list.bytes;
+			size = list.size;
+			skipValues = list.skipValues;
+			skipOffsets = list.skipOffsets;
+		}
+
+		/**
+		 * Moves to the next value.
+		 *
+		 * @return the next value, or -1 at the end of the list
+		 */
+		public long next() {
+			if (index >= size) {
+				index = size + 1;
+				return value = -1;
+			}
+			long delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				delta |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			index++;
+			return value += delta;
+		}
+
+		/**
+		 * Moves to the first value at least the specified target, unless the
+		 * current value already is.
+		 *
+		 * @param target
+		 *            the value sought
+		 * @return the first value at least the target, or -1 at the end of the
+		 *         list
+		 */
+		public long advance(long target) {
+			if (index > size) {
+				return -1;
+			}
+			if (index > 0 && value >= target) {
+				return value;
+			}
+			// jumps to the last skip entry not after the target
+			int numOfSkips = (size + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+			int j = Arrays.binarySearch(skipValues, 0, numOfSkips, target);
+			if (j < 0) {
+				j = -j - 2;
+			}
+			if (j >= 0 && j * SKIP_INTERVAL >= index) {
+				index = j * SKIP_INTERVAL + 1;
+				offset = skipOffsets[j];
+				value = skipValues[j];
+				if (value >= target) {
+					return value;
+				}
+			}
+			long v;
+			while ((v = next()) >= 0 && v < target) {
+			}
+			return v;
+		}
+
+		/**
+		 * Returns the current value.
+		 *
+		 * @return the current value, or -1 before the first value or at the
+		 *         end of the list
+		 */
+		public long getValue() {
+			return value;
+		}
+	}
+}
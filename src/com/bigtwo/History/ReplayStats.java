@@ -0,0 +1,151 @@
+package com.bigtwo.History;
+
+import java.util.ArrayList;
+
+/**
+ * This class is used to gather the results of replaying a number of recorded
+ * games: how many were valid and finished, the wins of each seat, and the IDs
+ * of the games with an illegal move. The results of games replayed by
+ * different threads are gathered separately and then merged.
+ *
+ * @author Anmol Gupta
+ */
+public class ReplayStats {
+	private final int numOfPlayers; // the number of players of a game
+	private long numOfGames = 0; // the number of games
+	private long numOfValidGames = 0; // the number of games without an illegal move
+	private long numOfFinishedGames = 0; // the number of valid games played to their end
+	private long numOfMoves = 0; // the number of legal moves, passes included
+	private final long[] seatWins; // the number of wins of each seat
+	private final ArrayList<Long> invalidGames = new ArrayList<Long>(); // the IDs of the games with an illegal move
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.ReplayStats
+	 * class, for games with the specified number of players.
+	 *
+	 * @param numOfPlayers
+	 *            the number of players of a game
+	 */
+	public ReplayStats(int numOfPlayers) {
+		this.numOfPlayers = numOfPlayers;
+		seatWins = new long[numOfPlayers];
+	}
+
+	/**
+	 * Records a replayed game.
+	 *
+	 * @param record
+	 *            the game
+	 * @param numOfLegalMoves
+	 *            the number of legal moves before the first illegal one
+	 * @param winner
+	 *            the seat of the winner, or -1 if the game is not finished
+	 */
+	public void addGame(GameRecord record, int numOfLegalMoves, int winner) {
+		numOfGames++;
+		numOfMoves += numOfLegalMoves;
+		if (numOfLegalMoves < record.getNumOfMoves()) {
+			invalidGames.add(record.getGameID());
+			return;
+		}
+		numOfValidGames++;
+		if (winner >= 0) {
+			numOfFinishedGames++;
+			seatWins[winner]++;
+		}
+	}
+
+	/**
+	 * Adds the results of other games to these results.
+	 *
+	 * @param stats
+	 *            the results to be added
+	 */
+	public void merge(ReplayStats stats) {
+		numOfGames += stats.numOfGames;
+		numOfValidGames += stats.numOfValidGames;
+		numOfFinishedGames += stats.numOfFinishedGames;
+		numOfMoves += stats.numOfMoves;
+		for (int i = 0; i < numOfPlayers; i++) {
+			seatWins[i] += stats.seatWins[i];
+		}
+		invalidGames.addAll(stats.invalidGames);
+	}
+
+	/**
+	 * Returns the number of games.
+	 *
+	 * @return the number of games
+	 */
+	public long getNumOfGames() {
+		return numOfGames;
+	}
+
+	/**
+	 * Returns the number of games without an illegal move.
+	 *
+	 * @return the number of valid games
+	 */
+	public long getNumOfValidGames() {
+		return numOfValidGames;
+	}
+
+	/**
+	 * Returns the number of valid games played to their end.
+	 *
+	 * @return the number of finished games
+	 */
+	public long getNumOfFinishedGames() {
+		return numOfFinishedGames;
+	}
+
+	/**
+	 * Returns the number of legal moves replayed, passes included.
+	 *
+	 * @return the number of moves
+	 */
+	public long getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Returns the number of wins of the specified seat.
+	 *
+	 * @param seat
+	 *            the seat
+	 * @return the number of wins
+	 */
+	public long getNumOfWins(int seat) {
+		return seatWins[seat];
+	}
+
+	/**
+	 * Returns the IDs of the games with an illegal move.
+	 *
+	 * @return the list of the IDs of the invalid games
+	 */
+	public ArrayList<Long> getInvalidGames() {
+		return invalidGames;
+	}
+
+	/**
+	 * Returns a report of the results.
+	 *
+	 * @return a report of the results
+	 */
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append("Games: ").append(numOfGames).append(", valid: ")
+				.append(numOfValidGames).append(", finished: ")
+				.append(numOfFinishedGames).append(", moves: ")
+				.append(numOfMoves).append('\n');
+		for (int i = 0; i < numOfPlayers; i++) {
+			report.append("Seat ").append(i).append(": ")
+					.append(seatWins[i]).append(" wins\n");
+		}
+		if (!invalidGames.isEmpty()) {
+			report.append("Invalid games: ").append(invalidGames).append('\n');
+		}
+		return report.toString();
+	}
+}
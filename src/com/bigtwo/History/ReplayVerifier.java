@@ -0,0 +1,114 @@
+package com.bigtwo.History;
+
+import com.bigtwo.BigTwoState;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class is used to check a whole archive of recorded games against the
+ * rules of Big Two on all the cores. The games are split into batches which a
+ * ForkJoinPool replays, each batch reusing a single com.bigtwo.BigTwoState and
+ * gathering its own com.bigtwo.History.ReplayStats, which are merged as the
+ * batches join.
+ *
+ * @author Anmol Gupta
+ */
+public class ReplayVerifier {
+	// the number of players of a game
+	private static final int NUM_OF_PLAYERS = 4;
+	// the number of games below which a batch is not split any further
+	private static final int GAMES_PER_BATCH = 256;
+
+	private final List<GameRecord> games; // the games to be checked
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.ReplayVerifier
+	 * class.
+	 *
+	 * @param games
+	 *            the games to be checked
+	 */
+	public ReplayVerifier(List<GameRecord> games) {
+		this.games = games;
+	}
+
+	/**
+	 * Replays all the games on the specified pool.
+	 *
+	 * @param pool
+	 *            the pool replaying the games
+	 * @return the results of the games
+	 */
+	public ReplayStats verify(ForkJoinPool pool) {
+		return pool.invoke(new Batch(0, games.size()));
+	}
+
+	/**
+	 * This inner class is used to replay a range of games, split in halves
+	 * until the range is small enough.
+	 */
+	private class Batch extends RecursiveTask<ReplayStats> {
+		private static final long serialVersionUID = 1L;
+		private final int from; // the index of the first game
+		private final int to; // the index after the last game
+
+		Batch(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected ReplayStats compute() {
+			if (to - from > GAMES_PER_BATCH) {
+				int middle = (from + to) >>> 1;
+				Batch second = new Batch(middle, to);
+				second.fork();
+				ReplayStats stats = new Batch(from, middle).compute();
+				stats.merge(second.join());
+				return stats;
+			}
+			ReplayStats stats = new ReplayStats(NUM_OF_PLAYERS);
+			BigTwoState state = new BigTwoState(NUM_OF_PLAYERS);
+			for (int i = from; i < to; i++) {
+				GameRecord record = games.get(i);
+				int n = GameReplay.replay(record, state);
+				stats.addGame(record, n, state.getWinner());
+			}
+			return stats;
+		}
+	}
+
+	/**
+	 * main() method for checking the games of an event log.
+	 *
+	 * @param args
+	 *            the directory of the event log
+	 * @throws IOException
+	 *             if the log cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: ReplayVerifier <event log directory>");
+			return;
+		}
+		long start = System.nanoTime();
+		List<GameRecord> games = GameRecorder.readGames(Paths.get(args[0]));
+		double readSeconds = (System.nanoTime() - start) / 1e9;
+
+		ForkJoinPool pool = new ForkJoinPool();
+		start = System.nanoTime();
+		ReplayStats stats = new ReplayVerifier(games).verify(pool);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+
+		System.out.println(String.format(
+				"Read %d games in %.2f s; replayed them in %.2f s on %d threads: %.0f games/s, %.0f moves/s",
+				games.size(), readSeconds, seconds, pool.getParallelism(),
+				stats.getNumOfGames() / seconds, stats.getNumOfMoves()
+						/ seconds));
+		System.out.print(stats);
+	}
+}
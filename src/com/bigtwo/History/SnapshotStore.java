@@ -0,0 +1,207 @@
+package com.bigtwo.History;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class is used to keep the snapshots of the tables of a card game
+ * server in a directory, one file per table, so that the tables can be
+ * restored after the server stops. Snapshots are incremental: the file of a
+ * table is only written again when something has happened at the table.
+ * Every file is written to a temporary file, forced to the disk and then
+ * renamed, so a crash leaves either the old or the new snapshot.
+ * <p>
+ * The server writes the snapshots in rounds, and records after each round
+ * the sequence number of the event log at its start. Every event up to that
+ * number is covered by the snapshots, so a restart only replays the events
+ * after it.
+ *
+ * @author Anmol Gupta
+ */
+public final class SnapshotStore {
+	// the first int of a snapshot file, which also tells its format
+	private static final int MAGIC = 0x42325454;
+	// the prefix and the suffix of the names of the snapshot files
+	private static final String TABLE_PREFIX = "table-";
+	private static final String TABLE_SUFFIX = ".snap";
+	// the name of the file of the last round
+	private static final String ROUND_FILE = "round.snap";
+
+	private final Path directory; // the directory of the snapshots
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.SnapshotStore
+	 * class.
+	 *
+	 * @param directory
+	 *            the directory of the snapshots, created if needed
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	public SnapshotStore(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+	}
+
+	/**
+	 * Returns the directory of the snapshots.
+	 *
+	 * @return the directory of the snapshots
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes the snapshot of a table, replacing the previous one.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	public void write(TableSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(snapshot.getTableID());
+		out.writeLong(snapshot.getSequence());
+		out.writeByte(snapshot.getNumOfSeats());
+		for (int i = 0; i < snapshot.getNumOfSeats(); i++) {
+			String name = snapshot.getName(i);
+			out.writeBoolean(name != null);
+			if (name != null) {
+				out.writeUTF(name);
+			}
+			out.writeLong(snapshot.getToken(i));
+			out.writeBoolean(snapshot.isReady(i));
+		}
+		GameRecord game = snapshot.getGame();
+		out.writeBoolean(game != null);
+		if (game != null) {
+			ByteArrayOutputStream record = new ByteArrayOutputStream();
+			new GameRecordWriter(record).write(game);
+			out.writeInt(record.size());
+			record.writeTo(out);
+		}
+		out.flush();
+		writeAtomically(directory.resolve(String.format("%s%05d%s",
+				TABLE_PREFIX, snapshot.getTableID(), TABLE_SUFFIX)), bytes
+				.toByteArray());
+	}
+
+	/**
+	 * Records the end of a round of snapshots.
+	 *
+	 * @param sequence
+	 *            the sequence number of the event log when the round started
+	 * @throws IOException
+	 *             if the round cannot be recorded
+	 */
+	public void writeRound(long sequence) throws IOException {
+		writeAtomically(directory.resolve(ROUND_FILE), ByteBuffer.allocate(8)
+				.putLong(sequence).array());
+	}
+
+	/**
+	 * Returns the sequence number recorded by the last round of snapshots.
+	 *
+	 * @return the sequence number, or 0 if no round has ended
+	 * @throws IOException
+	 *             if the round cannot be read
+	 */
+	public long readRound() throws IOException {
+		Path path = directory.resolve(ROUND_FILE);
+		if (!Files.exists(path)) {
+			return 0L;
+		}
+		return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+	}
+
+	/**
+	 * Reads the snapshots of all the tables.
+	 *
+	 * @return the list of the snapshots
+	 * @throws IOException
+	 *             if a snapshot cannot be read
+	 */
+	public ArrayList<TableSnapshot> readAll() throws IOException {
+		ArrayList<TableSnapshot> snapshots = new ArrayList<TableSnapshot>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				TABLE_PREFIX + "*" + TABLE_SUFFIX);
+		try {
+			for (Path path : stream) {
+				snapshots.add(read(path));
+			}
+		} finally {
+			stream.close();
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Reads the snapshot in the specified file.
+	 */
+	private static TableSnapshot read(Path path) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				Files.readAllBytes(path)));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a snapshot of a table: " + path);
+		}
+		int tableID = in.readInt();
+		long sequence = in.readLong();
+		int numOfSeats = in.readUnsignedByte();
+		String[] names = new String[numOfSeats];
+		long[] tokens = new long[numOfSeats];
+		boolean[] ready = new boolean[numOfSeats];
+		for (int i = 0; i < numOfSeats; i++) {
+			if (in.readBoolean()) {
+				names[i] = in.readUTF();
+			}
+			tokens[i] = in.readLong();
+			ready[i] = in.readBoolean();
+		}
+		GameRecord game = null;
+		if (in.readBoolean()) {
+			byte[] record = new byte[in.readInt()];
+			in.readFully(record);
+			game = new GameRecordReader(new ByteArrayInputStream(record))
+					.read();
+		}
+		return new TableSnapshot(tableID, sequence, names, tokens, ready,
+				game);
+	}
+
+	/**
+	 * Writes the bytes to a temporary file, forces it to the disk, and
+	 * renames it to the target.
+	 */
+	private static void writeAtomically(Path target, byte[] bytes)
+			throws IOException {
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		} finally {
+			channel.close();
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,123 @@
+package com.bigtwo.History;
+
+/**
+ * This class is used to model a snapshot of a table of a card game server:
+ * the names, resume tokens and ready states of its seats, and the game in
+ * progress, if any,
+ * as a com.bigtwo.History.GameRecord of its deal and its moves. The hands,
+ * the hands on the table and the player of the current turn follow from
+ * replaying the moves. A snapshot also holds the sequence number of the last
+ * event of the table in the com.bigtwo.History.EventLog, so that the events
+ * logged after it can be replayed on top of it.
+ *
+ * @author Anmol Gupta
+ */
+public final class TableSnapshot {
+	private final int tableID; // the ID of the table
+	private final long sequence; // the sequence number of the last event of the table
+	private final String[] names; // the name of the player of each seat, or null
+	private final long[] tokens; // the resume token of each seat, or 0
+	private final boolean[] ready; // the ready state of each seat
+	private final GameRecord game; // the game in progress, or null
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.History.TableSnapshot
+	 * class.
+	 *
+	 * @param tableID
+	 *            the ID of the table
+	 * @param sequence
+	 *            the sequence number of the last event of the table in the
+	 *            event log, or 0 if the events are not logged
+	 * @param names
+	 *            the name of the player of each seat, or null for an empty seat
+	 * @param tokens
+	 *            the resume token of the player of each seat, or 0 if the
+	 *            seat cannot be taken back
+	 * @param ready
+	 *            the ready state of each seat
+	 * @param game
+	 *            the game in progress, or null if there is none
+	 */
+	public TableSnapshot(int tableID, long sequence, String[] names,
+			long[] tokens, boolean[] ready, GameRecord game) {
+		this.tableID = tableID;
+		this.sequence = sequence;
+		this.names = names.clone();
+		this.tokens = tokens.clone();
+		this.ready = ready.clone();
+		this.game = game;
+	}
+
+	/**
+	 * Returns the ID of the table.
+	 *
+	 * @return the ID of the table
+	 */
+	public int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the sequence number of the last event of the table covered by
+	 * this snapshot.
+	 *
+	 * @return the sequence number, or 0 if the events are not logged
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the number of seats of the table.
+	 *
+	 * @return the number of seats
+	 */
+	public int getNumOfSeats() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of the player of the specified seat.
+	 *
+	 * @param seat
+	 *            the seat
+	 * @return the name of the player, or null for an empty seat
+	 */
+	public String getName(int seat) {
+		return names[seat];
+	}
+
+	/**
+	 * Returns the resume token with which the player of the specified seat
+	 * takes the seat back.
+	 *
+	 * @param seat
+	 *            the seat
+	 * @return the resume token, or 0 if the seat cannot be taken back
+	 */
+	public long getToken(int seat) {
+		return tokens[seat];
+	}
+
+	/**
+	 * Returns true if the player of the specified seat is ready for a new
+	 * game.
+	 *
+	 * @param seat
+	 *            the seat
+	 * @return the ready state of the seat
+	 */
+	public boolean isReady(int seat) {
+		return ready[seat];
+	}
+
+	/**
+	 * Returns the game in progress at the table.
+	 *
+	 * @return the record of the game, or null if there is none
+	 */
+	public GameRecord getGame() {
+		return game;
+	}
+}
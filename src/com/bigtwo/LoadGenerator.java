@@ -0,0 +1,220 @@
+package com.bigtwo;
+
+import com.bigtwo.Bots.Simulator;
+import com.bigtwo.Bots.Strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class is used to put a Big Two server under load. It connects four
+ * com.bigtwo.BigTwoBot players for each table to be filled, lets them play for
+ * a given time, and reports the connect times, the number of moves per second
+ * and the percentiles of the round trip of a move. The server seats the bots
+ * at its tables in the order they connect, so the server must host at least
+ * as many tables as requested here.
+ *
+ * @author Anmol Gupta
+ */
+public class LoadGenerator {
+	// the number of players at a table
+	private static final int NUM_OF_PLAYERS = 4;
+
+	private final String serverIP; // the IP address of the game server
+	private final int serverPort; // the TCP port of the game server
+	private final int numOfTables; // the number of tables filled with bots
+	private final long thinkTime; // the time a bot waits before each move, in milliseconds
+	private final Strategy strategy; // the strategy of the bots
+	private final ArrayList<BigTwoBot> bots = new ArrayList<BigTwoBot>(); // the bots connected
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.LoadGenerator class.
+	 *
+	 * @param serverIP
+	 *            the IP address of the game server
+	 * @param serverPort
+	 *            the TCP port of the game server
+	 * @param numOfTables
+	 *            the number of tables to be filled with bots
+	 * @param thinkTime
+	 *            the time a bot waits before each move, in milliseconds
+	 * @param strategy
+	 *            the strategy of the bots
+	 */
+	public LoadGenerator(String serverIP, int serverPort, int numOfTables,
+			long thinkTime, Strategy strategy) {
+		this.serverIP = serverIP;
+		this.serverPort = serverPort;
+		this.numOfTables = numOfTables;
+		this.thinkTime = thinkTime;
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Connects the bots, one after the other, and reports their connect times.
+	 */
+	public void connect() {
+		long start = System.nanoTime();
+		for (int i = 0; i < numOfTables * NUM_OF_PLAYERS; i++) {
+			BigTwoBot bot = new BigTwoBot("Bot " + i, serverIP, serverPort,
+					thinkTime, i, strategy);
+			bot.makeConnection();
+			bots.add(bot);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long[] connectTimes = new long[bots.size()];
+		int n = 0;
+		for (BigTwoBot bot : bots) {
+			if (bot.getConnectTime() >= 0) {
+				connectTimes[n++] = bot.getConnectTime();
+			}
+		}
+		connectTimes = Arrays.copyOf(connectTimes, n);
+		System.out.println(n + " of " + bots.size() + " bots connected in "
+				+ formatMillis(elapsed) + " ms");
+		System.out.println("Connect time (ms): " + formatPercentiles(connectTimes));
+	}
+
+	/**
+	 * Lets the bots play for the specified time, printing the number of moves
+	 * per second every second, and then reports the totals and the round trips
+	 * of the moves made during that time.
+	 *
+	 * @param seconds
+	 *            the time to play, in seconds
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	public void run(int seconds) throws InterruptedException {
+		int[] movesAtStart = new int[bots.size()];
+		int[] gamesAtStart = new int[bots.size()];
+		int[] illegalAtStart = new int[bots.size()];
+		for (int i = 0; i < bots.size(); i++) {
+			movesAtStart[i] = bots.get(i).getNumOfMoves();
+			gamesAtStart[i] = bots.get(i).getNumOfGames();
+			illegalAtStart[i] = bots.get(i).getNumOfIllegalMoves();
+		}
+
+		long start = System.nanoTime();
+		long lastMoves = 0;
+		for (int s = 1; s <= seconds; s++) {
+			Thread.sleep(1000);
+			long moves = 0;
+			for (int i = 0; i < bots.size(); i++) {
+				moves += bots.get(i).getNumOfMoves() - movesAtStart[i];
+			}
+			System.out.println("[" + s + " s] " + (moves - lastMoves)
+					+ " moves/s");
+			lastMoves = moves;
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long moves = 0;
+		long games = 0;
+		long illegalMoves = 0;
+		int connected = 0;
+		ArrayList<long[]> samples = new ArrayList<long[]>();
+		int numOfSamples = 0;
+		for (int i = 0; i < bots.size(); i++) {
+			BigTwoBot bot = bots.get(i);
+			long[] latencies = bot.getLatencies(movesAtStart[i]);
+			samples.add(latencies);
+			numOfSamples += latencies.length;
+			moves += latencies.length;
+			// each game is counted by its four players
+			games += bot.getNumOfGames() - gamesAtStart[i];
+			illegalMoves += bot.getNumOfIllegalMoves() - illegalAtStart[i];
+			if (bot.isConnected()) {
+				connected++;
+			}
+		}
+		long[] latencies = new long[numOfSamples];
+		int n = 0;
+		for (long[] sample : samples) {
+			System.arraycopy(sample, 0, latencies, n, sample.length);
+			n += sample.length;
+		}
+
+		double secondsElapsed = elapsed / 1e9;
+		System.out.println("Bots still connected: " + connected + " of "
+				+ bots.size());
+		System.out.println("Moves: " + moves + " ("
+				+ String.format("%.1f", moves / secondsElapsed) + " moves/s)");
+		System.out.println("Games: " + games / NUM_OF_PLAYERS + " ("
+				+ String.format("%.1f", games / NUM_OF_PLAYERS / secondsElapsed)
+				+ " games/s)");
+		System.out.println("Illegal moves: " + illegalMoves);
+		System.out.println("Move round trip (ms): " + formatPercentiles(latencies));
+	}
+
+	/**
+	 * Closes the connections of all the bots.
+	 */
+	public void close() {
+		for (BigTwoBot bot : bots) {
+			bot.close();
+		}
+	}
+
+	/**
+	 * Returns the 50th, 90th, 99th and 99.9th percentiles and the maximum of
+	 * the specified times, in milliseconds.
+	 */
+	private static String formatPercentiles(long[] times) {
+		if (times.length == 0) {
+			return "no samples";
+		}
+		Arrays.sort(times);
+		return "p50 " + formatMillis(percentile(times, 0.50)) + ", p90 "
+				+ formatMillis(percentile(times, 0.90)) + ", p99 "
+				+ formatMillis(percentile(times, 0.99)) + ", p99.9 "
+				+ formatMillis(percentile(times, 0.999)) + ", max "
+				+ formatMillis(times[times.length - 1]) + " (" + times.length
+				+ " samples)";
+	}
+
+	/**
+	 * Returns the specified percentile of the sorted times, by the nearest rank.
+	 */
+	private static long percentile(long[] sortedTimes, double p) {
+		int rank = (int) Math.ceil(p * sortedTimes.length);
+		return sortedTimes[Math.max(rank - 1, 0)];
+	}
+
+	/**
+	 * Returns the specified time in nanoseconds as milliseconds.
+	 */
+	private static String formatMillis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+
+	/**
+	 * main() method for putting a server under load.
+	 *
+	 * @param args
+	 *            the number of tables to be filled with bots, the time to play
+	 *            in seconds, the IP address and the port of the server, and
+	 *            the time a bot waits before each move in milliseconds, and the
+	 *            name of the strategy of the bots. By default, 64 tables of
+	 *            random bots play for 30 seconds against 127.0.0.1:2396
+	 *            without waiting
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int numOfTables = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		String serverIP = args.length > 2 ? args[2] : "127.0.0.1";
+		int serverPort = args.length > 3 ? Integer.parseInt(args[3]) : 2396;
+		long thinkTime = args.length > 4 ? Long.parseLong(args[4]) : 0L;
+		Strategy strategy = Simulator.createStrategy(args.length > 5 ? args[5]
+				: "random");
+
+		LoadGenerator generator = new LoadGenerator(serverIP, serverPort,
+				numOfTables, thinkTime, strategy);
+		generator.connect();
+		generator.run(seconds);
+		generator.close();
+	}
+}
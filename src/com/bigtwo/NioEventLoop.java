@@ -0,0 +1,311 @@
+package com.bigtwo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class is used to model an event loop of the non-blocking mode of the
+ * card game server. A small, fixed number of event loops serve all the
+ * clients: each one owns a Selector, reads and decodes the frames of its
+ * channels and passes every message to the server, and writes out the frames
+ * queued for its channels. Clients speaking the legacy object stream protocol
+ * cannot be decoded without blocking, so they are handed back to the server
+ * to be served by a thread of their own.
+ *
+ * @author Anmol Gupta
+ */
+class NioEventLoop implements Runnable {
+	// the server served by this event loop
+	private final CardGameServer server;
+	// the selector of this event loop
+	private final Selector selector;
+	// channels accepted by the server and waiting to be registered
+	private final ConcurrentLinkedQueue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<SocketChannel>();
+	// connections with frames waiting to be written
+	private final ConcurrentLinkedQueue<ChannelClientConnection> pendingFlushes = new ConcurrentLinkedQueue<ChannelClientConnection>();
+	// connections found to speak the legacy protocol in the current iteration
+	private final ArrayList<ChannelClientConnection> legacyConnections = new ArrayList<ChannelClientConnection>();
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.NioEventLoop class.
+	 *
+	 * @param server
+	 *            the server served by this event loop
+	 * @throws IOException
+	 *             if the selector cannot be opened
+	 */
+	NioEventLoop(CardGameServer server) throws IOException {
+		this.server = server;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Hands a newly accepted channel to this event loop. May be called by any
+	 * thread.
+	 *
+	 * @param channel
+	 *            the channel of the new client
+	 */
+	void register(SocketChannel channel) {
+		pendingChannels.add(channel);
+		selector.wakeup();
+	}
+
+	/**
+	 * Asks this event loop to write out the frames queued for the specified
+	 * connection. May be called by any thread.
+	 *
+	 * @param connection
+	 *            the connection with queued frames
+	 */
+	void requestFlush(ChannelClientConnection connection) {
+		pendingFlushes.add(connection);
+		selector.wakeup();
+	}
+
+	// implementation of method from the Runnable interface
+	public void run() {
+		while (server.isServerUp()) {
+			try {
+				selector.select();
+				registerPendingChannels();
+				flushPendingConnections();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					ChannelClientConnection connection = (ChannelClientConnection) key
+							.attachment();
+					if (key.isValid() && key.isReadable()) {
+						read(connection);
+					}
+					if (key.isValid() && key.isWritable()) {
+						write(connection);
+					}
+				}
+
+				handOffLegacyConnections();
+			} catch (IOException ex) {
+				server.println("Error in the event loop of the server");
+				ex.printStackTrace();
+			}
+		}
+	} // run
+
+	/**
+	 * Registers the channels accepted since the last iteration.
+	 */
+	private void registerPendingChannels() {
+		SocketChannel channel;
+		while ((channel = pendingChannels.poll()) != null) {
+			ChannelClientConnection connection = new ChannelClientConnection(
+					channel, this, server.getMaxQueueLength(),
+					server.getOverflowPolicy());
+			try {
+				connection.setKey(channel.register(selector,
+						SelectionKey.OP_READ, connection));
+			} catch (IOException ex) {
+				server.println("Error in registering the client at "
+						+ connection.getRemoteSocketAddress());
+				ex.printStackTrace();
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * Writes out the frames queued since the last iteration, and removes the
+	 * connections closed by other threads from the server.
+	 */
+	private void flushPendingConnections() {
+		ChannelClientConnection connection;
+		while ((connection = pendingFlushes.poll()) != null) {
+			if (connection.isClosed()) {
+				server.removeConnection(connection);
+			} else if (connection.getKey() != null
+					&& connection.getKey().isValid()) {
+				write(connection);
+			}
+		}
+	}
+
+	/**
+	 * Writes out the frames queued for the specified connection, and waits
+	 * for the channel to become writable if it cannot take all of them.
+	 *
+	 * @param connection
+	 *            the connection to be written
+	 */
+	private void write(ChannelClientConnection connection) {
+		SelectionKey key = connection.getKey();
+		try {
+			if (connection.flush()) {
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+			} else {
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			}
+		} catch (IOException ex) {
+			server.println("Error in sending a message to the client at "
+					+ connection.getRemoteSocketAddress());
+			disconnect(connection);
+		}
+	}
+
+	/**
+	 * Reads the bytes available from the specified connection and passes
+	 * every complete message to the server.
+	 *
+	 * @param connection
+	 *            the connection to be read
+	 */
+	private void read(ChannelClientConnection connection) {
+		try {
+			if (connection.getChannel().read(connection.getInbound()) < 0) {
+				disconnect(connection);
+				return;
+			}
+
+			ByteBuffer inbound = connection.getInbound();
+			inbound.flip();
+			try {
+				if (!connection.isHandshakeDone() && !readHandshake(connection)) {
+					return;
+				}
+				readFrames(connection);
+			} finally {
+				if (connection.getKey().isValid()) {
+					connection.getInbound().compact();
+				}
+			}
+		} catch (IOException ex) {
+			server.println("Error in receiving messages from the client at "
+					+ connection.getRemoteSocketAddress());
+			ex.printStackTrace();
+			disconnect(connection);
+		}
+	}
+
+	/**
+	 * Reads the handshake from the incoming bytes of the specified connection,
+	 * and adds the connection to the server once it has been received.
+	 *
+	 * @param connection
+	 *            the connection whose incoming bytes are in read mode
+	 * @return true if messages may now be read from the connection
+	 * @throws IOException
+	 *             if the handshake is invalid
+	 */
+	private boolean readHandshake(ChannelClientConnection connection)
+			throws IOException {
+		ByteBuffer inbound = connection.getInbound();
+		if (!inbound.hasRemaining()) {
+			return false;
+		}
+		if (WireProtocol.isLegacyStream(inbound.get(inbound.position()) & 0xFF)) {
+			// bytes stay in the buffer for the thread taking over the client
+			legacyConnections.add(connection);
+			connection.getKey().cancel();
+			return false;
+		}
+		if (inbound.remaining() < WireProtocol.HANDSHAKE_LENGTH) {
+			return false;
+		}
+		byte[] handshake = new byte[WireProtocol.HANDSHAKE_LENGTH];
+		inbound.get(handshake);
+		connection.acceptCodec(WireProtocol.negotiate(WireProtocol
+				.parseHandshake(handshake)));
+		connection.setHandshakeDone();
+		if (!server.addConnection(connection)) {
+			// stops reading from a client rejected by a full server
+			connection.getKey().interestOps(0);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes the complete frames among the incoming bytes of the specified
+	 * connection and passes the messages to the server.
+	 *
+	 * @param connection
+	 *            the connection whose incoming bytes are in read mode
+	 * @throws IOException
+	 *             if a frame is invalid
+	 */
+	private void readFrames(ChannelClientConnection connection)
+			throws IOException {
+		ByteBuffer inbound = connection.getInbound();
+		while (inbound.remaining() >= WireProtocol.FRAME_HEADER_LENGTH) {
+			int length = WireProtocol.readFrameLength(inbound.getInt(inbound
+					.position()));
+			int frameLength = WireProtocol.FRAME_HEADER_LENGTH + length;
+			if (inbound.remaining() < frameLength) {
+				// waits for the rest of the frame, growing the buffer if needed
+				if (inbound.capacity() < frameLength) {
+					inbound.compact();
+					connection.ensureInboundCapacity(frameLength);
+					connection.getInbound().flip();
+				}
+				return;
+			}
+
+			CardGameMessage message = WireProtocol.decodePayload(
+					inbound.array(), inbound.arrayOffset() + inbound.position()
+							+ WireProtocol.FRAME_HEADER_LENGTH, length,
+					connection.getCodec());
+			inbound.position(inbound.position() + frameLength);
+			server.println("Message received from "
+					+ connection.getRemoteSocketAddress());
+			server.parseMessage(connection, message);
+		}
+	}
+
+	/**
+	 * Hands the connections found to speak the legacy protocol back to the
+	 * server, which serves them with blocking streams.
+	 *
+	 * @throws IOException
+	 *             if the selector cannot be updated
+	 */
+	private void handOffLegacyConnections() throws IOException {
+		if (legacyConnections.isEmpty()) {
+			return;
+		}
+		// deregisters the cancelled keys before switching to blocking mode
+		selector.selectNow();
+		for (ChannelClientConnection connection : legacyConnections) {
+			ByteBuffer inbound = connection.getInbound();
+			byte[] prefix = new byte[inbound.remaining()];
+			inbound.get(prefix);
+			try {
+				connection.getChannel().configureBlocking(true);
+				server.startClientHandler(connection.getSocket(), prefix);
+			} catch (IOException ex) {
+				server.println("Error in handing over the client at "
+						+ connection.getRemoteSocketAddress());
+				ex.printStackTrace();
+				connection.close();
+			}
+		}
+		legacyConnections.clear();
+	}
+
+	/**
+	 * Closes the specified connection and removes it from the server.
+	 *
+	 * @param connection
+	 *            the connection being lost
+	 */
+	private void disconnect(ChannelClientConnection connection) {
+		connection.getKey().cancel();
+		server.removeConnection(connection);
+		connection.close();
+	}
+}
@@ -0,0 +1,113 @@
+package com.bigtwo;
+
+import java.io.IOException;
+
+/**
+ * This class is used to model a message on its way from the card game server
+ * to one or more clients. The message is encoded at most once for each
+ * encoding in use (the legacy object stream and each frame codec), however
+ * many clients receive it, and every recipient is handed the same immutable
+ * bytes.
+ *
+ * @author Anmol Gupta
+ */
+class OutboundMessage {
+	// the message being sent
+	private final CardGameMessage message;
+	// the message sent instead to clients speaking the legacy protocol
+	private final CardGameMessage legacyMessage;
+	// the counter of the outgoing traffic
+	private final TrafficCounter counter;
+	// the frame of the message for each codec, encoded on first use
+	private final byte[][] frames = new byte[2][];
+	// the bytes of the message for the legacy object stream, encoded on first use
+	private byte[] legacyBytes = null;
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.OutboundMessage class.
+	 *
+	 * @param message
+	 *            the message being sent
+	 * @param counter
+	 *            the counter of the outgoing traffic
+	 */
+	OutboundMessage(CardGameMessage message, TrafficCounter counter) {
+		this(message, message, counter);
+	}
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.OutboundMessage class
+	 * for a message which clients speaking the legacy protocol do not
+	 * understand.
+	 *
+	 * @param message
+	 *            the message being sent
+	 * @param legacyMessage
+	 *            the message sent instead to clients speaking the legacy
+	 *            protocol
+	 * @param counter
+	 *            the counter of the outgoing traffic
+	 */
+	OutboundMessage(CardGameMessage message, CardGameMessage legacyMessage,
+			TrafficCounter counter) {
+		this.message = message;
+		this.legacyMessage = legacyMessage;
+		this.counter = counter;
+	}
+
+	/**
+	 * Returns the message being sent.
+	 *
+	 * @return the message being sent
+	 */
+	CardGameMessage getMessage() {
+		return message;
+	}
+
+	/**
+	 * Returns the frame of the message for the specified codec. The returned
+	 * array is shared by all the recipients and must not be modified.
+	 *
+	 * @param codec
+	 *            the codec of the recipient
+	 * @return the bytes of the frame, including the length prefix
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	synchronized byte[] getFrame(int codec) throws IOException {
+		if (frames[codec] == null) {
+			frames[codec] = WireProtocol.encodeFrame(message, codec);
+			counter.countEncoded(frames[codec].length);
+		}
+		return frames[codec];
+	}
+
+	/**
+	 * Returns the bytes of the message for a client speaking the legacy object
+	 * stream protocol, which may encode a different message understood by such
+	 * a client. The returned array is shared by all the recipients and
+	 * must not be modified.
+	 *
+	 * @return the bytes to be written to the object stream
+	 * @throws IOException
+	 *             if the message cannot be serialized
+	 */
+	synchronized byte[] getLegacyBytes() throws IOException {
+		if (legacyBytes == null) {
+			legacyBytes = WireProtocol.encodeLegacy(legacyMessage);
+			counter.countEncoded(legacyBytes.length);
+		}
+		return legacyBytes;
+	}
+
+	/**
+	 * Records that the specified bytes of this message have been handed to a
+	 * connection.
+	 *
+	 * @param bytes
+	 *            the bytes handed to the connection
+	 */
+	void countSent(byte[] bytes) {
+		counter.countSent(bytes.length);
+	}
+}
@@ -0,0 +1,548 @@
+package com.bigtwo;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to model one table of a card game server. A server
+ * hosts any number of independent tables, and each table keeps track of the
+ * connections, names and ready states of the players seated at it, as well as
+ * the deck and rules of its current game. Each table draws the seeds of its
+ * deals from a generator of its own, so tables never contend for one.
+ *
+ * @author Anmol Gupta
+ */
+class ServerTable {
+	// the ID (index) of this table in the server
+	private final int tableID;
+	// Array for holding connections of the clients seated at this table
+	private final ClientConnection[] clientConnections;
+	// Array for holding player names of the clients
+	private final String[] clientNames;
+	// Array for holding ready states of the clients
+	private final boolean[] clientReadyStates;
+	// Array for holding whether a seat is taken by a bot
+	private final boolean[] botSeats;
+	// Array for holding the resume tokens of the players, or 0
+	private final long[] resumeTokens;
+	// number of current players
+	private int numOfPlayers = 0;
+	// number of seats taken by bots
+	private int numOfBots = 0;
+	// the deck of the current game at this table
+	private Deck deck = null;
+	// the rules of the current game at this table, if the moves are validated
+	private CardGame game = null;
+	// the generator of the seeds with which the decks are shuffled
+	private final SplittableRandom seeds;
+	// the seed with which the deck of the current game was shuffled
+	private long seed = 0L;
+	// Array for holding the names of the players whose seats are kept for them
+	private final String[] reservedNames;
+	// Array for holding the resume tokens of the players whose seats are kept
+	private final long[] reservedTokens;
+	// a boolean indicating if the current game has been restored from a snapshot
+	private boolean restored = false;
+	// a boolean indicating if something has happened since the last snapshot
+	private boolean changed = false;
+	// the sequence number of the last event of this table in the event log
+	private long lastSequence = 0L;
+	// the ID of the current game: the sequence number of its deal in the event log
+	private long gameID = 0L;
+	// the time at which the current game was dealt
+	private long gameTime = 0L;
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.ServerTable class.
+	 *
+	 * @param tableID
+	 *            the ID (index) of this table in the server
+	 * @param maxNumOfPlayers
+	 *            the number of seats at this table
+	 * @param seeds
+	 *            the generator of the seeds of the deals at this table
+	 */
+	ServerTable(int tableID, int maxNumOfPlayers, SplittableRandom seeds) {
+		this.tableID = tableID;
+		this.seeds = seeds;
+		clientConnections = new ClientConnection[maxNumOfPlayers];
+		clientNames = new String[maxNumOfPlayers];
+		clientReadyStates = new boolean[maxNumOfPlayers];
+		botSeats = new boolean[maxNumOfPlayers];
+		resumeTokens = new long[maxNumOfPlayers];
+		reservedNames = new String[maxNumOfPlayers];
+		reservedTokens = new long[maxNumOfPlayers];
+	}
+
+	/**
+	 * Returns the ID (index) of this table in the server.
+	 *
+	 * @return the ID of this table
+	 */
+	int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the number of seats at this table.
+	 *
+	 * @return the number of seats at this table
+	 */
+	int getMaxNumOfPlayers() {
+		return clientConnections.length;
+	}
+
+	/**
+	 * Returns the number of players seated at this table.
+	 *
+	 * @return the number of players seated at this table
+	 */
+	int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	/**
+	 * Returns true if every seat at this table is taken, by a player or by a
+	 * bot, or kept for a player.
+	 *
+	 * @return true if this table is full; false otherwise
+	 */
+	boolean isFull() {
+		int numOfReserved = 0;
+		for (int i = 0; i < clientConnections.length; i++) {
+			if (clientConnections[i] == null && !botSeats[i]
+					&& reservedNames[i] != null) {
+				numOfReserved++;
+			}
+		}
+		return numOfPlayers + numOfBots + numOfReserved == clientConnections.length;
+	}
+
+	/**
+	 * Seats the specified connection at the first empty seat of this table.
+	 *
+	 * @param connection
+	 *            the connection to be seated
+	 * @return the index of the seat, or -1 if this table is full
+	 */
+	int seat(ClientConnection connection) {
+		for (int i = 0; i < clientConnections.length; i++) {
+			if (clientConnections[i] == null && !botSeats[i]
+					&& reservedNames[i] == null) {
+				seatAt(i, connection);
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Seats the specified connection at the specified seat, which must not be
+	 * taken by another player. A bot taking the seat leaves it, and the seat
+	 * is no longer kept.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @param connection
+	 *            the connection to be seated
+	 */
+	void seatAt(int i, ClientConnection connection) {
+		unseatBot(i);
+		reservedNames[i] = null;
+		reservedTokens[i] = 0L;
+		clientConnections[i] = connection;
+		clientNames[i] = null;
+		clientReadyStates[i] = false;
+		numOfPlayers++;
+		connection.setTable(this, i);
+	}
+
+	/**
+	 * Empties the specified seat of this table.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 */
+	void unseat(int i) {
+		if (clientConnections[i] != null) {
+			clientConnections[i].setTable(null, -1);
+			clientConnections[i] = null;
+			clientNames[i] = null;
+			clientReadyStates[i] = false;
+			resumeTokens[i] = 0L;
+			numOfPlayers--;
+		}
+	}
+
+	/**
+	 * Seats a bot at the specified empty seat, to play the rest of the current
+	 * game in place of a player who left.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @param name
+	 *            the name of the bot
+	 */
+	void seatBot(int i, String name) {
+		if (clientConnections[i] == null && !botSeats[i]) {
+			botSeats[i] = true;
+			clientNames[i] = name;
+			numOfBots++;
+		}
+	}
+
+	/**
+	 * Empties the specified seat of this table if it is taken by a bot.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 */
+	void unseatBot(int i) {
+		if (botSeats[i]) {
+			botSeats[i] = false;
+			clientNames[i] = null;
+			numOfBots--;
+		}
+	}
+
+	/**
+	 * Returns true if the specified seat is taken by a bot.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return true if a bot plays at the seat
+	 */
+	boolean isBot(int i) {
+		return botSeats[i];
+	}
+
+	/**
+	 * Returns the connection of the client at the specified seat.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return the connection at the seat, or null if the seat is empty
+	 */
+	ClientConnection getConnection(int i) {
+		return clientConnections[i];
+	}
+
+	/**
+	 * Returns the names of the players seated at this table.
+	 *
+	 * @return an array holding the name of each seat (null if unknown)
+	 */
+	String[] getClientNames() {
+		return clientNames;
+	}
+
+	/**
+	 * Returns the name of the player at the specified seat.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return the name of the player
+	 */
+	String getClientName(int i) {
+		return clientNames[i];
+	}
+
+	/**
+	 * Sets the name of the player at the specified seat.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @param name
+	 *            the name of the player
+	 */
+	void setClientName(int i, String name) {
+		clientNames[i] = name;
+	}
+
+	/**
+	 * Returns the resume token of the player at the specified seat, with which
+	 * the player takes the seat back if the server restarts.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return the resume token, or 0 if the player has none
+	 */
+	long getResumeToken(int i) {
+		return resumeTokens[i];
+	}
+
+	/**
+	 * Sets the resume token of the player at the specified seat.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @param token
+	 *            the resume token, or 0 for none
+	 */
+	void setResumeToken(int i, long token) {
+		resumeTokens[i] = token;
+	}
+
+	/**
+	 * Marks the player at the specified seat as ready for a new game.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 */
+	void setReady(int i) {
+		clientReadyStates[i] = true;
+	}
+
+	/**
+	 * Returns true if every seat is taken and all the players are ready for a
+	 * new game.
+	 *
+	 * @return true if a new game can start at this table
+	 */
+	boolean isAllReady() {
+		if (!isFull()) {
+			return false;
+		}
+		for (int i = 0; i < clientReadyStates.length; i++) {
+			if (!clientReadyStates[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resets the ready states of all the players for the next game.
+	 */
+	void resetReadyStates() {
+		for (int i = 0; i < clientReadyStates.length; i++) {
+			clientReadyStates[i] = false;
+		}
+	}
+
+	/**
+	 * Keeps the specified seat for the player with the specified name, who
+	 * may come back to finish a restored game by presenting the specified
+	 * resume token. Nobody else is seated there meanwhile.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @param name
+	 *            the name of the player, or null to stop keeping the seat
+	 * @param token
+	 *            the resume token of the player, or 0 if nobody can take the
+	 *            seat back
+	 */
+	void reserve(int i, String name, long token) {
+		reservedNames[i] = name;
+		reservedTokens[i] = name == null ? 0L : token;
+	}
+
+	/**
+	 * Returns the name of the player for whom the specified seat is kept.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return the name of the player, or null if the seat is not kept
+	 */
+	String getReservedName(int i) {
+		return reservedNames[i];
+	}
+
+	/**
+	 * Returns the resume token of the player for whom the specified seat is
+	 * kept.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return the resume token, or 0 if the seat is not kept or cannot be
+	 *         taken back
+	 */
+	long getReservedToken(int i) {
+		return reservedTokens[i];
+	}
+
+	/**
+	 * Stops keeping the seats of this table, once its restored game is over.
+	 */
+	void clearReservations() {
+		for (int i = 0; i < reservedNames.length; i++) {
+			reservedNames[i] = null;
+			reservedTokens[i] = 0L;
+		}
+		restored = false;
+	}
+
+	/**
+	 * Returns true if the current game has been restored from a snapshot and
+	 * is waiting for its players to come back or to finish.
+	 *
+	 * @return true if the current game has been restored
+	 */
+	boolean isRestored() {
+		return restored;
+	}
+
+	/**
+	 * Marks the current game as restored from a snapshot.
+	 *
+	 * @param restored
+	 *            true if the current game has been restored
+	 */
+	void setRestored(boolean restored) {
+		this.restored = restored;
+	}
+
+	/**
+	 * Returns the ready state of the player at the specified seat.
+	 *
+	 * @param i
+	 *            the index of the seat
+	 * @return true if the player is ready for a new game
+	 */
+	boolean isReady(int i) {
+		return clientReadyStates[i];
+	}
+
+	/**
+	 * Records that something has happened at this table, and the sequence
+	 * number of its event in the event log.
+	 *
+	 * @param sequence
+	 *            the sequence number of the event, or 0 if it is not logged
+	 */
+	void markChanged(long sequence) {
+		changed = true;
+		if (sequence > lastSequence) {
+			lastSequence = sequence;
+		}
+	}
+
+	/**
+	 * Returns true if something has happened at this table since the last
+	 * snapshot, and clears the mark.
+	 *
+	 * @return true if this table has changed
+	 */
+	boolean takeChanged() {
+		boolean wasChanged = changed;
+		changed = false;
+		return wasChanged;
+	}
+
+	/**
+	 * Returns the sequence number of the last event of this table in the event
+	 * log.
+	 *
+	 * @return the sequence number, or 0 if no event has been logged
+	 */
+	long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Records the ID of the current game and the time at which it was dealt.
+	 *
+	 * @param gameID
+	 *            the sequence number of the deal in the event log, or 0
+	 * @param gameTime
+	 *            the time of the deal, in milliseconds
+	 */
+	void setGameStart(long gameID, long gameTime) {
+		this.gameID = gameID;
+		this.gameTime = gameTime;
+	}
+
+	/**
+	 * Returns the ID of the current game: the sequence number of its deal in
+	 * the event log.
+	 *
+	 * @return the ID of the current game, or 0 if the events are not logged
+	 */
+	long getGameID() {
+		return gameID;
+	}
+
+	/**
+	 * Returns the time at which the current game was dealt.
+	 *
+	 * @return the time of the deal, in milliseconds
+	 */
+	long getGameTime() {
+		return gameTime;
+	}
+
+	/**
+	 * Returns the deck of the current game at this table.
+	 *
+	 * @return the deck of the current game, or null if no game has started
+	 */
+	Deck getDeck() {
+		return deck;
+	}
+
+	/**
+	 * Sets the deck of the current game at this table.
+	 *
+	 * @param deck
+	 *            the deck of the new game
+	 */
+	void setDeck(Deck deck) {
+		this.deck = deck;
+	}
+
+	/**
+	 * Draws the seed of the next deal at this table.
+	 *
+	 * @return the seed with which the next deck is shuffled
+	 */
+	long nextSeed() {
+		return seeds.nextLong();
+	}
+
+	/**
+	 * Returns the seed with which the deck of the current game was shuffled.
+	 *
+	 * @return the seed of the current game
+	 */
+	long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed with which the deck of the current game was shuffled.
+	 *
+	 * @param seed
+	 *            the seed of the new game
+	 */
+	void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the game which validates the moves made at this table.
+	 *
+	 * @return the current game, or null if the moves are not validated
+	 */
+	CardGame getGame() {
+		return game;
+	}
+
+	/**
+	 * Sets the game which validates the moves made at this table.
+	 *
+	 * @param game
+	 *            the new game, or null if the moves are not validated
+	 */
+	void setGame(CardGame game) {
+		this.game = game;
+	}
+
+	/**
+	 * Returns a string representation of this table for the server console.
+	 *
+	 * @return a string representation of this table
+	 */
+	public String toString() {
+		return "Table " + tableID;
+	}
+}
@@ -0,0 +1,120 @@
+package com.bigtwo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This class is used to model a connection to a client over a blocking
+ * socket. Messages are written either as self-contained chunks of an object
+ * stream (for clients speaking the legacy object stream protocol) or as
+ * frames of the com.bigtwo.WireProtocol, by a writer thread of the connection.
+ *
+ * @author Anmol Gupta
+ */
+class StreamClientConnection extends ClientConnection {
+	// OutputStream of the client
+	private final DataOutputStream dostream;
+	// a boolean indicating if the client speaks the legacy protocol
+	private final boolean legacy;
+	// the codec used with a framed client
+	private final int codec;
+	// encoded messages waiting to be written
+	private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<byte[]>();
+	// the thread writing out the queue
+	private final Thread writer;
+
+	/**
+	 * Creates and returns an instance of the com.bigtwo.StreamClientConnection
+	 * class, and starts its writer thread.
+	 *
+	 * @param socket
+	 *            the socket connection to the client
+	 * @param legacy
+	 *            true if the client speaks the legacy object stream protocol;
+	 *            false if it speaks the framed protocol
+	 * @param codec
+	 *            the codec accepted for a framed client, which is sent to the
+	 *            client in reply to its handshake
+	 * @param maxQueueLength
+	 *            the maximum number of messages waiting to be written
+	 * @param overflowPolicy
+	 *            the overflow policy of the queue
+	 * @throws IOException
+	 *             if the output stream of the socket cannot be created
+	 */
+	StreamClientConnection(Socket socket, boolean legacy, int codec,
+			int maxQueueLength, int overflowPolicy) throws IOException {
+		super(socket, maxQueueLength, overflowPolicy);
+		this.legacy = legacy;
+		this.codec = codec;
+		dostream = new DataOutputStream(new BufferedOutputStream(
+				socket.getOutputStream()));
+		if (legacy) {
+			dostream.write(WireProtocol.legacyStreamHeader());
+		} else {
+			dostream.write(WireProtocol.handshake(codec));
+		}
+		dostream.flush();
+
+		writer = new Thread(new Writer(), "Writer for "
+				+ socket.getRemoteSocketAddress());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// overrides method from the com.bigtwo.ClientConnection class
+	boolean isLegacy() {
+		return legacy;
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	boolean mayWaitForWriter() {
+		// the writer thread takes no locks, so only it must not wait
+		return Thread.currentThread() != writer;
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	void enqueue(OutboundMessage message) throws IOException {
+		byte[] bytes = legacy ? message.getLegacyBytes() : message
+				.getFrame(codec);
+		queue.add(bytes);
+		message.countSent(bytes);
+	}
+
+	// implementation of method from the com.bigtwo.ClientConnection class
+	void closeTransport() {
+		writer.interrupt();
+		try {
+			getSocket().close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * This inner class is used for writing out the queued messages.
+	 */
+	private class Writer implements Runnable {
+		// implementation of method from the Runnable interface
+		public void run() {
+			try {
+				while (!isClosed()) {
+					dostream.write(queue.take());
+					// flushes once the messages queued so far are written
+					if (queue.isEmpty()) {
+						dostream.flush();
+					}
+					messageWritten();
+				}
+			} catch (InterruptedException ex) {
+				// the connection has been closed
+			} catch (IOException ex) {
+				// the reader of the connection will notice the loss too
+				close();
+			}
+		} // run
+	} // Writer
+}
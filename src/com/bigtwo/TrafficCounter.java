@@ -0,0 +1,91 @@
+package com.bigtwo;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is used to count the outgoing traffic of the card game server.
+ * It keeps the number of bytes produced by encoding messages apart from the
+ * number of bytes handed to the connections, so that the saving of encoding a
+ * broadcast message once for all of its recipients can be seen.
+ *
+ * @author Anmol Gupta
+ */
+public class TrafficCounter {
+	// number of encodings performed
+	private final LongAdder numOfEncodings = new LongAdder();
+	// number of bytes produced by the encodings
+	private final LongAdder bytesEncoded = new LongAdder();
+	// number of messages handed to the connections
+	private final LongAdder numOfMessagesSent = new LongAdder();
+	// number of bytes handed to the connections
+	private final LongAdder bytesSent = new LongAdder();
+
+	/**
+	 * Records an encoding of a message.
+	 *
+	 * @param numOfBytes
+	 *            the number of bytes produced by the encoding
+	 */
+	public void countEncoded(int numOfBytes) {
+		numOfEncodings.increment();
+		bytesEncoded.add(numOfBytes);
+	}
+
+	/**
+	 * Records a message handed to a connection.
+	 *
+	 * @param numOfBytes
+	 *            the number of bytes of the message
+	 */
+	public void countSent(int numOfBytes) {
+		numOfMessagesSent.increment();
+		bytesSent.add(numOfBytes);
+	}
+
+	/**
+	 * Returns the number of encodings performed.
+	 *
+	 * @return the number of encodings performed
+	 */
+	public long getNumOfEncodings() {
+		return numOfEncodings.sum();
+	}
+
+	/**
+	 * Returns the number of bytes produced by encoding messages.
+	 *
+	 * @return the number of bytes encoded
+	 */
+	public long getBytesEncoded() {
+		return bytesEncoded.sum();
+	}
+
+	/**
+	 * Returns the number of messages handed to the connections.
+	 *
+	 * @return the number of messages sent
+	 */
+	public long getNumOfMessagesSent() {
+		return numOfMessagesSent.sum();
+	}
+
+	/**
+	 * Returns the number of bytes handed to the connections.
+	 *
+	 * @return the number of bytes sent
+	 */
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	/**
+	 * Returns a string representation of the counters.
+	 *
+	 * @return a string representation of the counters
+	 */
+	public String toString() {
+		return getNumOfEncodings() + " encodings (" + getBytesEncoded()
+				+ " bytes), " + getNumOfMessagesSent() + " messages sent ("
+				+ getBytesSent() + " bytes)";
+	}
+}
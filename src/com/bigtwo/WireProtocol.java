@@ -0,0 +1,285 @@
+package com.bigtwo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+
+/**
+ * This class defines the framed wire protocol spoken between the card game
+ * server and its clients. A framed client opens the connection with a short
+ * handshake naming the codec it would like to use, and the server replies
+ * with the codec it accepts. After that every message in either direction is
+ * sent as a 4-byte big-endian length followed by the encoded message. Unlike
+ * a single long-lived ObjectOutputStream, each frame can be decoded on its
+ * own, which is what allows the server to read messages without blocking a
+ * thread per client. Clients which still open a plain ObjectOutputStream are recognised
+ * by the first byte of the Java serialization stream header.
+ *
+ * @author Anmol Gupta
+ */
+public final class WireProtocol {
+	/**
+	 * The first two bytes of the handshake sent by a framed client.
+	 */
+	public static final byte[] MAGIC = { 'B', '2' };
+	/**
+	 * The version of the framed protocol.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * The number of bytes in the handshake: the magic, the version and the
+	 * codec requested by the client.
+	 */
+	public static final int HANDSHAKE_LENGTH = 4;
+	/**
+	 * Codec in which every frame holds a single serialized com.bigtwo.CardGameMessage.
+	 */
+	public static final int CODEC_SERIALIZED = 0;
+	/**
+	 * Codec in which every frame holds a message encoded by the
+	 * com.bigtwo.CardGameMessageCodec.
+	 */
+	public static final int CODEC_BINARY = 1;
+	/**
+	 * The number of bytes in the length prefix of a frame.
+	 */
+	public static final int FRAME_HEADER_LENGTH = 4;
+	/**
+	 * The largest frame (excluding the length prefix) accepted from a peer.
+	 */
+	public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+	// the first byte of a Java serialization stream (STREAM_MAGIC = 0xACED)
+	private static final int LEGACY_STREAM_FIRST_BYTE = 0xAC;
+
+	private WireProtocol() {
+	}
+
+	/**
+	 * Returns true if the specified first byte received from a client starts
+	 * a plain Java serialization stream rather than a framed handshake.
+	 *
+	 * @param firstByte
+	 *            the first byte received from the client (0 - 255)
+	 * @return true if the client speaks the legacy object stream protocol
+	 */
+	public static boolean isLegacyStream(int firstByte) {
+		return firstByte == LEGACY_STREAM_FIRST_BYTE;
+	}
+
+	/**
+	 * Returns the handshake to be sent by a framed client, or the reply of the
+	 * server to it.
+	 *
+	 * @param codec
+	 *            the codec requested by the client, or accepted by the server
+	 * @return the handshake bytes
+	 */
+	public static byte[] handshake(int codec) {
+		return new byte[] { MAGIC[0], MAGIC[1], (byte) VERSION, (byte) codec };
+	}
+
+	/**
+	 * Checks the specified handshake and returns the codec it carries.
+	 *
+	 * @param handshake
+	 *            the bytes of the handshake
+	 * @return the codec requested by the client, or accepted by the server
+	 * @throws StreamCorruptedException
+	 *             if the bytes are not a valid handshake
+	 */
+	public static int parseHandshake(byte[] handshake)
+			throws StreamCorruptedException {
+		if (handshake.length != HANDSHAKE_LENGTH || handshake[0] != MAGIC[0]
+				|| handshake[1] != MAGIC[1] || handshake[2] != VERSION) {
+			throw new StreamCorruptedException("Invalid handshake");
+		}
+		return handshake[3];
+	}
+
+	/**
+	 * Returns the codec the server uses with a client requesting the specified
+	 * codec: the requested one if it is supported, otherwise the serialized
+	 * codec which every framed client understands.
+	 *
+	 * @param requested
+	 *            the codec requested by the client
+	 * @return the codec to be used for the connection
+	 */
+	public static int negotiate(int requested) {
+		return isSupported(requested) ? requested : CODEC_SERIALIZED;
+	}
+
+	/**
+	 * Returns true if the specified codec is supported.
+	 *
+	 * @param codec
+	 *            the codec to be checked
+	 * @return true if the codec is supported; false otherwise
+	 */
+	public static boolean isSupported(int codec) {
+		return codec == CODEC_SERIALIZED || codec == CODEC_BINARY;
+	}
+
+	/**
+	 * Encodes the specified message into a complete frame, including the
+	 * length prefix.
+	 *
+	 * @param message
+	 *            the message to be encoded
+	 * @param codec
+	 *            the codec of the connection
+	 * @return the bytes of the frame
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public static byte[] encodeFrame(CardGameMessage message, int codec)
+			throws IOException {
+		if (codec == CODEC_BINARY) {
+			return CardGameMessageCodec.encodeFrame(message);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		// reserves space for the length prefix
+		bytes.write(new byte[FRAME_HEADER_LENGTH]);
+		ObjectOutputStream oostream = new ObjectOutputStream(bytes);
+		oostream.writeObject(message);
+		oostream.close();
+
+		byte[] frame = bytes.toByteArray();
+		int length = frame.length - FRAME_HEADER_LENGTH;
+		frame[0] = (byte) (length >>> 24);
+		frame[1] = (byte) (length >>> 16);
+		frame[2] = (byte) (length >>> 8);
+		frame[3] = (byte) length;
+		return frame;
+	}
+
+	/**
+	 * Returns the header of the object stream written to a client speaking the
+	 * legacy protocol, as it would be written by an ObjectOutputStream.
+	 *
+	 * @return the bytes of the stream header
+	 */
+	public static byte[] legacyStreamHeader() {
+		int magic = ObjectStreamConstants.STREAM_MAGIC;
+		int version = ObjectStreamConstants.STREAM_VERSION;
+		return new byte[] { (byte) (magic >>> 8), (byte) magic,
+				(byte) (version >>> 8), (byte) version };
+	}
+
+	/**
+	 * Encodes the specified message for a client speaking the legacy object
+	 * stream protocol. The bytes start with a reset marker, which clears the
+	 * back-references of the reading ObjectInputStream, so the same bytes can
+	 * be written to any number of object streams, in any order.
+	 *
+	 * @param message
+	 *            the message to be encoded
+	 * @return the bytes to be written to the object stream
+	 * @throws IOException
+	 *             if the message cannot be serialized
+	 */
+	public static byte[] encodeLegacy(CardGameMessage message)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		bytes.write(ObjectStreamConstants.TC_RESET);
+		ObjectOutputStream oostream = new ObjectOutputStream(bytes) {
+			protected void writeStreamHeader() {
+				// the stream header has been sent when the client connected
+			}
+		};
+		oostream.writeObject(message);
+		oostream.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a message from the payload of a frame.
+	 *
+	 * @param payload
+	 *            the array holding the payload
+	 * @param offset
+	 *            the offset of the payload in the array
+	 * @param length
+	 *            the length of the payload
+	 * @param codec
+	 *            the codec of the connection
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the payload is not a valid message
+	 */
+	public static CardGameMessage decodePayload(byte[] payload, int offset,
+			int length, int codec) throws IOException {
+		if (codec == CODEC_BINARY) {
+			return CardGameMessageCodec.decode(payload, offset, length);
+		}
+		ObjectInputStream oistream = new ObjectInputStream(
+				new ByteArrayInputStream(payload, offset, length));
+		try {
+			return (CardGameMessage) oistream.readObject();
+		} catch (ClassNotFoundException | ClassCastException ex) {
+			throw new StreamCorruptedException("Invalid message: " + ex);
+		}
+	}
+
+	/**
+	 * Writes the specified message as a frame to the specified stream.
+	 *
+	 * @param out
+	 *            the stream to which the frame is written
+	 * @param message
+	 *            the message to be written
+	 * @param codec
+	 *            the codec of the connection
+	 * @throws IOException
+	 *             if the frame cannot be written
+	 */
+	public static void writeFrame(DataOutputStream out,
+			CardGameMessage message, int codec) throws IOException {
+		out.write(encodeFrame(message, codec));
+		out.flush();
+	}
+
+	/**
+	 * Reads the next frame from the specified stream and decodes the message
+	 * it contains.
+	 *
+	 * @param in
+	 *            the stream from which the frame is read
+	 * @param codec
+	 *            the codec of the connection
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the frame cannot be read or decoded
+	 */
+	public static CardGameMessage readFrame(DataInputStream in, int codec)
+			throws IOException {
+		int length = readFrameLength(in.readInt());
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return decodePayload(payload, 0, length, codec);
+	}
+
+	/**
+	 * Checks the length prefix of a frame.
+	 *
+	 * @param length
+	 *            the length read from the prefix
+	 * @return the length, if it is acceptable
+	 * @throws StreamCorruptedException
+	 *             if the length is negative or too large
+	 */
+	public static int readFrameLength(int length)
+			throws StreamCorruptedException {
+		if (length < 0 || length > MAX_FRAME_LENGTH) {
+			throw new StreamCorruptedException("Invalid frame length: " + length);
+		}
+		return length;
+	}
+}
@@ -0,0 +1,77 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.BigTwoEngine;
+import com.bigtwo.CardGamePlayer;
+import com.bigtwo.CardList;
+import com.bigtwo.CardSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the com.bigtwo.Hands.HandClassifier, and com.bigtwo.BigTwoEngine.composeHand() built on it, against trial
+ * construction of the hands, over every set of one to five cards.
+ *
+ * @author Anmol Gupta
+ */
+public class HandClassifierTest {
+    private static final CardGamePlayer PLAYER = new CardGamePlayer("alice"); // the player of the hands.
+
+    @Test
+    public void everySetOfUpToFiveCardsIsClassifiedAsByTrialConstruction() {
+        int[] counts = new int[HandClassifier.TYPE_NAMES.length];
+        for (int size = 1; size <= 5; size++) {
+            // visits the sets of the size in increasing order of their bits
+            long mask = (1L << size) - 1;
+            while (mask <= CardSet.ALL_CARDS) {
+                int result = HandClassifier.classify(mask);
+                Hand hand = ReferenceRules.compose(PLAYER, mask);
+                Hand composed = BigTwoEngine.composeHand(PLAYER, mask);
+                if (hand == null) {
+                    assertEquals(HandClassifier.INVALID, result, Long.toHexString(mask));
+                    assertNull(composed, Long.toHexString(mask));
+                } else {
+                    assertEquals(hand.getClass(), composed.getClass(), Long.toHexString(mask));
+                    assertEquals(hand.getHandLevel(), HandClassifier.getType(result), Long.toHexString(mask));
+                    assertEquals(CardSet.indexOf(hand.getTopCard()), HandClassifier.getTopIndex(result),
+                            Long.toHexString(mask));
+                    counts[hand.getHandLevel()]++;
+                }
+                long lowest = mask & -mask;
+                long ripple = mask + lowest;
+                mask = ripple | (((mask ^ ripple) >>> 2) / lowest);
+            }
+        }
+        // the numbers of hands of each type in a deck of 52 cards, where the 9 runs of five ranks go from 3-7 to
+        // J-2 without wrapping around
+        int[] expected = { 52, 78, 52, 9 * 1024 - 36, 5148 - 36, 3744, 624, 36 };
+        for (int type = 0; type < counts.length; type++) {
+            assertEquals(expected[type], counts[type], HandClassifier.TYPE_NAMES[type]);
+        }
+    }
+
+    @Test
+    public void cardSelectedTwiceFormsNoHand() {
+        CardList cards = new CardList();
+        cards.addCard(CardSet.cardAt(0));
+        cards.addCard(CardSet.cardAt(0));
+        assertNull(BigTwoEngine.composeHand(PLAYER, cards));
+    }
+
+    @Test
+    public void emptyAndForeignSetsAreInvalid() {
+        assertEquals(HandClassifier.INVALID, HandClassifier.classify(0L));
+        assertEquals(HandClassifier.INVALID, HandClassifier.classify(1L << CardSet.NUM_OF_CARDS));
+        assertEquals(HandClassifier.INVALID, HandClassifier.classify(CardSet.ALL_CARDS));
+    }
+
+    @Test
+    public void typesAreNamedByTheirNames() {
+        for (int type = 0; type < HandClassifier.TYPE_NAMES.length; type++) {
+            assertEquals(type, HandClassifier.typeOf(HandClassifier.TYPE_NAMES[type]));
+        }
+        assertEquals(HandClassifier.INVALID, HandClassifier.typeOf("Pairs"));
+    }
+}
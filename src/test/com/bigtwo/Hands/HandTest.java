@@ -0,0 +1,122 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.BigTwoCard;
+import com.bigtwo.Card;
+import com.bigtwo.CardGamePlayer;
+import com.bigtwo.CardList;
+import com.bigtwo.CardSet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the comparison of the hands of com.bigtwo.Hands.Hand and its subclasses, against the comparison made before
+ * the strength keys.
+ *
+ * @author Anmol Gupta
+ */
+public class HandTest {
+    // the players of the hands compared, who must differ
+    private static final CardGamePlayer ALICE = new CardGamePlayer("alice");
+    private static final CardGamePlayer BOB = new CardGamePlayer("bob");
+
+    @Test
+    public void smallHandsCompareAsBefore() {
+        for (int size = 1; size <= 3; size++) {
+            ArrayList<Long> hands = validHands(size);
+            for (long mask : hands) {
+                for (long other : hands) {
+                    assertBeatsAsBefore(mask, other);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fiveCardHandsCompareAsBefore() {
+        ArrayList<Long> hands = validHands(5);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int k = 0; k < 500000; k++) {
+            assertBeatsAsBefore(hands.get(random.nextInt(hands.size())), hands.get(random.nextInt(hands.size())));
+        }
+    }
+
+    @Test
+    public void shortFullHouseAndQuadAreInvalid() {
+        CardList cards = cards(card(5, 0), card(5, 1), card(5, 2));
+        assertFalse(new FullHouse(ALICE, cards).isValid());
+        assertFalse(new Quad(ALICE, cards).isValid());
+        assertFalse(new FullHouse(ALICE, new CardList()).isValid());
+        assertFalse(new Quad(ALICE, new CardList()).isValid());
+    }
+
+    @Test
+    public void unsortedStraightComparesByItsTopCard() {
+        // 3 to 7 topped by the 7 of Spades, listed first
+        Straight spades = new Straight(ALICE, cards(card(4, 3), card(0, 0),
+                card(1, 0), card(2, 0), card(3, 1)));
+        // 3 to 7 topped by the 7 of Clubs
+        Straight clubs = new Straight(BOB, cards(card(0, 2), card(1, 2),
+                card(2, 2), card(3, 0), card(4, 1)));
+        assertTrue(spades.beats(clubs));
+        assertFalse(clubs.beats(spades));
+        assertTrue(spades.isValid());
+        assertTrue(clubs.isValid());
+        assertTrue(spades.beats(clubs));
+        assertFalse(clubs.beats(spades));
+    }
+
+    /**
+     * Checks that the hands of two sets of cards compare as they did before the strength keys, and that the key of
+     * each hand is the one found by the move generator.
+     */
+    private static void assertBeatsAsBefore(long mask, long other) {
+        Hand hand = ReferenceRules.compose(ALICE, mask);
+        Hand otherHand = ReferenceRules.compose(BOB, other);
+        assertEquals(ReferenceRules.beats(hand, otherHand), hand.beats(otherHand),
+                Long.toHexString(mask) + " " + Long.toHexString(other));
+        assertEquals(MoveGenerator.strengthKey(mask), hand.getStrengthKey(), Long.toHexString(mask));
+    }
+
+    /**
+     * Returns the sets of cards of the specified size which form a valid hand.
+     */
+    private static ArrayList<Long> validHands(int size) {
+        ArrayList<Long> hands = new ArrayList<Long>();
+        long mask = (1L << size) - 1;
+        while (mask <= CardSet.ALL_CARDS) {
+            if (HandClassifier.classify(mask) != HandClassifier.INVALID) {
+                hands.add(mask);
+            }
+            long lowest = mask & -mask;
+            long ripple = mask + lowest;
+            mask = ripple | (((mask ^ ripple) >>> 2) / lowest);
+        }
+        return hands;
+    }
+
+    /**
+     * Returns the card of the specified rank (from 0 for a 3 to 12 for a 2)
+     * and suit.
+     */
+    static BigTwoCard card(int rank, int suit) {
+        return CardSet.cardAt(rank * 4 + suit);
+    }
+
+    /**
+     * Returns a list of the specified cards, in the specified order.
+     */
+    static CardList cards(Card... cards) {
+        CardList list = new CardList();
+        for (Card card : cards) {
+            list.addCard(card);
+        }
+        return list;
+    }
+}
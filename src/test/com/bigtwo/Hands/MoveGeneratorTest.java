@@ -0,0 +1,91 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.BigTwoDeck;
+import com.bigtwo.BigTwoEngine;
+import com.bigtwo.BigTwoState;
+import com.bigtwo.CardGamePlayer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the moves enumerated by com.bigtwo.Hands.MoveGenerator against every subset of the cards of the player,
+ * composed and compared by trial construction, at each position of seeded random games.
+ *
+ * @author Anmol Gupta
+ */
+public class MoveGeneratorTest {
+
+    private static final CardGamePlayer PLAYER = new CardGamePlayer("alice"); // the player of the moves.
+    private static final CardGamePlayer OPPONENT = new CardGamePlayer("bob"); // the player of the last hand.
+
+    @Test
+    public void seededGamesHaveTheMovesFoundByBruteForce() {
+        SplittableRandom random = new SplittableRandom(12);
+        long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES];
+        for (int g = 0; g < 100; g++) {
+            BigTwoDeck deck = new BigTwoDeck();
+            deck.shuffle(new SplittableRandom(random.nextLong()));
+            BigTwoEngine engine = new BigTwoEngine(4);
+            engine.start(deck);
+            while (!engine.endOfGame()) {
+                BigTwoState state = engine.getState();
+                long[] expected = bruteForce(state);
+                int n = engine.getLegalMoves(moves);
+                long[] actual = Arrays.copyOf(moves, n);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual, "game " + g + ", move " + state.getNumOfMoves());
+
+                Hand lastHand = state.isFreeLead() ? null : ReferenceRules.compose(OPPONENT, state.getLastMask());
+                n = MoveGenerator.generate(state.getHand(state.getCurrentIdx()), lastHand, state.getLastPlayer() < 0,
+                        moves);
+                actual = Arrays.copyOf(moves, n);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual, "game " + g + ", move " + state.getNumOfMoves());
+                assertEquals(!state.isFreeLead(), engine.canPass());
+
+                int k = random.nextInt(expected.length + (engine.canPass() ? 1 : 0));
+                engine.apply(k < expected.length ? expected[k] : 0L);
+            }
+        }
+    }
+
+    @Test
+    public void handWithoutRequiredCardHasNoMoves() {
+        long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES];
+        assertEquals(0, MoveGenerator.generate(0x1EL, MoveGenerator.FREE_LEAD, 1L, moves));
+        assertEquals(0, MoveGenerator.generate(0L, MoveGenerator.FREE_LEAD, 0L, moves));
+    }
+
+    /**
+     * Returns the legal moves of the current player, in ascending order, by composing every subset of up to five of
+     * the cards of the player and checking it against the last hand as the moves were checked before.
+     */
+    private static long[] bruteForce(BigTwoState state) {
+        long hand = state.getHand(state.getCurrentIdx());
+        Hand lastHand = state.isFreeLead() ? null : ReferenceRules.compose(OPPONENT, state.getLastMask());
+        long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES];
+        int n = 0;
+        for (long move = hand; move != 0; move = (move - 1) & hand) {
+            int size = Long.bitCount(move);
+            if (size > 5 || size == 4) {
+                continue;
+            }
+            if (state.getLastPlayer() < 0 && (move & 1L) == 0) {
+                continue;
+            }
+            Hand composed = ReferenceRules.compose(PLAYER, move);
+            if (composed != null && (lastHand == null || ReferenceRules.beats(composed, lastHand))) {
+                moves[n++] = move;
+            }
+        }
+        long[] legal = Arrays.copyOf(moves, n);
+        Arrays.sort(legal);
+        return legal;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bigtwo.Hands;
+
+import com.bigtwo.CardGamePlayer;
+import com.bigtwo.CardList;
+import com.bigtwo.CardSet;
+
+/**
+ * This class holds the rules of Big Two as they were decided before the com.bigtwo.Hands.HandClassifier and the
+ * strength keys, by building each type of hand in turn and asking it whether it is valid, and by comparing the hands
+ * field by field. The tests check the faster code against it.
+ *
+ * @author Anmol Gupta
+ */
+final class ReferenceRules {
+
+    private ReferenceRules() {
+    }
+
+    /**
+     *
+     * This method composes a hand from the specified set of cards by trial construction, in Big Two order as the
+     * cards of a player are kept.
+     *
+     * @param player The player of the hand.
+     * @param mask The bits of the set of cards.
+     * @return The hand formed by the cards, or null if they do not form a valid hand.
+     */
+    static Hand compose(CardGamePlayer player, long mask) {
+        CardList cards = CardSet.toCardList(mask);
+        if (cards.size() == 1) {
+            return new Single(player, cards);
+        } else if (cards.size() == 2 && new Pair(player, cards).isValid()) {
+            return new Pair(player, cards);
+        } else if (cards.size() == 3 && new Triple(player, cards).isValid()) {
+            return new Triple(player, cards);
+        } else if (cards.size() == 5) {
+            if (new StraightFlush(player, cards).isValid()) {
+                return new StraightFlush(player, cards);
+            } else if (new Quad(player, cards).isValid()) {
+                return new Quad(player, cards);
+            } else if (new FullHouse(player, cards).isValid()) {
+                return new FullHouse(player, cards);
+            } else if (new Flush(player, cards).isValid()) {
+                return new Flush(player, cards);
+            } else if (new Straight(player, cards).isValid()) {
+                return new Straight(player, cards);
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * This method checks if a hand beats another one of a different player, by comparing their levels, the suits of
+     * two flushes and then their top cards, as the hands were compared before their strength keys.
+     *
+     * @param hand The hand which is checked.
+     * @param other The hand to be beaten.
+     * @return Boolean value specifying if the hand beats the other one.
+     */
+    static boolean beats(Hand hand, Hand other) {
+        hand.sort();
+        other.sort();
+        if (hand.size() != other.size()) {
+            return false;
+        }
+        if (hand.getHandLevel() != other.getHandLevel()) {
+            return hand.getHandLevel() > other.getHandLevel();
+        }
+        if (hand.getHandLevel() == 4 && hand.getCard(0).getSuit() != other.getCard(0).getSuit()) {
+            return hand.getCard(0).getSuit() > other.getCard(0).getSuit();
+        }
+        return hand.getTopCard().compareTo(other.getTopCard()) == 1;
+    }
+}
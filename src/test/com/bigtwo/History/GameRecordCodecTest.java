@@ -0,0 +1,196 @@
+package com.bigtwo.History;
+
+import com.bigtwo.BigTwoDeck;
+import com.bigtwo.BigTwoEngine;
+import com.bigtwo.Bots.GreedyStrategy;
+import com.bigtwo.Bots.HeuristicStrategy;
+import com.bigtwo.Bots.RandomStrategy;
+import com.bigtwo.Bots.Strategy;
+import com.bigtwo.CardList;
+import com.bigtwo.CardSet;
+import com.bigtwo.Hands.MoveGenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that games written by a com.bigtwo.History.GameRecordWriter are read
+ * back by a com.bigtwo.History.GameRecordReader exactly as they were recorded.
+ * The games are played through a com.bigtwo.BigTwoEngine as a client plays
+ * them, by the indices of the cards in the hand of the player.
+ *
+ * @author Anmol Gupta
+ */
+public class GameRecordCodecTest {
+	// the names of the players, reused across games as on a server
+	private static final String[] NAMES = { "alice", "bob", null, "dave",
+			"éric" };
+
+	@Test
+	public void seededGamesRoundTrip() throws IOException {
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>();
+		SplittableRandom random = new SplittableRandom(1);
+		for (int g = 0; g < 200; g++) {
+			games.add(playGame(1000L + g * 7, g % 3, random.nextLong(), true,
+					random));
+		}
+		assertRoundTrip(games);
+	}
+
+	@Test
+	public void unseededGamesRoundTrip() throws IOException {
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>();
+		SplittableRandom random = new SplittableRandom(2);
+		for (int g = 0; g < 200; g++) {
+			// IDs and times going backwards are written as negative deltas
+			games.add(playGame(5000L - g * 3, g % 5, random.nextLong(), false,
+					random));
+		}
+		assertRoundTrip(games);
+	}
+
+	@Test
+	public void outOfTurnAndRawMovesRoundTrip() throws IOException {
+		long[] hands = new long[4];
+		BigTwoDeck.deal(42L, hands);
+		GameRecord record = new GameRecord(7L, 1, 123456789L, new String[] {
+				"alice", null, "carol", "dave" }, 42L);
+		int first = GameRecordWriter.firstSeat(hands);
+		int other = (first + 2) % 4;
+
+		// a move by the expected player, then one out of turn
+		long lowest = Long.lowestOneBit(hands[first]);
+		record.addMove(first, lowest);
+		long single = Long.lowestOneBit(hands[other]);
+		record.addMove(other, single);
+		// a pass out of turn
+		record.addMove(first, 0L);
+		// cards which the player does not hold
+		record.addMove((other + 1) % 4, hands[other] & ~single & 0x1FL
+				| Long.highestOneBit(hands[first]));
+		// more cards than a hand can hold
+		record.addMove(other, hands[other] & ~single);
+		// every card of the deck
+		record.addMove((first + 1) % 4, (1L << CardSet.NUM_OF_CARDS) - 1);
+
+		GameRecord unseeded = new GameRecord(8L, 2, 123456790L, new String[4],
+				hands);
+		unseeded.addMove(3, hands[0] & -hands[0]);
+		unseeded.addMove(3, 0L);
+
+		ArrayList<GameRecord> games = new ArrayList<GameRecord>();
+		games.add(record);
+		games.add(unseeded);
+		assertRoundTrip(games);
+	}
+
+	@Test
+	public void emptyStreamHasNoGames() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new GameRecordWriter(bytes).close();
+		GameRecordReader reader = new GameRecordReader(
+				new ByteArrayInputStream(bytes.toByteArray()));
+		assertNull(reader.read());
+	}
+
+	/**
+	 * Plays a game from the deck shuffled with the specified seed through an
+	 * engine, and records it from its seed or from its hands.
+	 */
+	private static GameRecord playGame(long gameID, int tableID, long seed,
+			boolean seeded, SplittableRandom random) {
+		BigTwoDeck deck = new BigTwoDeck();
+		deck.shuffle(new SplittableRandom(seed));
+		BigTwoEngine engine = new BigTwoEngine(4);
+		engine.start(deck);
+
+		String[] names = new String[4];
+		for (int i = 0; i < 4; i++) {
+			names[i] = NAMES[(int) ((gameID + i) % NAMES.length)];
+		}
+		long[] hands = new long[4];
+		for (int i = 0; i < 4; i++) {
+			hands[i] = engine.getState().getHand(i);
+		}
+		long time = 1700000000000L + gameID * 1000;
+		GameRecord record = seeded ? new GameRecord(gameID, tableID, time,
+				names, seed) : new GameRecord(gameID, tableID, time, names,
+				hands);
+		assertArrayEquals(hands, record.getHands());
+
+		Strategy[] strategies = { new RandomStrategy(), new GreedyStrategy(),
+				new HeuristicStrategy(), new RandomStrategy() };
+		long[] moves = new long[MoveGenerator.MAX_NUM_OF_MOVES];
+		while (!engine.endOfGame()) {
+			int i = engine.getCurrentIdx();
+			long move = strategies[i].chooseMove(engine.getState(), moves,
+					random);
+			int[] cardIdx = null;
+			if (move != 0) {
+				long hand = engine.getState().getHand(i);
+				cardIdx = new int[Long.bitCount(move)];
+				int j = 0;
+				for (long cards = move; cards != 0; cards &= cards - 1) {
+					cardIdx[j++] = CardSet.positionOf(hand,
+							Long.numberOfTrailingZeros(cards));
+				}
+			}
+			CardList cards = engine.playMove(i, cardIdx);
+			record.addMove(i, cards == null ? 0L : CardSet.maskOf(cards));
+		}
+		return record;
+	}
+
+	/**
+	 * Writes the games to a stream, reads them back and checks every field.
+	 */
+	private static void assertRoundTrip(ArrayList<GameRecord> games)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GameRecordWriter writer = new GameRecordWriter(bytes);
+		for (GameRecord game : games) {
+			writer.write(game);
+		}
+		writer.close();
+
+		GameRecordReader reader = new GameRecordReader(
+				new ByteArrayInputStream(bytes.toByteArray()));
+		for (GameRecord expected : games) {
+			assertGameEquals(expected, reader.read());
+		}
+		assertNull(reader.read());
+		reader.close();
+	}
+
+	/**
+	 * Checks that two records hold the same game, field for field.
+	 */
+	private static void assertGameEquals(GameRecord expected, GameRecord actual) {
+		assertEquals(expected.getGameID(), actual.getGameID());
+		assertEquals(expected.getTableID(), actual.getTableID());
+		assertEquals(expected.getTime(), actual.getTime());
+		assertEquals(expected.getNumOfPlayers(), actual.getNumOfPlayers());
+		for (int i = 0; i < expected.getNumOfPlayers(); i++) {
+			assertEquals(expected.getName(i), actual.getName(i));
+		}
+		assertEquals(expected.isSeeded(), actual.isSeeded());
+		if (expected.isSeeded()) {
+			assertEquals(expected.getSeed(), actual.getSeed());
+		}
+		assertArrayEquals(expected.getHands(), actual.getHands());
+		assertEquals(expected.getNumOfMoves(), actual.getNumOfMoves());
+		for (int k = 0; k < expected.getNumOfMoves(); k++) {
+			assertEquals(expected.getSeat(k), actual.getSeat(k), "seat " + k);
+			assertEquals(expected.getMove(k), actual.getMove(k), "move " + k);
+		}
+	}
+}